@@ -0,0 +1,130 @@
+package com.voetsjoeba.imdb;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import net.jcip.annotations.ThreadSafe;
+
+import com.voetsjoeba.imdb.domain.AirDate;
+
+/**
+ * Parses episode air dates as they appear on IMDb episode listings, e.g. "24 September 2007", "September 2007" or "2007".
+ *
+ * <p>Unlike {@link java.text.SimpleDateFormat}, this parser holds no mutable parsing state and can be used from many
+ * threads at once without locking. The shape of the text determines how it is parsed, so no formats are tried in vain,
+ * and unparseable text simply yields null. That makes parsing cheap enough that results aren't remembered.</p>
+ *
+ * @author Jeroen De Ridder
+ */
+@ThreadSafe
+public class AirDateParser {
+
+	private static final Map<String, Integer> months;
+	static
+	{
+		String[] monthNames = {"january", "february", "march", "april", "may", "june", "july", "august", "september", "october", "november", "december"};
+
+		Map<String, Integer> monthMap = new HashMap<String, Integer>();
+		for (int i = 0; i < monthNames.length; i++)
+		{
+			monthMap.put(monthNames[i], i + 1);
+			monthMap.put(monthNames[i].substring(0, 3), i + 1); // abbreviations, e.g. "Sep" or "Sep."
+		}
+		monthMap.put("sept", 9);
+		months = Collections.unmodifiableMap(monthMap);
+	}
+
+	private AirDateParser() { }
+
+	/**
+	 * Parses an air date, or returns null if the text is null, unknown ("????") or could not be parsed.
+	 */
+	public static AirDate parse(String text)
+	{
+		if (text == null)
+			return null;
+
+		String[] parts = text.trim().split("\\s+");
+
+		switch (parts.length)
+		{
+			case 1: // "2007"
+				int yearOnly = parseNumber(parts[0], 4, 4);
+				return (yearOnly < 0 ? null : new AirDate(yearOnly));
+
+			case 2: // "September 2007"
+				int monthOnly = parseMonth(parts[0]);
+				int yearOfMonth = parseNumber(parts[1], 4, 4);
+				return (monthOnly < 0 || yearOfMonth < 0 ? null : new AirDate(yearOfMonth, monthOnly, AirDate.UNKNOWN));
+
+			case 3: // "24 September 2007"
+				int day = parseNumber(parts[0], 1, 2);
+				int month = parseMonth(parts[1]);
+				int year = parseNumber(parts[2], 4, 4);
+				if (month < 0 || year < 0 || day < 1 || day > getMonthLength(year, month))
+					return null;
+				return new AirDate(year, month, day);
+
+			default:
+				return null;
+		}
+	}
+
+	/**
+	 * Returns the value of a string of ASCII digits of the given length range, or -1 if it isn't one.
+	 */
+	private static int parseNumber(String text, int minLength, int maxLength)
+	{
+		int length = text.length();
+		if (length < minLength || length > maxLength)
+			return -1;
+
+		int value = 0;
+		for (int i = 0; i < length; i++)
+		{
+			char c = text.charAt(i);
+			if (c < '0' || c > '9')
+				return -1;
+			value = value * 10 + (c - '0');
+		}
+		return value;
+	}
+
+	/**
+	 * Returns the number of days in the given month (1-12) of the given year.
+	 */
+	private static int getMonthLength(int year, int month)
+	{
+		switch (month)
+		{
+			case 2:
+				boolean leapYear = (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0));
+				return (leapYear ? 29 : 28);
+
+			case 4:
+			case 6:
+			case 9:
+			case 11:
+				return 30;
+
+			default:
+				return 31;
+		}
+	}
+
+	/**
+	 * Returns the number (1-12) of the month with the given English name or abbreviation, or -1 if it isn't one.
+	 */
+	private static int parseMonth(String text)
+	{
+		String name = text.toLowerCase(Locale.US);
+		if (name.endsWith("."))
+			name = name.substring(0, name.length() - 1);
+
+		Integer month = months.get(name);
+		return (month == null ? -1 : month);
+	}
+
+}
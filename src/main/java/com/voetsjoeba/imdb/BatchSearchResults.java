@@ -0,0 +1,129 @@
+package com.voetsjoeba.imdb;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.voetsjoeba.imdb.domain.api.Searchable;
+
+/**
+ * Holds the outcome of a batch search (see {@link ImdbSearcher#searchBatch(java.util.Collection, int, boolean)}).
+ * Items are kept in the same order as the searchables that were submitted; each item holds either the
+ * {@link ImdbSearchResults} for its searchable or the exception that caused its lookup to fail.
+ *
+ * @author Jeroen De Ridder
+ */
+public class BatchSearchResults
+{
+	private final List<Item> items;
+
+	public BatchSearchResults(List<Item> items)
+	{
+		this.items = Collections.unmodifiableList(new ArrayList<Item>(items));
+	}
+
+	/**
+	 * Returns an unmodifiable list of all items, in input order.
+	 */
+	public List<Item> getItems()
+	{
+		return items;
+	}
+
+	/**
+	 * Returns the item for the searchable at the given position in the input.
+	 */
+	public Item getItem(int index)
+	{
+		return items.get(index);
+	}
+
+	/**
+	 * Returns the amount of items in this batch; equal to the amount of submitted searchables.
+	 */
+	public int size()
+	{
+		return items.size();
+	}
+
+	/**
+	 * Returns the items whose lookup failed, in input order.
+	 */
+	public List<Item> getFailedItems()
+	{
+		List<Item> failedItems = new ArrayList<Item>();
+		for (Item item : items)
+		{
+			if (item.isFailed())
+				failedItems.add(item);
+		}
+		return failedItems;
+	}
+
+	/**
+	 * Returns true if at least one lookup in this batch failed.
+	 */
+	public boolean hasFailures()
+	{
+		for (Item item : items)
+		{
+			if (item.isFailed())
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * The outcome of a single lookup within a batch.
+	 *
+	 * @author Jeroen De Ridder
+	 */
+	public static class Item
+	{
+		private final Searchable searchable;
+		private final ImdbSearchResults results;
+		private final Throwable failure;
+
+		public Item(Searchable searchable, ImdbSearchResults results, Throwable failure)
+		{
+			this.searchable = searchable;
+			this.results = results;
+			this.failure = failure;
+		}
+
+		/**
+		 * Returns the searchable this item was looked up for.
+		 */
+		public Searchable getSearchable()
+		{
+			return searchable;
+		}
+
+		/**
+		 * Returns the search results, or null if the lookup failed or no query could be extracted from the searchable.
+		 */
+		public ImdbSearchResults getResults()
+		{
+			return results;
+		}
+
+		/**
+		 * Returns the exception that caused the lookup to fail, or null if it succeeded.
+		 */
+		public Throwable getFailure()
+		{
+			return failure;
+		}
+
+		public boolean isFailed()
+		{
+			return (failure != null);
+		}
+
+		@Override
+		public String toString()
+		{
+			return (searchable == null ? null : searchable.getSearchTerm()) + ": " + (failure != null ? "failed (" + failure + ")" : results);
+		}
+	}
+}
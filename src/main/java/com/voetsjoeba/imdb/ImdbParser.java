@@ -1,18 +1,18 @@
 package com.voetsjoeba.imdb;
 
-import java.awt.image.BufferedImage;
 import java.io.IOException;
-import java.text.DateFormat;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Calendar;
-import java.util.Date;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -28,12 +28,16 @@ import org.jsoup.select.Elements;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.voetsjoeba.imdb.domain.AbstractTitle;
+import com.voetsjoeba.imdb.domain.AirDate;
 import com.voetsjoeba.imdb.domain.LimitedTitle;
+import com.voetsjoeba.imdb.domain.SeasonList;
 import com.voetsjoeba.imdb.domain.StandardEpisode;
 import com.voetsjoeba.imdb.domain.StandardMovie;
 import com.voetsjoeba.imdb.domain.StandardName;
 import com.voetsjoeba.imdb.domain.StandardSeason;
 import com.voetsjoeba.imdb.domain.StandardSeries;
+import com.voetsjoeba.imdb.domain.TitleField;
 import com.voetsjoeba.imdb.domain.api.BaseTitle;
 import com.voetsjoeba.imdb.domain.api.Episode;
 import com.voetsjoeba.imdb.domain.api.Movie;
@@ -41,7 +45,15 @@ import com.voetsjoeba.imdb.domain.api.Name;
 import com.voetsjoeba.imdb.domain.api.Season;
 import com.voetsjoeba.imdb.domain.api.Series;
 import com.voetsjoeba.imdb.domain.api.Title;
+import com.voetsjoeba.imdb.exception.ImdbException;
+import com.voetsjoeba.imdb.http.ConditionalPage;
+import com.voetsjoeba.imdb.http.HttpTransport;
+import com.voetsjoeba.imdb.http.PageValidators;
+import com.voetsjoeba.imdb.http.Transport;
+import com.voetsjoeba.imdb.util.CompiledSelector;
 import com.voetsjoeba.imdb.util.HttpUtils;
+import com.voetsjoeba.imdb.util.ImdbUrls;
+import com.voetsjoeba.imdb.util.LazyValue;
 
 
 /**
@@ -64,52 +76,26 @@ public class ImdbParser {
 		TITLE_PAGE, SEARCH_RESULTS
 	}
 	
+	/**
+	 * Episode listings with at least this many entries are parsed in parallel, if an executor is given to parse them on.
+	 * @see #parseEpisodeNodes(List, ExecutorService)
+	 */
+	public static final int PARALLEL_EPISODE_THRESHOLD = 400;
+	
 	// Patterns are always thread-safe; Matchers, however, are not.
 	protected static final Pattern hrefIdPattern = Pattern.compile("/title/([^/]+)/?");
 	protected static final Pattern searchResultYearPattern = Pattern.compile("^\\((\\d{4})\\)");
 	protected static final Pattern episodeNumberPattern = Pattern.compile("Season\\s+(\\d+),\\s+Episode\\s+(\\d+)");
 	
-	// DateFormats are not thread-safe by default! Care must be taken to avoid using them concurrently from separate
-	// threads.
-	protected static final List<DateFormat> episodeDateFormats;
-	static
-	{
-		episodeDateFormats = new ArrayList<DateFormat>();
-		episodeDateFormats.add(new SimpleDateFormat("d MMMM yyyy", Locale.US));
-		episodeDateFormats.add(new SimpleDateFormat("yyyy", Locale.US));
-	}
-	
 	/**
-	 * Helper method; parses an episode airdate in textual form and returns it as a Date instance, or null if the
+	 * Helper method; parses an episode airdate in textual form and returns it as an {@link AirDate} instance, or null if the
 	 * parsing failed.
 	 */
-	protected static Date parseEpisodeAirdate(String dateText)
+	protected static AirDate parseEpisodeAirdate(String dateText)
 	{
-		if (dateText == null || dateText.equals("????"))
-			return null;
-		
-		Date result = null;
-		
-		// important -- DateFormats are not thread-safe, so we need to synchronize their access (especially for the 
-		// prefetcher threads. Since it's tricky to get a grasp on the locking order with these for loops, we'll 
-		// just lock on the entire list of date formats and pray parsing the dates doesn't take too long.
-		
-		synchronized (episodeDateFormats)
-		{
-			for (DateFormat episodeDateFormat : episodeDateFormats)
-			{
-				try
-				{
-					result = episodeDateFormat.parse(dateText);
-				}
-				catch (ParseException pex)
-				{
-					// no go, try next one
-				}
-			}
-		}
+		AirDate result = AirDateParser.parse(dateText);
 		
-		if (result == null)
+		if (result == null && dateText != null && !dateText.equals("????"))
 			log.debug("Failed to parse date: {}", dateText);
 		return result;
 	}
@@ -121,7 +107,7 @@ public class ImdbParser {
 	{
 		String id = null;
 		
-		Element searchResultNode = matchElem.select("a:first-of-type[href]").first();
+		Element searchResultNode = SelectorPlan.SEARCH_RESULT_LINK.first(matchElem);
 		if (searchResultNode != null)
 		{
 			String href = searchResultNode.attr("href").trim();
@@ -173,7 +159,7 @@ public class ImdbParser {
 		
 		// not sure if this is still present -- used to contain small bits of extra info like "(TV series)", but now
 		// seems to have moved into the same text as the year string (Jan 04, 2013) 
-		Elements extraInfoNodes = matchElem.select("small:last-of-type");
+		Elements extraInfoNodes = SelectorPlan.SEARCH_RESULT_EXTRA_INFO.select(matchElem);
 		for (Element extraInfoNode : extraInfoNodes)
 		{
 			extraInfo.add(extraInfoNode.text().trim());
@@ -189,20 +175,33 @@ public class ImdbParser {
 	 * Parses a search results page into a list of {@link BaseTitle}s.
 	 */
 	protected static List<LimitedTitle> parseSearchResults(Document document)
+	{
+		return parseSearchResults(document, ImdbUrls.DEFAULT);
+	}
+	
+	/**
+	 * Parses a search results page into a list of {@link BaseTitle}s that link back to the site the page was fetched from.
+	 * 
+	 * @param imdbUrls The URL builder for the site the page was fetched from.
+	 */
+	protected static List<LimitedTitle> parseSearchResults(Document document, ImdbUrls imdbUrls)
 	{
 		List<LimitedTitle> matches = new LinkedList<LimitedTitle>();
 		
 		List<Element> titleContainerElems = new LinkedList<Element>(); // tables containing title result rows
-		titleContainerElems.add(document.select("div#main div.findSection > table:first-of-type").first());
+		titleContainerElems.add(SelectorPlan.SEARCH_RESULTS_TABLE.first(document));
 		
 		for(Element titleContainer : titleContainerElems)
 		{
-			Elements titleElems = titleContainer.select("tr > td:nth-child(2)"); // table cells containing link + year, one for each row
+			Elements titleElems = SelectorPlan.SEARCH_RESULT_CELLS.select(titleContainer); // table cells containing link + year, one for each row
 			for(Element titleElem : titleElems)
 			{
 				LimitedTitle limitedTitle = parseSearchResult(titleElem);
 				if(limitedTitle != null)
+				{
+					limitedTitle.setImdbUrls(imdbUrls);
 					matches.add(limitedTitle);
+				}
 			}
 		}
 		
@@ -210,18 +209,74 @@ public class ImdbParser {
 	}
 	
 	/**
-	 * Parses a single title page into its corresponding {@link Title}.
+	 * Parses a single title page into its corresponding {@link Title}, using the shared {@link HttpTransport} for any
+	 * additional fetches.
 	 * 
 	 * @param document The document to parse.
 	 * @param fetchThumbnail Whether or not to also fetch the title's thumbnail image (if any).
 	 */
 	protected static Title parseTitlePage(Document document, boolean fetchThumbnail)
+	{
+		return parseTitlePage(document, fetchThumbnail, HttpTransport.getDefault());
+	}
+	
+	/**
+	 * Parses a single title page into its corresponding {@link Title}.
+	 * 
+	 * @param document The document to parse.
+	 * @param fetchThumbnail Whether or not to also fetch the title's thumbnail image (if any).
+	 * @param transport The transport to perform additional fetches (episode listings, thumbnails) with.
+	 */
+	protected static Title parseTitlePage(Document document, boolean fetchThumbnail, Transport transport)
+	{
+		return parseTitlePage(document, TitleField.all(fetchThumbnail), transport);
+	}
+	
+	/**
+	 * Parses the requested fields of a single title page into its corresponding {@link Title}. Unrequested fields are 
+	 * neither extracted nor fetched, and are left unset on the title.
+	 * 
+	 * @param document The document to parse.
+	 * @param fields The fields to parse. {@link TitleField#BASIC} fields are always parsed.
+	 * @param transport The transport to perform additional fetches (episode listings, thumbnails) with.
+	 */
+	protected static Title parseTitlePage(Document document, Set<TitleField> fields, Transport transport)
+	{
+		return parseTitlePage(document, fields, transport, ImdbUrls.DEFAULT);
+	}
+	
+	/**
+	 * Parses the requested fields of a single title page into its corresponding {@link Title}. Unrequested fields are 
+	 * neither extracted nor fetched, and are left unset on the title.
+	 * 
+	 * @param document The document to parse.
+	 * @param fields The fields to parse. {@link TitleField#BASIC} fields are always parsed.
+	 * @param transport The transport to perform additional fetches (episode listings, thumbnails) with.
+	 * @param imdbUrls The URL builder for the site the page was fetched from; the title links back to it, and its
+	 *            episode listing is fetched from it.
+	 */
+	protected static Title parseTitlePage(Document document, Set<TitleField> fields, Transport transport, ImdbUrls imdbUrls)
+	{
+		return parseTitlePage(document, fields, transport, imdbUrls, null);
+	}
+	
+	/**
+	 * Parses the requested fields of a single title page like {@link #parseTitlePage(Document, Set, Transport, ImdbUrls)},
+	 * parsing large episode listings in parallel on the given executor.
+	 * 
+	 * @param episodeParsingExecutor The executor to parse large episode listings on, or null to parse them on the thread
+	 *            that loads them. See {@link #parseEpisodeNodes(List, ExecutorService)}.
+	 */
+	protected static Title parseTitlePage(Document document, Set<TitleField> fields, Transport transport, ImdbUrls imdbUrls, ExecutorService episodeParsingExecutor)
 	{
 		
+		// collect everything we're after in one pass over the document
+		TitlePageNodes nodes = TitlePageNodes.scan(document, fields);
+		
 		// get title ID
 		String id = null;
 		
-		String canonicalHref = getCanonicalHref(document);
+		String canonicalHref = (nodes.canonicalLink == null ? null : nodes.canonicalLink.attr("href"));
 		if (canonicalHref != null)
 		{
 			Matcher matcher = hrefIdPattern.matcher(canonicalHref);
@@ -236,45 +291,35 @@ public class ImdbParser {
 		
 		// determine type (movie/series) and parse accordingly
 		
-		Element tvSeriesNode = document.select("td#overview-top > div.infobar").first();
+		Element tvSeriesNode = nodes.infobar;
 		boolean isTvSeries = (tvSeriesNode != null && tvSeriesNode.text().toLowerCase().contains("series"));
 		
-		Title imdbTitle;
+		AbstractTitle imdbTitle;
 		if (isTvSeries)
 		{
 			imdbTitle = new StandardSeries(id);
-			parseSeriesInfo(document, (Series) imdbTitle);
+			imdbTitle.setImdbUrls(imdbUrls);
+			parseSeriesInfo(nodes, (Series) imdbTitle, transport, episodeParsingExecutor);
 		}
 		else
 		{
 			imdbTitle = new StandardMovie(id);
-			parseMovieInfo(document, (Movie) imdbTitle);
+			imdbTitle.setImdbUrls(imdbUrls);
+			parseMovieInfo(nodes, (Movie) imdbTitle);
 		}
 		
-		Element thumbnailElement = document.select("td#img_primary a:first-of-type img:first-of-type").first();
+		Element thumbnailElement = nodes.thumbnail;
 		if (thumbnailElement != null && thumbnailElement.hasAttr("src"))
 		{
 			String thumbnailSrc = thumbnailElement.attr("src");
 			imdbTitle.setThumbnailUrl(thumbnailSrc);
 			
-			if (fetchThumbnail)
-			{
-				try
-				{
-					BufferedImage image = HttpUtils.fetchImage(thumbnailSrc);
-					imdbTitle.setThumbnail(image);
-				}
-				catch (IOException e)
-				{
-					log.error(e.getMessage());
-				}
-				catch (HttpException e)
-				{
-					log.error(e.getMessage());
-				}
-			}
+			// fetched on first access rather than now, the caller may never look at it
+			if (nodes.fields.contains(TitleField.THUMBNAIL))
+				imdbTitle.setThumbnailLoader(createThumbnailLoader(imdbTitle, thumbnailSrc, transport));
 		}
 		
+		imdbTitle.setFields(nodes.fields);
 		return imdbTitle;
 		
 	}
@@ -282,13 +327,32 @@ public class ImdbParser {
 	/**
 	 * Parses information that is specific to series from the given {@link Document} title page and writes it to the provided {@link Series}.
 	 */
-	protected static void parseSeriesInfo(Document document, Series series){
+	protected static void parseSeriesInfo(Document document, Series series)
+	{
+		parseSeriesInfo(document, series, HttpTransport.getDefault());
+	}
+	
+	/**
+	 * Parses information that is specific to series from the given {@link Document} title page and writes it to the provided {@link Series}.
+	 * The episode listing is fetched through the given transport.
+	 */
+	protected static void parseSeriesInfo(Document document, Series series, Transport transport)
+	{
+		parseSeriesInfo(TitlePageNodes.scan(document), series, transport, null);
+	}
+	
+	/**
+	 * Parses information that is specific to series from the given nodes of a title page and writes it to the provided {@link Series}.
+	 * The episode listing is fetched through the given transport, and parsed on the given executor if it is large and the
+	 * executor isn't null.
+	 */
+	protected static void parseSeriesInfo(TitlePageNodes nodes, Series series, Transport transport, ExecutorService episodeParsingExecutor){
 		
 		// parse seasons and episodes
 		
-		parseGenericTitleInfo(document, series);
+		parseGenericTitleInfo(nodes, series);
 		
-		Element yearNode = document.select("td#overview-top > h1[class*=header] > span:nth-of-type(2)").first();
+		Element yearNode = nodes.seriesYear;
 		if (yearNode != null)
 		{
 			String yearText = yearNode.text();
@@ -313,6 +377,110 @@ public class ImdbParser {
 		
 		log.debug("\tYear: {}", series.getYear());
 		
+		if (!nodes.fields.contains(TitleField.EPISODES))
+			return;
+		
+		// the episode listing is a separate fetch, so put it off until the seasons are first asked for
+		if (series instanceof StandardSeries)
+			((StandardSeries) series).setSeasonLoader(createSeasonLoader(series, transport, episodeParsingExecutor));
+		else
+			series.setSeasons(parseEpisodeListing(series, transport, episodeParsingExecutor, null, null));
+		
+	}
+	
+	/**
+	 * Returns a loader for the seasons of the given series, which fetches and parses its episode listing through the given
+	 * transport.
+	 * 
+	 * @see StandardSeries#setSeasonLoader(LazyValue)
+	 */
+	protected static LazyValue<List<Season>> createSeasonLoader(Series series, Transport transport)
+	{
+		return createSeasonLoader(series, transport, null);
+	}
+	
+	/**
+	 * Returns a loader for the seasons of the given series, which fetches its episode listing through the given transport
+	 * and parses it on the given executor if it is large and the executor isn't null.
+	 * 
+	 * @see #parseEpisodeNodes(List, ExecutorService)
+	 */
+	protected static LazyValue<List<Season>> createSeasonLoader(Series series, Transport transport, ExecutorService episodeParsingExecutor)
+	{
+		return createSeasonLoader(series, transport, episodeParsingExecutor, null, null);
+	}
+	
+	/**
+	 * Returns a loader for the seasons of the given series, which only fetches and parses its episode listing again if it
+	 * has changed since the given seasons were parsed from it.
+	 * 
+	 * @see #parseEpisodeListing(Series, Transport, ExecutorService, List, PageValidators)
+	 */
+	protected static LazyValue<List<Season>> createSeasonLoader(final Series series, final Transport transport, final ExecutorService episodeParsingExecutor, final List<Season> previousSeasons, final PageValidators previousValidators)
+	{
+		return new LazyValue<List<Season>>() {
+			@Override
+			protected List<Season> compute()
+			{
+				return parseEpisodeListing(series, transport, episodeParsingExecutor, previousSeasons, previousValidators);
+			}
+		};
+	}
+	
+	/**
+	 * Returns a loader for the thumbnail image of the given title at the given URL, which fetches it through the given 
+	 * transport. If the image could not be fetched, the loader returns null and records the failure on the title.
+	 * 
+	 * @see AbstractTitle#setThumbnailLoader(LazyValue)
+	 */
+	protected static LazyValue<byte[]> createThumbnailLoader(final Title title, final String url, final Transport transport)
+	{
+		return new LazyValue<byte[]>() {
+			@Override
+			protected byte[] compute()
+			{
+				try
+				{
+					byte[] data = transport.getImageBytes(url);
+					title.setFetchFailure(TitleField.THUMBNAIL, null);
+					return data;
+				}
+				catch (IOException e)
+				{
+					log.error(e.getMessage());
+					title.setFetchFailure(TitleField.THUMBNAIL, e);
+				}
+				catch (HttpException e)
+				{
+					log.error(e.getMessage());
+					title.setFetchFailure(TitleField.THUMBNAIL, e);
+				}
+				return null;
+			}
+		};
+	}
+	
+	/**
+	 * Fetches the episode listing of the given series through the given transport and parses it into its seasons, in 
+	 * season number order. Returns null if the listing could not be fetched, in which case the failure is recorded on the
+	 * series (see {@link Title#getFetchFailures()}).
+	 */
+	protected static List<Season> parseEpisodeListing(Series series, Transport transport)
+	{
+		return parseEpisodeListing(series, transport, null, null, null);
+	}
+	
+	/**
+	 * Like {@link #parseEpisodeListing(Series, Transport)}, but given the seasons parsed from an earlier fetch of the episode
+	 * listing along with its validators, only fetches and parses the listing again if it has changed since. If it hasn't,
+	 * the earlier seasons are returned. Either way, the validators of the listing are set on the series.
+	 * 
+	 * @param episodeParsingExecutor The executor to parse a large listing on, or null to parse it on the calling thread.
+	 * @param previousSeasons The seasons parsed from an earlier fetch, or null to fetch the listing regardless.
+	 * @param previousValidators The validators of that earlier fetch, or null to fetch the listing regardless.
+	 */
+	protected static List<Season> parseEpisodeListing(Series series, Transport transport, ExecutorService episodeParsingExecutor, List<Season> previousSeasons, PageValidators previousValidators)
+	{
 		try {
 			
 			// the /episodes page is no longer listing all of the episodes at once; instead you have a dropdown to select
@@ -322,107 +490,183 @@ public class ImdbParser {
 			// and from each one select its next few sibling nodes that contain the data we're after
 			
 			String episodeListUrl = series.getUrl() + "/epcast";
-			String episodeListHtml = HttpUtils.getPage(episodeListUrl);
-			Document episodeList = HttpUtils.parsePage(episodeListHtml);
+			boolean conditional = (previousSeasons != null && previousValidators != null);
+			ConditionalPage page = transport.getDocument(episodeListUrl, conditional ? previousValidators : PageValidators.NONE);
+			series.setEpisodeListingValidators(page.getValidators());
+			series.setFetchFailure(TitleField.EPISODES, null);
 			
-			Map<Integer, Season> seasonMap = new HashMap<Integer, Season>(); // map season numbers to Season instances
-			Elements seasonTitleNodes = episodeList.select("div#tn15content > h4");
+			if (conditional && !page.isModified())
+				return previousSeasons;
 			
-			for (Element seasonTitleNode : seasonTitleNodes) {
-				
-				Integer seasonNr  = null;
-				Integer episodeNr = null;
-				
-				String seasonEpisodeNrString = seasonTitleNode.text();
-				Matcher matcher = episodeNumberPattern.matcher(seasonEpisodeNrString);
-				if (matcher.find()) {
-					seasonNr = Integer.parseInt(matcher.group(1)); // shouldn't throw, regex matches on numeric chars only
-					episodeNr = Integer.parseInt(matcher.group(2));
-				}
-				
-				// can't do anything if we don't know the season and episode nr
-				if (seasonNr == null || episodeNr == null)
-					continue;
-				
-				String title = null;
-				String plot = null;
-				Calendar airDate = null;
-				
-				Element titleNode = seasonTitleNode.select("a:first-of-type").first();
-				Element airdateNode = seasonTitleNode.nextElementSibling();
-				Node plotNode = airdateNode.nextElementSibling().nextSibling();
-				//Element airdateNode = Xsoup.compile("./following-sibling::b[1]").evaluate(seasonTitleNode).getElements().first();//seasonTitleNode.select("following-sibling::b[1]").first();
-				//Element plotNode = Xsoup.compile("./following-sibling::br[1]/following-sibling").evaluate(seasonTitleNode).getElements().first();//seasonTitleNode.select("following-sibling::br[1]/following-sibling").first();
-				
-				if(titleNode != null){
-					title = StringUtils.trimToNull(titleNode.text());
-				}
-				
-				if (plotNode instanceof TextNode){
-					plot = StringUtils.trimToNull(((TextNode) plotNode).text());
-				}
-				
-				if(airdateNode != null){
-					
-					String dateText = StringUtils.trimToNull(airdateNode.text());
-					Date parsedDate = parseEpisodeAirdate(dateText);
-					
-					if (parsedDate != null) {
-						airDate = Calendar.getInstance();
-						airDate.setTime(parsedDate);
-					}
+			Document episodeList = page.getDocument();
+			
+			Elements episodeNodes = SelectorPlan.EPISODE_TITLES.select(episodeList);
+			List<ParsedEpisode> parsedEpisodes = parseEpisodeNodes(episodeNodes, episodeParsingExecutor);
+			
+			// count the episodes in each season first, so that each season's episode list can be allocated at its final size
+			Map<Integer, SeasonBuilder> seasonBuilders = new HashMap<Integer, SeasonBuilder>();
+			for (ParsedEpisode parsedEpisode : parsedEpisodes) {
+				SeasonBuilder seasonBuilder = seasonBuilders.get(parsedEpisode.seasonNr);
+				if (seasonBuilder == null) {
+					seasonBuilder = new SeasonBuilder(parsedEpisode.seasonNr);
+					seasonBuilders.put(parsedEpisode.seasonNr, seasonBuilder);
 				}
+				seasonBuilder.size++;
+			}
+			
+			for (SeasonBuilder seasonBuilder : seasonBuilders.values()) {
+				seasonBuilder.episodes = new ArrayList<Episode>(seasonBuilder.size);
+			}
+			
+			for (ParsedEpisode parsedEpisode : parsedEpisodes) {
 				
-				// create season if it doesn't already exist
-				Season season = seasonMap.get(seasonNr);
-				if (season == null) {
-					season = new StandardSeason(seasonNr);
-					seasonMap.put(seasonNr, season);
-				}
+				SeasonBuilder seasonBuilder = seasonBuilders.get(parsedEpisode.seasonNr);
 				
 				// if the episode already exists within the season, then we have a duplicate
-				Episode existingEpisode = season.getEpisode(episodeNr);
-				if (existingEpisode == null)
-				{
-					Episode newEpisode = new StandardEpisode(season);
-					newEpisode.setNumber(episodeNr);
-					newEpisode.setAirDate(airDate);
-					newEpisode.setPlot(plot);
-					newEpisode.setTitle(title);
-					
-					// TODO: create an addEpisode member function, srsly
-					List<Episode> episodes = new ArrayList<Episode>(season.getEpisodes());
-					episodes.add(newEpisode);
-					season.setEpisodes(episodes);
-				} else {
-					log.error("Encountered duplicate episode number '"+episodeNr+"' in season '{}' of '{}'", seasonNr, series.getTitle());
+				if (!seasonBuilder.addEpisodeNumber(parsedEpisode.episodeNr)) {
+					log.error("Encountered duplicate episode number '"+parsedEpisode.episodeNr+"' in season '{}' of '{}'", parsedEpisode.seasonNr, series.getTitle());
+					continue;
 				}
 				
+				Episode newEpisode = new StandardEpisode(seasonBuilder.season);
+				newEpisode.setNumber(parsedEpisode.episodeNr);
+				newEpisode.setAirDateValue(parsedEpisode.airDate);
+				newEpisode.setPlot(parsedEpisode.plot);
+				newEpisode.setTitle(parsedEpisode.title);
+				seasonBuilder.episodes.add(newEpisode);
 			}
 			
-			// create a list out of the map of seasons
-			int numSeasons = seasonMap.keySet().size();
-			
-			// create a list with enough elements to hold all seasons
-			List<Season> seasonList = new ArrayList<Season>(numSeasons);
-			for (int i = 0; i < numSeasons; i++) {
-				seasonList.add(null);
+			// seasons may be numbered sparsely (gaps, a season 0 of specials, years), so don't index them by position
+			List<Season> seasons = new ArrayList<Season>(seasonBuilders.size());
+			for (SeasonBuilder seasonBuilder : seasonBuilders.values()) {
+				seasonBuilder.season.setEpisodes(seasonBuilder.episodes);
+				seasons.add(seasonBuilder.season);
 			}
 			
-			// add all the seasons in their respective places
-			for (Map.Entry<Integer, Season> entry : seasonMap.entrySet()) {
-				seasonList.set(entry.getKey() - 1, entry.getValue());
-			}
-			
-			series.setSeasons(seasonList);
+			return new SeasonList(seasons);
 		}
 		catch(IOException ioex) {
-			
+			log.error("Could not fetch the episode listing of {}: {}", series.getId(), ioex.getMessage());
+			series.setFetchFailure(TitleField.EPISODES, ioex);
+			return null;
 		}
 		catch(HttpException hex){
+			log.error("Could not fetch the episode listing of {}: {}", series.getId(), hex.getMessage());
+			series.setFetchFailure(TitleField.EPISODES, hex);
+			return null;
+		}
+		
+	}
+	
+	/**
+	 * Parses the episode title nodes of an episode listing into {@link ParsedEpisode}s, in document order. Large listings
+	 * are split into consecutive ranges that are parsed in parallel on the given executor, if any; the results are 
+	 * concatenated in range order, so the outcome is the same as parsing sequentially. The executor should be a dedicated
+	 * one, not one whose threads may themselves be waiting on a parse to complete.
+	 * 
+	 * @param executor The executor to parse large listings on, or null to parse them on the calling thread.
+	 */
+	protected static List<ParsedEpisode> parseEpisodeNodes(final List<Element> episodeNodes, ExecutorService executor)
+	{
+		int rangeCount = Runtime.getRuntime().availableProcessors();
+		
+		if (executor == null || rangeCount < 2 || episodeNodes.size() < PARALLEL_EPISODE_THRESHOLD)
+			return parseEpisodeNodes(episodeNodes, 0, episodeNodes.size());
+		
+		int rangeSize = (episodeNodes.size() + rangeCount - 1) / rangeCount;
+		List<Future<List<ParsedEpisode>>> rangeResults = new ArrayList<Future<List<ParsedEpisode>>>(rangeCount);
+		
+		for (int start = 0; start < episodeNodes.size(); start += rangeSize)
+		{
+			final int from = start;
+			final int to = Math.min(episodeNodes.size(), start + rangeSize);
+			
+			rangeResults.add(executor.submit(new Callable<List<ParsedEpisode>>() {
+				public List<ParsedEpisode> call()
+				{
+					return parseEpisodeNodes(episodeNodes, from, to);
+				}
+			}));
+		}
+		
+		List<ParsedEpisode> parsedEpisodes = new ArrayList<ParsedEpisode>(episodeNodes.size());
+		try
+		{
+			for (Future<List<ParsedEpisode>> rangeResult : rangeResults)
+				parsedEpisodes.addAll(rangeResult.get());
+		}
+		catch (ExecutionException eex)
+		{
+			if (eex.getCause() instanceof RuntimeException)
+				throw (RuntimeException) eex.getCause();
+			throw new ImdbException(eex.getCause());
+		}
+		catch (InterruptedException iex)
+		{
+			for (Future<List<ParsedEpisode>> rangeResult : rangeResults)
+				rangeResult.cancel(true);
 			
+			Thread.currentThread().interrupt();
+			throw new ImdbException("Interrupted while parsing episode listing", iex);
+		}
+		
+		return parsedEpisodes;
+	}
+	
+	/**
+	 * Parses the episode title nodes in the range [from, to) of the given list. Nodes from which no season and episode
+	 * number can be extracted are skipped.
+	 */
+	protected static List<ParsedEpisode> parseEpisodeNodes(List<Element> episodeNodes, int from, int to)
+	{
+		List<ParsedEpisode> parsedEpisodes = new ArrayList<ParsedEpisode>(to - from);
+		for (int i = from; i < to; i++)
+		{
+			ParsedEpisode parsedEpisode = parseEpisodeNode(episodeNodes.get(i));
+			if (parsedEpisode != null)
+				parsedEpisodes.add(parsedEpisode);
+		}
+		return parsedEpisodes;
+	}
+	
+	/**
+	 * Parses a single episode title node (and the sibling nodes following it) of an episode listing, or returns null if
+	 * no season and episode number could be extracted from it.
+	 */
+	protected static ParsedEpisode parseEpisodeNode(Element seasonTitleNode)
+	{
+		String seasonEpisodeNrString = seasonTitleNode.text();
+		Matcher matcher = episodeNumberPattern.matcher(seasonEpisodeNrString);
+		
+		// can't do anything if we don't know the season and episode nr
+		if (!matcher.find())
+			return null;
+		
+		ParsedEpisode parsedEpisode = new ParsedEpisode();
+		parsedEpisode.seasonNr = Integer.parseInt(matcher.group(1)); // shouldn't throw, regex matches on numeric chars only
+		parsedEpisode.episodeNr = Integer.parseInt(matcher.group(2));
+		
+		Element titleNode = SelectorPlan.EPISODE_TITLE_LINK.first(seasonTitleNode);
+		Element airdateNode = seasonTitleNode.nextElementSibling();
+		Element plotPrecedingNode = (airdateNode == null ? null : airdateNode.nextElementSibling());
+		Node plotNode = (plotPrecedingNode == null ? null : plotPrecedingNode.nextSibling());
+		//Element airdateNode = Xsoup.compile("./following-sibling::b[1]").evaluate(seasonTitleNode).getElements().first();//seasonTitleNode.select("following-sibling::b[1]").first();
+		//Element plotNode = Xsoup.compile("./following-sibling::br[1]/following-sibling").evaluate(seasonTitleNode).getElements().first();//seasonTitleNode.select("following-sibling::br[1]/following-sibling").first();
+		
+		if (titleNode != null) {
+			parsedEpisode.title = StringUtils.trimToNull(titleNode.text());
+		}
+		
+		if (plotNode instanceof TextNode) {
+			parsedEpisode.plot = StringUtils.trimToNull(((TextNode) plotNode).text());
+		}
+		
+		if (airdateNode != null) {
+			String dateText = StringUtils.trimToNull(airdateNode.text());
+			parsedEpisode.airDate = parseEpisodeAirdate(dateText);
 		}
 		
+		return parsedEpisode;
 	}
 	
 	/**
@@ -430,9 +674,17 @@ public class ImdbParser {
 	 */
 	protected static void parseMovieInfo(Document document, Movie movie)
 	{
-		parseGenericTitleInfo(document, movie);
+		parseMovieInfo(TitlePageNodes.scan(document), movie);
+	}
+	
+	/**
+	 * Parses information that is specific to movies from the given nodes of a title page and writes it to the provided {@link Movie}.
+	 */
+	protected static void parseMovieInfo(TitlePageNodes nodes, Movie movie)
+	{
+		parseGenericTitleInfo(nodes, movie);
 		
-		Element yearNode = document.select("td#overview-top > h1.header > span > a").first();
+		Element yearNode = nodes.movieYear;
 		if (yearNode != null)
 		{
 			String yearText = StringUtils.trimToEmpty(yearNode.text());
@@ -461,7 +713,19 @@ public class ImdbParser {
 	 */
 	protected static void parseGenericTitleInfo(Document document, Title imdbTitle)
 	{
-		Element titleNode = document.select("td#overview-top > h1.header > span:first-of-type").first();
+		parseGenericTitleInfo(TitlePageNodes.scan(document), imdbTitle);
+	}
+	
+	/**
+	 * Helper method; parses information that is generic to all IMDb titles from the given nodes of a title page and writes it to the provided {@link Title}.
+	 * This method is intended to be called from within more specialized parsing methods.
+	 * 
+	 * @param nodes The title page nodes to parse the information from
+	 * @param imdbTitle The {@link Title} to write the parsed information to
+	 */
+	protected static void parseGenericTitleInfo(TitlePageNodes nodes, Title imdbTitle)
+	{
+		Element titleNode = nodes.titleName;
 		if (titleNode != null)
 		{
 			String title = StringUtils.strip(titleNode.text().trim(), "\"");
@@ -474,7 +738,7 @@ public class ImdbParser {
 		
 		// ------------------------------------------------------------------------------------
 		
-		Element ratingNode = document.select("td#overview-top > div[class*=star-box] > div[class*=star-box-details] > strong:first-of-type > span:first-of-type").first();
+		Element ratingNode = nodes.rating;
 		if (ratingNode != null)
 		{
 			String ratingText = StringUtils.trimToEmpty(ratingNode.text());
@@ -489,46 +753,49 @@ public class ImdbParser {
 		
 		// ------------------------------------------------------------------------------------
 		
-		List<String> genres = new LinkedList<String>();
-		Elements genreNodes = document.select("div[class*=see-more]:has(h4:contains(Genres:)) > a");
-		for (Element genreNode : genreNodes)
+		if (nodes.genres != null)
 		{
-			genres.add(genreNode.text().trim());
+			List<String> genres = new LinkedList<String>();
+			for (Element genreNode : nodes.genres)
+			{
+				genres.add(genreNode.text().trim());
+			}
+			
+			imdbTitle.setGenres(genres);
 		}
 		
-		imdbTitle.setGenres(genres);
-		
 		// ------------------------------------------------------------------------------------
 		
-		List<Name> stars = new LinkedList<Name>();
-		Elements starNodes = document.select("td#overview-top > div[class*=txt-block]:has(h4:contains(Stars:)) > a");
-		
-		for (Element starNode : starNodes)
+		if (nodes.stars != null)
 		{
-			String id = null;
-			if (starNode.hasAttr("href"))
+			List<Name> stars = new LinkedList<Name>();
+			for (Element starNode : nodes.stars)
 			{
-				id = starNode.attr("href");
-				id = StringUtils.removeStart(id, "/name/");
-				id = StringUtils.substringBefore(id, "/");
-				id = StringUtils.trimToNull(id);
+				String id = null;
+				if (starNode.hasAttr("href"))
+				{
+					id = starNode.attr("href");
+					id = StringUtils.removeStart(id, "/name/");
+					id = StringUtils.substringBefore(id, "/");
+					id = StringUtils.trimToNull(id);
+				}
+				
+				Element nameSpan = SelectorPlan.STAR_NAME.first(starNode);
+				String name = nameSpan.text().trim(); 
+				
+				if (!StringUtils.isEmpty(name) && !StringUtils.isEmpty(id))
+				{
+					Name star = new StandardName(id, name, imdbTitle.getImdbUrls());
+					stars.add(star);
+				}
 			}
 			
-			Element nameSpan = starNode.select("span:first-of-type").first();
-			String name = nameSpan.text().trim(); 
-			
-			if (!StringUtils.isEmpty(name) && !StringUtils.isEmpty(id))
-			{
-				Name star = new StandardName(id, name);
-				stars.add(star);
-			}
+			imdbTitle.setStars(stars);
 		}
 		
-		imdbTitle.setStars(stars);
-		
 		// ------------------------------------------------------------------------------------
 		
-		Element taglineNode = document.select("div[class*=txt-block]:has(h4:contains(Taglines))").first();
+		Element taglineNode = nodes.tagline;
 		if (taglineNode != null)
 		{
 			List<String> nonEmptyTexts = HttpUtils.getNonEmptyTextNodeStrings(taglineNode);
@@ -538,7 +805,7 @@ public class ImdbParser {
 		
 		// ------------------------------------------------------------------------------------
 		
-		Element plotNode = document.select("div#maindetails_center_bottom > div[class*=article] > h2:matches(Storyline) + div > p").first();
+		Element plotNode = nodes.plot;
 		if (plotNode != null)
 		{
 			imdbTitle.setPlot(plotNode.text().trim());
@@ -582,8 +849,9 @@ public class ImdbParser {
 		
 		// no go with the canonical href element, try by checking for <meta name="title" content="IMDb Search">
 		// or, failing that, the page title (<title>IMDb Search</title>)
-		String title = getTitle(document);
-		String metaTitleContent = getMetaTitleContent(document);
+		Element[] titleNodes = CompiledSelector.first(document, SelectorPlan.META_TITLE, SelectorPlan.TITLE);
+		String metaTitleContent = (titleNodes[0] == null ? null : titleNodes[0].attr("content"));
+		String title = (titleNodes[1] == null ? null : titleNodes[1].text());
 		
 		if (metaTitleContent != null)
 		{
@@ -605,7 +873,7 @@ public class ImdbParser {
 	 */
 	protected static String getCanonicalHref(Document document)
 	{
-		Element linkHrefAttributeNode = document.select("head > link[rel=canonical][href]").first();
+		Element linkHrefAttributeNode = SelectorPlan.CANONICAL_LINK.first(document);
 		if (linkHrefAttributeNode != null)
 		{
 			return linkHrefAttributeNode.attr("href");
@@ -619,7 +887,7 @@ public class ImdbParser {
 	 */
 	protected static String getMetaTitleContent(Document document)
 	{
-		Element metaTitleContentAttributeNode = document.select("head > meta[name='title'][content]").first();
+		Element metaTitleContentAttributeNode = SelectorPlan.META_TITLE.first(document);
 		if (metaTitleContentAttributeNode != null)
 		{
 			return metaTitleContentAttributeNode.attr("content");
@@ -633,7 +901,7 @@ public class ImdbParser {
 	 */
 	protected static String getTitle(Document document)
 	{
-		Element titleNode = document.select("head > title").first();
+		Element titleNode = SelectorPlan.TITLE.first(document);
 		if (titleNode != null)
 		{
 			return titleNode.text();
@@ -642,4 +910,154 @@ public class ImdbParser {
 		return null;
 	}
 	
+	/**
+	 * All selectors used by the parser, compiled once. Compiled selectors hold no state, so they are shared by all threads.
+	 */
+	protected static final class SelectorPlan
+	{
+		// search results
+		static final CompiledSelector SEARCH_RESULTS_TABLE = CompiledSelector.compile("div#main div.findSection > table:first-of-type");
+		static final CompiledSelector SEARCH_RESULT_CELLS = CompiledSelector.compile("tr > td:nth-child(2)"); // table cells containing link + year, one for each row
+		static final CompiledSelector SEARCH_RESULT_LINK = CompiledSelector.compile("a:first-of-type[href]");
+		static final CompiledSelector SEARCH_RESULT_EXTRA_INFO = CompiledSelector.compile("small:last-of-type");
+		
+		// page type detection
+		static final CompiledSelector CANONICAL_LINK = CompiledSelector.compile("head > link[rel=canonical][href]");
+		static final CompiledSelector META_TITLE = CompiledSelector.compile("head > meta[name='title'][content]");
+		static final CompiledSelector TITLE = CompiledSelector.compile("head > title");
+		
+		// title pages
+		static final CompiledSelector INFOBAR = CompiledSelector.compile("td#overview-top > div.infobar");
+		static final CompiledSelector THUMBNAIL = CompiledSelector.compile("td#img_primary a:first-of-type img:first-of-type");
+		static final CompiledSelector TITLE_NAME = CompiledSelector.compile("td#overview-top > h1.header > span:first-of-type");
+		static final CompiledSelector RATING = CompiledSelector.compile("td#overview-top > div[class*=star-box] > div[class*=star-box-details] > strong:first-of-type > span:first-of-type");
+		static final CompiledSelector GENRES = CompiledSelector.compile("div[class*=see-more]:has(h4:contains(Genres:)) > a");
+		static final CompiledSelector STARS = CompiledSelector.compile("td#overview-top > div[class*=txt-block]:has(h4:contains(Stars:)) > a");
+		static final CompiledSelector STAR_NAME = CompiledSelector.compile("span:first-of-type");
+		static final CompiledSelector TAGLINE = CompiledSelector.compile("div[class*=txt-block]:has(h4:contains(Taglines))");
+		static final CompiledSelector PLOT = CompiledSelector.compile("div#maindetails_center_bottom > div[class*=article] > h2:matches(Storyline) + div > p");
+		static final CompiledSelector SERIES_YEAR = CompiledSelector.compile("td#overview-top > h1[class*=header] > span:nth-of-type(2)");
+		static final CompiledSelector MOVIE_YEAR = CompiledSelector.compile("td#overview-top > h1.header > span > a");
+		
+		// episode listings
+		static final CompiledSelector EPISODE_TITLES = CompiledSelector.compile("div#tn15content > h4");
+		static final CompiledSelector EPISODE_TITLE_LINK = CompiledSelector.compile("a:first-of-type");
+		
+		private SelectorPlan() { }
+	}
+	
+	/**
+	 * The nodes of a title page that information is extracted from, collected in a single traversal of the document. Each
+	 * node is the same one its selector in the {@link SelectorPlan} would select on its own.
+	 */
+	protected static class TitlePageNodes
+	{
+		final Set<TitleField> fields;
+		
+		Element canonicalLink;
+		Element infobar;
+		Element thumbnail;
+		Element titleName;
+		Element seriesYear;
+		Element movieYear;
+		Element rating;
+		Elements genres; // null if not requested
+		Elements stars;  // null if not requested
+		Element tagline;
+		Element plot;
+		
+		private TitlePageNodes(Set<TitleField> fields)
+		{
+			this.fields = TitleField.of(fields);
+		}
+		
+		/**
+		 * Collects the nodes of all fields.
+		 */
+		static TitlePageNodes scan(Document document)
+		{
+			return scan(document, TitleField.all());
+		}
+		
+		/**
+		 * Collects the nodes of the given fields (and the basic ones); selectors of other fields aren't evaluated.
+		 */
+		static TitlePageNodes scan(Document document, Set<TitleField> fields)
+		{
+			TitlePageNodes nodes = new TitlePageNodes(fields);
+			
+			List<CompiledSelector> selectors = new ArrayList<CompiledSelector>();
+			selectors.addAll(Arrays.asList(SelectorPlan.CANONICAL_LINK, SelectorPlan.INFOBAR, SelectorPlan.THUMBNAIL, SelectorPlan.TITLE_NAME,
+			                               SelectorPlan.SERIES_YEAR, SelectorPlan.MOVIE_YEAR));
+			int rating = addIfRequested(selectors, nodes.fields, TitleField.RATING, SelectorPlan.RATING);
+			int genres = addIfRequested(selectors, nodes.fields, TitleField.GENRES, SelectorPlan.GENRES);
+			int stars = addIfRequested(selectors, nodes.fields, TitleField.CAST, SelectorPlan.STARS);
+			int tagline = addIfRequested(selectors, nodes.fields, TitleField.PLOT, SelectorPlan.TAGLINE);
+			int plot = addIfRequested(selectors, nodes.fields, TitleField.PLOT, SelectorPlan.PLOT);
+			
+			Elements[] matches = CompiledSelector.selectAll(document, selectors.toArray(new CompiledSelector[selectors.size()]));
+			
+			nodes.canonicalLink = matches[0].first();
+			nodes.infobar = matches[1].first();
+			nodes.thumbnail = matches[2].first();
+			nodes.titleName = matches[3].first();
+			nodes.seriesYear = matches[4].first();
+			nodes.movieYear = matches[5].first();
+			nodes.rating = (rating < 0 ? null : matches[rating].first());
+			nodes.genres = (genres < 0 ? null : matches[genres]);
+			nodes.stars = (stars < 0 ? null : matches[stars]);
+			nodes.tagline = (tagline < 0 ? null : matches[tagline].first());
+			nodes.plot = (plot < 0 ? null : matches[plot].first());
+			return nodes;
+		}
+		
+		/**
+		 * Adds the selector if its field was requested, and returns its position; returns -1 otherwise.
+		 */
+		private static int addIfRequested(List<CompiledSelector> selectors, Set<TitleField> fields, TitleField field, CompiledSelector selector)
+		{
+			if (!fields.contains(field))
+				return -1;
+			
+			selectors.add(selector);
+			return selectors.size() - 1;
+		}
+	}
+	
+	/**
+	 * Data extracted from a single entry of an episode listing, before it is turned into an {@link Episode}.
+	 */
+	protected static class ParsedEpisode
+	{
+		int seasonNr;
+		int episodeNr;
+		String title;
+		String plot;
+		AirDate airDate;
+	}
+	
+	/**
+	 * Collects the episodes of a single season while an episode listing is being parsed.
+	 */
+	private static class SeasonBuilder
+	{
+		final StandardSeason season;
+		final Set<Integer> episodeNumbers = new HashSet<Integer>();
+		List<Episode> episodes;
+		int size;
+		
+		SeasonBuilder(int seasonNr)
+		{
+			season = new StandardSeason(seasonNr);
+		}
+		
+		/**
+		 * Registers an episode number, returning false if it was already taken.
+		 */
+		boolean addEpisodeNumber(int episodeNr)
+		{
+			return episodeNumbers.add(episodeNr);
+		}
+	}
+	
 }
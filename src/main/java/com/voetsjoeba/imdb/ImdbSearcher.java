@@ -1,11 +1,26 @@
 package com.voetsjoeba.imdb;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
-import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.regex.Pattern;
 
 import javax.swing.event.EventListenerList;
 
@@ -18,9 +33,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.voetsjoeba.imdb.ImdbParser.PageType;
+import com.voetsjoeba.imdb.cache.SearchCache;
+import com.voetsjoeba.imdb.cache.ThumbnailCache;
+import com.voetsjoeba.imdb.domain.AbstractTitle;
+import com.voetsjoeba.imdb.domain.StandardSeries;
 import com.voetsjoeba.imdb.domain.StringSearchable;
+import com.voetsjoeba.imdb.domain.TitleField;
 import com.voetsjoeba.imdb.domain.api.BaseTitle;
 import com.voetsjoeba.imdb.domain.api.Searchable;
+import com.voetsjoeba.imdb.domain.api.Season;
+import com.voetsjoeba.imdb.domain.api.Series;
 import com.voetsjoeba.imdb.domain.api.Title;
 import com.voetsjoeba.imdb.event.SearchListener;
 import com.voetsjoeba.imdb.event.SearchPageFetchedEvent;
@@ -28,8 +50,16 @@ import com.voetsjoeba.imdb.event.SearchPageParsedEvent;
 import com.voetsjoeba.imdb.event.SearchPageTypeDeterminedEvent;
 import com.voetsjoeba.imdb.exception.ImdbException;
 import com.voetsjoeba.imdb.exception.UnknownPageTypeException;
-import com.voetsjoeba.imdb.util.HttpUtils;
+import com.voetsjoeba.imdb.http.ConditionalPage;
+import com.voetsjoeba.imdb.http.HttpTransport;
+import com.voetsjoeba.imdb.http.PageValidators;
+import com.voetsjoeba.imdb.http.Transport;
+import com.voetsjoeba.imdb.store.TitleStore;
+import com.voetsjoeba.imdb.util.DaemonThreadFactory;
+import com.voetsjoeba.imdb.util.ImdbUrls;
+import com.voetsjoeba.imdb.util.LazyValue;
 import com.voetsjoeba.imdb.util.ListenerUtils;
+import com.voetsjoeba.imdb.util.SingleFlight;
 
 /**
  * Submits search queries and fetches the results from IMDb.
@@ -40,13 +70,192 @@ import com.voetsjoeba.imdb.util.ListenerUtils;
 public class ImdbSearcher {
 	
 	private static final Logger log = LoggerFactory.getLogger(ImdbSearcher.class);
+	
+	protected static final Pattern titleIdPattern = Pattern.compile("tt\\d+");
+	
+	private static ExecutorService defaultExecutor;
+	
 	private EventListenerList listeners;
+	private final Transport transport;
+	private final Executor executor;
+	private final ImdbUrls imdbUrls;
+	private volatile SearchCache cache;
+	private volatile TitleStore titleStore;
+	private volatile boolean seasonPrefetch;
+	private volatile ThumbnailCache thumbnailCache;
+	private volatile ExecutorService episodeParsingExecutor;
+	private final SingleFlight<String, ImdbSearchResults> searchesInFlight = new SingleFlight<String, ImdbSearchResults>();
 	
+	/**
+	 * Creates a searcher that fetches its pages through the shared {@link HttpTransport}.
+	 */
 	public ImdbSearcher()
 	{
+		this(HttpTransport.getDefault());
+	}
+	
+	/**
+	 * Creates a searcher that fetches its pages through the given transport. Asynchronous searches are run on a
+	 * shared pool of daemon threads.
+	 */
+	public ImdbSearcher(Transport transport)
+	{
+		this(transport, getDefaultExecutor());
+	}
+	
+	/**
+	 * Creates a searcher that fetches its pages through the given transport and runs asynchronous searches on the
+	 * given executor.
+	 */
+	public ImdbSearcher(Transport transport, Executor executor)
+	{
+		this(transport, executor, ImdbUrls.DEFAULT);
+	}
+	
+	/**
+	 * Creates a searcher that fetches its pages from the site at the given base URL rather than from IMDb itself, like
+	 * a mirror, a caching proxy or a local fixture server. Asynchronous searches are run on a shared pool of daemon
+	 * threads.
+	 */
+	public ImdbSearcher(Transport transport, ImdbUrls imdbUrls)
+	{
+		this(transport, getDefaultExecutor(), imdbUrls);
+	}
+	
+	/**
+	 * Creates a searcher that fetches its pages through the given transport from the site at the given base URL, and
+	 * runs asynchronous searches on the given executor.
+	 */
+	public ImdbSearcher(Transport transport, Executor executor, ImdbUrls imdbUrls)
+	{
+		if (transport == null)
+			throw new IllegalArgumentException("Transport must not be null");
+		if (executor == null)
+			throw new IllegalArgumentException("Executor must not be null");
+		if (imdbUrls == null)
+			throw new IllegalArgumentException("IMDb URLs must not be null");
+		
+		this.transport = transport;
+		this.executor = executor;
+		this.imdbUrls = imdbUrls;
 		listeners = new EventListenerList();
 	}
 	
+	/**
+	 * Returns the shared executor used for asynchronous searches when none is explicitly provided.
+	 */
+	protected static synchronized ExecutorService getDefaultExecutor()
+	{
+		if (defaultExecutor == null)
+		{
+			int poolSize = Runtime.getRuntime().availableProcessors() * 2;
+			defaultExecutor = Executors.newFixedThreadPool(poolSize, new DaemonThreadFactory("imdb-search"));
+		}
+		return defaultExecutor;
+	}
+	
+	/**
+	 * Returns the transport this searcher fetches its pages with.
+	 */
+	public Transport getTransport()
+	{
+		return transport;
+	}
+	
+	/**
+	 * Sets the cache to consult before looking up queries on IMDb. Cache hits do not fire any {@link SearchListener} events.
+	 * 
+	 * @param cache The cache to use, or null to disable caching (the default).
+	 */
+	public void setCache(SearchCache cache)
+	{
+		this.cache = cache;
+	}
+	
+	/**
+	 * Returns the cache consulted by this searcher, or null if caching is disabled.
+	 */
+	public SearchCache getCache()
+	{
+		return cache;
+	}
+	
+	/**
+	 * Sets the persistent store to read titles from before fetching them by id, and to write fetched exact matches to.
+	 * Titles read from the store do not fire any {@link SearchListener} events.
+	 * 
+	 * @param titleStore The store to use, or null to disable it (the default).
+	 */
+	public void setTitleStore(TitleStore titleStore)
+	{
+		this.titleStore = titleStore;
+	}
+	
+	/**
+	 * Returns the persistent title store used by this searcher, or null if there is none.
+	 */
+	public TitleStore getTitleStore()
+	{
+		return titleStore;
+	}
+	
+	/**
+	 * Sets whether the seasons of series found by this searcher should start loading in the background straight away, on
+	 * this searcher's executor. By default, seasons are only loaded once they are first asked for.
+	 */
+	public void setSeasonPrefetch(boolean seasonPrefetch)
+	{
+		this.seasonPrefetch = seasonPrefetch;
+	}
+	
+	/**
+	 * Returns true if the seasons of series found by this searcher start loading in the background straight away.
+	 */
+	public boolean isSeasonPrefetch()
+	{
+		return seasonPrefetch;
+	}
+	
+	/**
+	 * Sets the cache that thumbnail images are loaded through. Thumbnails are fetched on first access either way; a cache
+	 * keeps them from being fetched again for other titles sharing the same image, or titles read from the title store.
+	 * 
+	 * @param thumbnailCache The cache to use, or null to fetch thumbnails directly (the default).
+	 */
+	public void setThumbnailCache(ThumbnailCache thumbnailCache)
+	{
+		this.thumbnailCache = thumbnailCache;
+	}
+	
+	/**
+	 * Returns the cache that thumbnail images are loaded through, or null if there is none.
+	 */
+	public ThumbnailCache getThumbnailCache()
+	{
+		return thumbnailCache;
+	}
+	
+	/**
+	 * Sets the executor that large episode listings of series found by this searcher are parsed on in parallel. This 
+	 * should be a dedicated executor, not this searcher's own: its threads may themselves be waiting on a parse to 
+	 * complete.
+	 * 
+	 * @param episodeParsingExecutor The executor to use, or null to parse episode listings on the thread that loads them
+	 *            (the default).
+	 */
+	public void setEpisodeParsingExecutor(ExecutorService episodeParsingExecutor)
+	{
+		this.episodeParsingExecutor = episodeParsingExecutor;
+	}
+	
+	/**
+	 * Returns the executor that large episode listings are parsed on, or null if they are parsed on the loading thread.
+	 */
+	public ExecutorService getEpisodeParsingExecutor()
+	{
+		return episodeParsingExecutor;
+	}
+	
 	public void addSearchListener(SearchListener l)
 	{
 		listeners.add(SearchListener.class, l);
@@ -64,6 +273,23 @@ public class ImdbSearcher {
 	 * @see ImdbSearchResults
 	 */
 	public ImdbSearchResults search(Searchable searchable, boolean fetchThumbnail) throws IOException, HttpException
+	{
+		return search(searchable, TitleField.all(fetchThumbnail));
+	}
+	
+	/**
+	 * Searches IMDb, parsing only the requested fields of an exact match. Leaving out fields skips extracting them and, 
+	 * for {@link TitleField#EPISODES} and {@link TitleField#THUMBNAIL}, fetching the episode listing and thumbnail image.
+	 * 
+	 * @param searchable The object to look up.
+	 * @param fields The fields to parse for an exact match. {@link TitleField#BASIC} fields are always parsed.
+	 * @return An {@link ImdbSearchResults} object holding the fetched result data, or null if no query could be extracted from the provided Searchable.
+	 * 
+	 * @throws IOException if an I/O exception occured
+	 * @throws HttpException if the required IMDb page could not be fetched
+	 * @see Title#getFields()
+	 */
+	public ImdbSearchResults search(Searchable searchable, Set<TitleField> fields) throws IOException, HttpException
 	{
 		if (searchable == null)
 			return null;
@@ -72,32 +298,96 @@ public class ImdbSearcher {
 		if (query == null)
 			return null;
 		
+		Set<TitleField> requestedFields = TitleField.of(fields);
+		
+		ImdbSearchResults results = getCachedResults(query, requestedFields);
+		if (results != null)
+			return results;
+		
+		return fetchResultsCoalesced(query, requestedFields);
+	}
+	
+	/**
+	 * Looks up a search query on IMDb and caches the results. Concurrent lookups of the same query and fields share a 
+	 * single fetch; only the thread that performs it fires {@link SearchListener} events.
+	 */
+	protected ImdbSearchResults fetchResultsCoalesced(final String query, final Set<TitleField> fields) throws IOException, HttpException
+	{
+		// a lookup can't be served by one that parses fewer fields
+		String key = fields + ":" + query;
+		
 		try
 		{
-			String imdbPageHtml = HttpUtils.getPage(getSearchURL(query));
-			fireSearchPageFetched(new SearchPageFetchedEvent(this, imdbPageHtml));
+			return searchesInFlight.execute(key, new Callable<ImdbSearchResults>() {
+				public ImdbSearchResults call() throws Exception
+				{
+					ImdbSearchResults results = getStoredResults(query, fields);
+					if (results == null)
+					{
+						results = fetchResults(query, fields);
+						storeResults(results);
+					}
+					prepareSeasons(results, fields);
+					prepareThumbnail(results, fields);
+					cacheResults(query, results);
+					return results;
+				}
+			});
+		}
+		catch (ExecutionException eex)
+		{
+			Throwable cause = eex.getCause();
+			if (cause instanceof IOException)
+				throw (IOException) cause;
+			if (cause instanceof HttpException)
+				throw (HttpException) cause;
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw new ImdbException(cause);
+		}
+		catch (InterruptedException iex)
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for a concurrent lookup of \"" + query + "\"");
+		}
+	}
+	
+	/**
+	 * Performs the actual lookup of a search query on IMDb, bypassing the cache.
+	 * 
+	 * @return the search results, or null if the type of the returned page could not be determined.
+	 */
+	protected ImdbSearchResults fetchResults(String query, Set<TitleField> fields) throws IOException, HttpException
+	{
+		try
+		{
+			// ids can be looked up on their title page directly, no need to go through /find and its redirect
+			if (isTitleId(query))
+				return searchTitleId(query, fields);
 			
-			Document imdbPage = HttpUtils.parsePage(imdbPageHtml);
-			fireSearchPageParsed(new SearchPageParsedEvent(this, imdbPage));
+			Document imdbPage = fetchPage(getSearchURL(query));
 			
 			List<BaseTitle> resultList = new LinkedList<BaseTitle>();
 			PageType imdbPageType = ImdbParser.determinePageType(imdbPage);
-			fireSearchPageTypeDetermined(new SearchPageTypeDeterminedEvent(this, imdbPageType));
+			if (hasSearchListeners())
+				fireSearchPageTypeDetermined(new SearchPageTypeDeterminedEvent(this, imdbPageType));
 			
 			if (imdbPageType == null)
 			{
-				log.error("Could not determine page type of search results for '{}'", searchable.getSearchTerm());
+				log.error("Could not determine page type of search results for '{}'", query);
 				return null;
 			}
 			
 			switch (imdbPageType)
 			{
 				case SEARCH_RESULTS:
-					resultList.addAll(ImdbParser.parseSearchResults(imdbPage));
+					resultList.addAll(ImdbParser.parseSearchResults(imdbPage, imdbUrls));
 					break;
 				
 				case TITLE_PAGE:
-					Title imdbTitle = ImdbParser.parseTitlePage(imdbPage, fetchThumbnail);
+					Title imdbTitle = ImdbParser.parseTitlePage(imdbPage, fields, transport, imdbUrls, episodeParsingExecutor);
 					if (imdbTitle != null)
 						resultList.add(imdbTitle);
 					break;
@@ -119,6 +409,329 @@ public class ImdbSearcher {
 		}
 	}
 	
+	/**
+	 * Returns cached results for the given query, or null if there is no cache, no cached entry, or the cached entry lacks
+	 * fields that were asked for.
+	 */
+	protected ImdbSearchResults getCachedResults(String query, Set<TitleField> fields)
+	{
+		SearchCache cache = this.cache;
+		if (cache == null)
+			return null;
+		
+		ImdbSearchResults results = cache.get(query);
+		if (results == null)
+			return null;
+		
+		// entry may have been cached by a search that asked for fewer fields
+		if (results.isExactMatch() && !hasFields(results.getExactMatch(), fields))
+			return null;
+		
+		return results;
+	}
+	
+	/**
+	 * Returns true if the given title holds all of the given fields, and none of them failed to be fetched.
+	 */
+	protected static boolean hasFields(Title title, Set<TitleField> fields)
+	{
+		// thumbnails aren't kept by title stores, but can always be loaded from their URL (see prepareThumbnail)
+		if (!title.getFields().containsAll(fields))
+			return false;
+		
+		for (TitleField failedField : title.getFetchFailures().keySet())
+		{
+			if (fields.contains(failedField))
+				return false;
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Makes sure the seasons of a series in the given results can be loaded if they were asked for, and starts loading 
+	 * them in the background if season prefetching is enabled.
+	 */
+	protected void prepareSeasons(ImdbSearchResults results, Set<TitleField> fields)
+	{
+		if (results == null || !results.isExactMatch() || !fields.contains(TitleField.EPISODES))
+			return;
+		if (!(results.getExactMatch() instanceof StandardSeries))
+			return;
+		
+		StandardSeries series = (StandardSeries) results.getExactMatch();
+		
+		// stored series don't have their seasons if they hadn't been loaded by the time they were stored
+		if (series.hasLoadedSeasons() && series.getSeasons() == null)
+			series.setSeasonLoader(ImdbParser.createSeasonLoader(series, transport, episodeParsingExecutor));
+		
+		if (seasonPrefetch && !series.hasLoadedSeasons())
+			series.prefetchSeasons(executor);
+	}
+	
+	/**
+	 * Makes sure the thumbnail of an exact match in the given results can be loaded if it was asked for, through the 
+	 * thumbnail cache if there is one.
+	 */
+	protected void prepareThumbnail(ImdbSearchResults results, Set<TitleField> fields)
+	{
+		if (results == null || !results.isExactMatch() || !fields.contains(TitleField.THUMBNAIL))
+			return;
+		if (!(results.getExactMatch() instanceof AbstractTitle))
+			return;
+		
+		AbstractTitle title = (AbstractTitle) results.getExactMatch();
+		String url = title.getThumbnailUrl();
+		if (url == null || (title.hasThumbnail() && title.hasLoadedThumbnail()))
+			return;
+		
+		ThumbnailCache thumbnailCache = this.thumbnailCache;
+		if (thumbnailCache != null)
+			title.setThumbnailLoader(createThumbnailLoader(title, url, thumbnailCache));
+		else if (!title.hasThumbnail()) // stored titles don't have one
+			title.setThumbnailLoader(ImdbParser.createThumbnailLoader(title, url, transport));
+	}
+	
+	/**
+	 * Returns a loader for the thumbnail image of the given title at the given URL, which loads it through the given cache.
+	 * If the image could not be loaded, the loader returns null and records the failure on the title.
+	 */
+	protected LazyValue<byte[]> createThumbnailLoader(final Title title, final String url, final ThumbnailCache thumbnailCache)
+	{
+		return new LazyValue<byte[]>() {
+			@Override
+			protected byte[] compute()
+			{
+				try
+				{
+					byte[] data = thumbnailCache.load(url, transport);
+					title.setFetchFailure(TitleField.THUMBNAIL, null);
+					return data;
+				}
+				catch (IOException ioex)
+				{
+					log.error(ioex.getMessage());
+					title.setFetchFailure(TitleField.THUMBNAIL, ioex);
+				}
+				catch (HttpException hex)
+				{
+					log.error(hex.getMessage());
+					title.setFetchFailure(TitleField.THUMBNAIL, hex);
+				}
+				return null;
+			}
+		};
+	}
+	
+	/**
+	 * Stores freshly fetched results in the cache, if any. Exact matches are also stored under their title id, so that
+	 * later lookups by id are served from the cache as well.
+	 */
+	protected void cacheResults(String query, ImdbSearchResults results)
+	{
+		SearchCache cache = this.cache;
+		if (cache == null || results == null)
+			return;
+		
+		cache.put(query, results);
+		if (results.isExactMatch())
+		{
+			String id = results.getExactMatch().getId();
+			if (!id.equals(query))
+				cache.put(id, results);
+		}
+	}
+	
+	/**
+	 * Returns results holding the stored title for the given query if it is a title id, or null if there is no title store
+	 * or it doesn't have the title with all of the given fields. Failures to read from the store are logged and treated as
+	 * absent titles.
+	 */
+	protected ImdbSearchResults getStoredResults(String query, Set<TitleField> fields)
+	{
+		TitleStore titleStore = this.titleStore;
+		if (titleStore == null || !isTitleId(query))
+			return null;
+		
+		try
+		{
+			Title title = titleStore.get(query);
+			return (title == null || !hasFields(title, fields) ? null : new ImdbSearchResults(title));
+		}
+		catch (IOException ioex)
+		{
+			log.warn("Could not read title {} from the title store: {}", query, ioex.getMessage());
+			return null;
+		}
+	}
+	
+	/**
+	 * Writes an exact match to the title store, if any. Failures to write to the store are logged and otherwise ignored.
+	 */
+	protected void storeResults(ImdbSearchResults results)
+	{
+		TitleStore titleStore = this.titleStore;
+		if (titleStore == null || results == null || !results.isExactMatch())
+			return;
+		
+		Title title = results.getExactMatch();
+		try
+		{
+			titleStore.put(title);
+		}
+		catch (IOException ioex)
+		{
+			log.warn("Could not write title {} to the title store: {}", title.getId(), ioex.getMessage());
+		}
+	}
+	
+	/**
+	 * Looks up a title by its IMDb id by fetching and parsing its title page straight away.
+	 */
+	protected ImdbSearchResults searchTitleId(String id, Set<TitleField> fields) throws IOException, HttpException
+	{
+		// fetched conditionally only to obtain the page's validators, for later refreshes
+		ConditionalPage imdbPage = fetchPage(getTitleURL(id), PageValidators.NONE);
+		if (hasSearchListeners())
+			fireSearchPageTypeDetermined(new SearchPageTypeDeterminedEvent(this, PageType.TITLE_PAGE));
+		
+		List<BaseTitle> resultList = new LinkedList<BaseTitle>();
+		Title imdbTitle = ImdbParser.parseTitlePage(imdbPage.getDocument(), fields, transport, imdbUrls, episodeParsingExecutor);
+		if (imdbTitle != null)
+		{
+			imdbTitle.setPageValidators(imdbPage.getValidators());
+			resultList.add(imdbTitle);
+		}
+		
+		return new ImdbSearchResults(resultList);
+	}
+	
+	/**
+	 * Convenience method; delegates to {@link #refresh(Title, Set)} with the fields the given title holds.
+	 */
+	public ImdbSearchResults refresh(Title title) throws IOException, HttpException
+	{
+		return refresh(title, title.getFields());
+	}
+	
+	/**
+	 * Brings a previously looked up title (e.g. one read from the title store) up to date, and stores and caches the 
+	 * result. Its title page and, for series, its episode listing are fetched with conditional requests: if IMDb reports
+	 * that a page hasn't changed, the page isn't transferred or parsed again, and what was parsed from it before is reused.
+	 * If the title page hasn't changed and the title holds all of the requested fields, a copy of the title is returned
+	 * that shares what was parsed into it. The given title itself is left as it is, since it may be in use elsewhere,
+	 * e.g. handed out by the cache. Unlike {@link #search(Searchable, Set)}, the episode listing is revalidated straight
+	 * away rather than on first access.
+	 * 
+	 * @param title The title to refresh.
+	 * @param fields The fields to parse. {@link TitleField#BASIC} fields are always parsed.
+	 * @return The refreshed title as an exact match, or results without matches if the title page could not be parsed.
+	 */
+	public ImdbSearchResults refresh(Title title, Set<TitleField> fields) throws IOException, HttpException
+	{
+		if (title == null || fields == null)
+			throw new IllegalArgumentException("Title and fields must not be null");
+		
+		Set<TitleField> requestedFields = TitleField.of(fields);
+		
+		// a title lacking some of the fields must be parsed again, whether its page changed or not
+		PageValidators validators = (hasFields(title, requestedFields) ? title.getPageValidators() : PageValidators.NONE);
+		ConditionalPage imdbPage = fetchPage(getTitleURL(title.getId()), validators);
+		
+		Title refreshedTitle;
+		if (imdbPage.isModified())
+		{
+			if (hasSearchListeners())
+				fireSearchPageTypeDetermined(new SearchPageTypeDeterminedEvent(this, PageType.TITLE_PAGE));
+			
+			refreshedTitle = ImdbParser.parseTitlePage(imdbPage.getDocument(), requestedFields, transport, imdbUrls, episodeParsingExecutor);
+			if (refreshedTitle == null)
+				return new ImdbSearchResults();
+		}
+		else
+		{
+			refreshedTitle = title.copy(); // updated below
+		}
+		refreshedTitle.setPageValidators(imdbPage.getValidators());
+		
+		if (requestedFields.contains(TitleField.EPISODES) && refreshedTitle instanceof Series)
+		{
+			// seasons that haven't been loaded don't need to be revalidated, but can't be reused either
+			List<Season> previousSeasons = null;
+			PageValidators previousValidators = null;
+			if (title instanceof Series && ((Series) title).hasLoadedSeasons())
+			{
+				previousSeasons = ((Series) title).getSeasons();
+				previousValidators = ((Series) title).getEpisodeListingValidators();
+			}
+			
+			Series series = (Series) refreshedTitle;
+			List<Season> seasons = ImdbParser.parseEpisodeListing(series, transport, episodeParsingExecutor, previousSeasons, previousValidators);
+			series.setSeasons(seasons == null ? previousSeasons : seasons); // failure is recorded on the series
+		}
+		
+		ImdbSearchResults results = new ImdbSearchResults(refreshedTitle);
+		storeResults(results);
+		prepareThumbnail(results, requestedFields);
+		cacheResults(title.getId(), results);
+		return results;
+	}
+	
+	/**
+	 * Fetches and parses the page at the given URL, notifying listeners along the way. The page is parsed straight from
+	 * the transport; its HTML is only produced if a listener asks for it.
+	 */
+	protected Document fetchPage(String url) throws IOException, HttpException
+	{
+		final Document imdbPage = transport.getDocument(url);
+		
+		if (hasSearchListeners())
+		{
+			fireSearchPageFetched(new SearchPageFetchedEvent(this, new LazyValue<String>() {
+				@Override
+				protected String compute()
+				{
+					return imdbPage.outerHtml();
+				}
+			}));
+			fireSearchPageParsed(new SearchPageParsedEvent(this, imdbPage));
+		}
+		
+		return imdbPage;
+	}
+	
+	/**
+	 * Fetches the page at the given URL with a conditional request, and notifies listeners along the way if it has changed.
+	 * 
+	 * @see #fetchPage(String)
+	 */
+	protected ConditionalPage fetchPage(String url, PageValidators validators) throws IOException, HttpException
+	{
+		final ConditionalPage imdbPage = transport.getDocument(url, validators);
+		
+		if (imdbPage.isModified() && hasSearchListeners())
+		{
+			fireSearchPageFetched(new SearchPageFetchedEvent(this, new LazyValue<String>() {
+				@Override
+				protected String compute()
+				{
+					return imdbPage.getDocument().outerHtml();
+				}
+			}));
+			fireSearchPageParsed(new SearchPageParsedEvent(this, imdbPage.getDocument()));
+		}
+		
+		return imdbPage;
+	}
+	
+	/**
+	 * Returns true if the given search query is an IMDb title id (e.g. "tt0904208") rather than free text.
+	 */
+	protected static boolean isTitleId(String query)
+	{
+		return titleIdPattern.matcher(query).matches();
+	}
+	
 	/**
 	 * Convenience method; delegates to {@link #search(Searchable, boolean)} with the value <tt>TRUE</tt> for the fetchThumbnail
 	 * argument.
@@ -141,6 +754,232 @@ public class ImdbSearcher {
 		return search(new StringSearchable(query));
 	}
 	
+	/**
+	 * Asynchronous counterpart of {@link #search(Searchable, boolean)}. The search is run on this searcher's executor;
+	 * {@link SearchListener}s are notified from that thread as the search progresses.
+	 * 
+	 * @param searchable The object to look up.
+	 * @param fetchThumbnail Whether the thumbnail image for this title should also be fetched (if applicable).
+	 * @param callback Optional callback to notify once the search has completed or failed. May be null.
+	 * @return A {@link Future} holding the search results. If the search fails, {@link Future#get()} throws an 
+	 *         {@link ExecutionException} wrapping the original exception.
+	 */
+	public Future<ImdbSearchResults> searchAsync(Searchable searchable, boolean fetchThumbnail, SearchCallback callback)
+	{
+		return searchAsync(searchable, TitleField.all(fetchThumbnail), callback);
+	}
+	
+	/**
+	 * Asynchronous counterpart of {@link #search(Searchable, Set)}. The search is run on this searcher's executor;
+	 * {@link SearchListener}s are notified from that thread as the search progresses.
+	 * 
+	 * <p>This only moves the search off the calling thread; the search itself still blocks. Each search in flight
+	 * occupies one of the executor's threads for its whole duration, including while it waits for pages to be fetched, so
+	 * the amount of concurrent lookups is bounded by the size of the executor, and searches submitted beyond that wait in
+	 * its queue. Cancelling the returned future interrupts the search if it has already started.</p>
+	 * 
+	 * @param searchable The object to look up.
+	 * @param fields The fields to parse for an exact match.
+	 * @param callback Optional callback to notify once the search has completed or failed. May be null.
+	 * @return A {@link Future} holding the search results. If the search fails, {@link Future#get()} throws an 
+	 *         {@link ExecutionException} wrapping the original exception.
+	 */
+	public Future<ImdbSearchResults> searchAsync(final Searchable searchable, Set<TitleField> fields, final SearchCallback callback)
+	{
+		final Set<TitleField> requestedFields = TitleField.of(fields);
+		FutureTask<ImdbSearchResults> task = new FutureTask<ImdbSearchResults>(new Callable<ImdbSearchResults>() {
+			public ImdbSearchResults call() throws Exception
+			{
+				return search(searchable, requestedFields);
+			}
+		})
+		{
+			@Override
+			protected void done()
+			{
+				if (callback == null || isCancelled())
+					return;
+				
+				try
+				{
+					callback.searchCompleted(searchable, get());
+				}
+				catch (ExecutionException eex)
+				{
+					callback.searchFailed(searchable, eex.getCause());
+				}
+				catch (InterruptedException iex)
+				{
+					Thread.currentThread().interrupt(); // can't happen, we're done
+				}
+				catch (RuntimeException rex)
+				{
+					log.error("Search callback threw a RuntimeException; this should not happen.", rex);
+				}
+			}
+		};
+		
+		executor.execute(task);
+		return task;
+	}
+	
+	/**
+	 * Convenience method; delegates to {@link #searchAsync(Searchable, boolean, SearchCallback)} without a callback.
+	 */
+	public Future<ImdbSearchResults> searchAsync(Searchable searchable, boolean fetchThumbnail)
+	{
+		return searchAsync(searchable, fetchThumbnail, null);
+	}
+	
+	/**
+	 * Convenience method; delegates to {@link #searchAsync(Searchable, boolean)} with the value <tt>TRUE</tt> for the
+	 * fetchThumbnail argument.
+	 */
+	public Future<ImdbSearchResults> searchAsync(Searchable searchable)
+	{
+		return searchAsync(searchable, true);
+	}
+	
+	/**
+	 * Convenience method; delegates to {@link #searchAsync(Searchable)} with a {@link StringSearchable}.
+	 */
+	public Future<ImdbSearchResults> searchAsync(String query)
+	{
+		return searchAsync(new StringSearchable(query));
+	}
+	
+	/**
+	 * Looks up a batch of searchables, running at most <tt>parallelism</tt> searches at the same time on this searcher's
+	 * executor. Searchables with identical search terms are only looked up once and share the same results. A failed
+	 * lookup does not abort the batch; its exception is recorded in the corresponding {@link BatchSearchResults.Item} instead.
+	 * 
+	 * <p>This method blocks until all lookups have finished. It must not be called from a thread of this searcher's own
+	 * executor if that executor is bounded, as the batch's searches might otherwise never get a thread to run on.</p>
+	 * 
+	 * @param searchables The objects to look up.
+	 * @param parallelism The maximum amount of searches to run concurrently. Must be at least 1.
+	 * @param fetchThumbnail Whether the thumbnail images for exact matches should also be fetched.
+	 * @return The results for each searchable, in the iteration order of <tt>searchables</tt>.
+	 * 
+	 * @throws InterruptedException if the calling thread was interrupted while waiting for the batch to complete. 
+	 *         Searches that had not yet completed are cancelled.
+	 */
+	public BatchSearchResults searchBatch(Collection<? extends Searchable> searchables, int parallelism, boolean fetchThumbnail) throws InterruptedException
+	{
+		return searchBatch(searchables, parallelism, TitleField.all(fetchThumbnail));
+	}
+	
+	/**
+	 * Looks up a batch of searchables like {@link #searchBatch(Collection, int, boolean)}, parsing only the given fields
+	 * of exact matches.
+	 * 
+	 * @param searchables The objects to look up.
+	 * @param parallelism The maximum amount of searches to run concurrently. Must be at least 1.
+	 * @param fields The fields to parse for exact matches.
+	 * @return The results for each searchable, in the iteration order of <tt>searchables</tt>.
+	 * 
+	 * @throws InterruptedException if the calling thread was interrupted while waiting for the batch to complete. 
+	 *         Searches that had not yet completed are cancelled.
+	 * @see #search(Searchable, Set)
+	 */
+	public BatchSearchResults searchBatch(Collection<? extends Searchable> searchables, int parallelism, Set<TitleField> fields) throws InterruptedException
+	{
+		if (searchables == null)
+			throw new IllegalArgumentException("Searchables must not be null");
+		if (parallelism < 1)
+			throw new IllegalArgumentException("Parallelism must be at least 1");
+		
+		final Set<TitleField> requestedFields = TitleField.of(fields);
+		final Semaphore permits = new Semaphore(parallelism);
+		Map<String, Future<ImdbSearchResults>> searchesByQuery = new HashMap<String, Future<ImdbSearchResults>>();
+		
+		try
+		{
+			for (final Searchable searchable : searchables)
+			{
+				String query = (searchable == null ? null : StringUtils.trimToNull(searchable.getSearchTerm()));
+				if (query == null || searchesByQuery.containsKey(query))
+					continue;
+				
+				permits.acquire();
+				
+				FutureTask<ImdbSearchResults> task = new FutureTask<ImdbSearchResults>(new Callable<ImdbSearchResults>() {
+					public ImdbSearchResults call() throws Exception
+					{
+						return search(searchable, requestedFields);
+					}
+				})
+				{
+					@Override
+					protected void done()
+					{
+						permits.release();
+					}
+				};
+				
+				try
+				{
+					executor.execute(task);
+				}
+				catch (RejectedExecutionException reex)
+				{
+					permits.release();
+					throw reex;
+				}
+				
+				searchesByQuery.put(query, task);
+			}
+			
+			List<BatchSearchResults.Item> items = new ArrayList<BatchSearchResults.Item>(searchables.size());
+			for (Searchable searchable : searchables)
+			{
+				String query = (searchable == null ? null : StringUtils.trimToNull(searchable.getSearchTerm()));
+				Future<ImdbSearchResults> search = (query == null ? null : searchesByQuery.get(query));
+				
+				ImdbSearchResults results = null;
+				Throwable failure = null;
+				
+				if (search != null)
+				{
+					try
+					{
+						results = search.get();
+					}
+					catch (ExecutionException eex)
+					{
+						failure = eex.getCause();
+					}
+				}
+				
+				items.add(new BatchSearchResults.Item(searchable, results, failure));
+			}
+			
+			return new BatchSearchResults(items);
+		}
+		catch (InterruptedException iex)
+		{
+			for (Future<ImdbSearchResults> search : searchesByQuery.values())
+				search.cancel(true);
+			throw iex;
+		}
+	}
+	
+	/**
+	 * Convenience method; delegates to {@link #searchBatch(Collection, int, boolean)} with the value <tt>TRUE</tt> for
+	 * the fetchThumbnail argument.
+	 */
+	public BatchSearchResults searchBatch(Collection<? extends Searchable> searchables, int parallelism) throws InterruptedException
+	{
+		return searchBatch(searchables, parallelism, true);
+	}
+	
+	/**
+	 * Returns true if any {@link SearchListener}s are registered. Used to avoid constructing events nobody will receive.
+	 */
+	protected boolean hasSearchListeners() {
+		return listeners.getListenerCount(SearchListener.class) > 0;
+	}
+	
 	protected void fireSearchPageFetched(SearchPageFetchedEvent e) {
 		for(SearchListener l : listeners.getListeners(SearchListener.class)) {
 			try {
@@ -174,20 +1013,25 @@ public class ImdbSearcher {
 		}
 	}
 	
+	/**
+	 * Builds the URL of the title page for the given IMDb title id.
+	 */
+	protected String getTitleURL(String id){
+		return imdbUrls.getTitleUrl(id);
+	}
+	
 	/**
 	 * Builds the search URL that will be used to fetch results from.
 	 */
 	protected String getSearchURL(String query){
-		
-		try {
-			return "http://www.imdb.com/find?s=all&q=" + URLEncoder.encode(query, "UTF-8");
-		}
-		catch(UnsupportedEncodingException e) {
-			// won't happen, UTF-8 is supported
-			log.error("UTF-8 not supported. What is this I don't even");
-			throw new Error(e);
-		}
-		
+		return imdbUrls.getSearchUrl(query);
+	}
+	
+	/**
+	 * Returns the URL builder for the site this searcher fetches its pages from.
+	 */
+	public ImdbUrls getImdbUrls(){
+		return imdbUrls;
 	}
 	
 }
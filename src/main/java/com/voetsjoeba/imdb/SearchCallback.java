@@ -0,0 +1,23 @@
+package com.voetsjoeba.imdb;
+
+import com.voetsjoeba.imdb.domain.api.Searchable;
+
+/**
+ * Receives the outcome of an asynchronous search submitted through {@link ImdbSearcher#searchAsync(Searchable, boolean, SearchCallback)}.
+ * Callbacks are invoked on the thread that performed the search, so implementations should return quickly.
+ * 
+ * @author Jeroen De Ridder
+ */
+public interface SearchCallback
+{
+	/**
+	 * Called when the search for the given searchable completed successfully. The results may be null if no query could
+	 * be extracted from the searchable (see {@link ImdbSearcher#search(Searchable, boolean)}).
+	 */
+	public void searchCompleted(Searchable searchable, ImdbSearchResults results);
+	
+	/**
+	 * Called when the search for the given searchable failed with an exception.
+	 */
+	public void searchFailed(Searchable searchable, Throwable cause);
+}
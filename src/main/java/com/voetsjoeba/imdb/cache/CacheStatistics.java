@@ -0,0 +1,86 @@
+package com.voetsjoeba.imdb.cache;
+
+import net.jcip.annotations.Immutable;
+
+/**
+ * Point-in-time snapshot of the usage counters of a {@link SearchCache} or {@link ThumbnailCache}.
+ * 
+ * @author Jeroen De Ridder
+ */
+@Immutable
+public class CacheStatistics {
+	
+	private final long hitCount;
+	private final long missCount;
+	private final long evictionCount;
+	private final long expirationCount;
+	private final int size;
+	private final long weight;
+	
+	public CacheStatistics(long hitCount, long missCount, long evictionCount, long expirationCount, int size, long weight)
+	{
+		this.hitCount = hitCount;
+		this.missCount = missCount;
+		this.evictionCount = evictionCount;
+		this.expirationCount = expirationCount;
+		this.size = size;
+		this.weight = weight;
+	}
+	
+	public long getHitCount()
+	{
+		return hitCount;
+	}
+	
+	public long getMissCount()
+	{
+		return missCount;
+	}
+	
+	/**
+	 * Returns the amount of entries that were removed to make room for new ones.
+	 */
+	public long getEvictionCount()
+	{
+		return evictionCount;
+	}
+	
+	/**
+	 * Returns the amount of entries that were removed because their time-to-live had passed.
+	 */
+	public long getExpirationCount()
+	{
+		return expirationCount;
+	}
+	
+	/**
+	 * Returns the amount of entries in the cache.
+	 */
+	public int getSize()
+	{
+		return size;
+	}
+	
+	/**
+	 * Returns the total weight of the entries in the cache.
+	 */
+	public long getWeight()
+	{
+		return weight;
+	}
+	
+	/**
+	 * Returns the ratio of lookups that were hits, or 0 if there were no lookups yet.
+	 */
+	public double getHitRate()
+	{
+		long requestCount = hitCount + missCount;
+		return (requestCount == 0 ? 0 : (double) hitCount / requestCount);
+	}
+	
+	@Override
+	public String toString()
+	{
+		return "hits=" + hitCount + ", misses=" + missCount + ", evictions=" + evictionCount + ", expirations=" + expirationCount + ", size=" + size + ", weight=" + weight;
+	}
+}
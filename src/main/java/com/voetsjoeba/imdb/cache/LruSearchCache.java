@@ -0,0 +1,252 @@
+package com.voetsjoeba.imdb.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+import com.voetsjoeba.imdb.ImdbSearchResults;
+import com.voetsjoeba.imdb.domain.api.Season;
+import com.voetsjoeba.imdb.domain.api.Series;
+import com.voetsjoeba.imdb.domain.api.Title;
+
+/**
+ * In-memory {@link SearchCache} that evicts its least recently used entries once it holds more than a maximum amount of
+ * entries or a maximum total weight. Each entry expires after a time-to-live, which can be set separately for exact
+ * matches (a single full {@link Title}) and for lists of search results.
+ *
+ * <p>The weight of an entry approximates its memory footprint: one per match, plus one per episode for series. Override
+ * {@link #weigh(ImdbSearchResults)} to use a different measure. Series whose seasons haven't been loaded yet are weighed
+ * again once they have, which may cause entries to be evicted.</p>
+ *
+ * @author Jeroen De Ridder
+ */
+@ThreadSafe
+public class LruSearchCache implements SearchCache {
+
+	public static final int DEFAULT_MAX_ENTRIES = 10000;
+	public static final long DEFAULT_MAX_WEIGHT = 1000000;
+	public static final long DEFAULT_EXACT_MATCH_TTL = 24 * 60 * 60 * 1000L; // ms
+	public static final long DEFAULT_RESULT_LIST_TTL = 60 * 60 * 1000L; // ms
+
+	private final int maxEntries;
+	private final long maxWeight;
+	private final long exactMatchTtl;
+	private final long resultListTtl;
+
+	@GuardedBy("this") private final LinkedHashMap<String, Entry> entries;
+	@GuardedBy("this") private long weight;
+
+	@GuardedBy("this") private long hitCount;
+	@GuardedBy("this") private long missCount;
+	@GuardedBy("this") private long evictionCount;
+	@GuardedBy("this") private long expirationCount;
+
+	/**
+	 * Creates a cache with the default limits and time-to-live values.
+	 */
+	public LruSearchCache()
+	{
+		this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_WEIGHT, DEFAULT_EXACT_MATCH_TTL, DEFAULT_RESULT_LIST_TTL);
+	}
+
+	/**
+	 * Creates a new cache.
+	 *
+	 * @param maxEntries The maximum amount of entries to hold.
+	 * @param maxWeight The maximum total weight of all entries.
+	 * @param exactMatchTtl The amount of milliseconds after which exact matches expire.
+	 * @param resultListTtl The amount of milliseconds after which lists of search results expire.
+	 */
+	public LruSearchCache(int maxEntries, long maxWeight, long exactMatchTtl, long resultListTtl)
+	{
+		if (maxEntries < 1 || maxWeight < 1)
+			throw new IllegalArgumentException("Cache limits must be positive");
+		if (exactMatchTtl <= 0 || resultListTtl <= 0)
+			throw new IllegalArgumentException("Time-to-live values must be positive");
+
+		this.maxEntries = maxEntries;
+		this.maxWeight = maxWeight;
+		this.exactMatchTtl = exactMatchTtl;
+		this.resultListTtl = resultListTtl;
+
+		entries = new LinkedHashMap<String, Entry>(16, 0.75f, true); // access order
+	}
+
+	public synchronized ImdbSearchResults get(String key)
+	{
+		Entry entry = entries.get(key);
+		if (entry == null)
+		{
+			missCount++;
+			return null;
+		}
+
+		if (entry.expiresAt <= currentTimeMillis())
+		{
+			entries.remove(key);
+			entry.removed = true;
+			weight -= entry.weight;
+			expirationCount++;
+			missCount++;
+			return null;
+		}
+
+		hitCount++;
+		return entry.results;
+	}
+
+	public void put(String key, ImdbSearchResults results)
+	{
+		if (key == null || results == null)
+			return;
+
+		final Entry entry;
+		synchronized (this)
+		{
+			remove(key);
+
+			int entryWeight = weigh(results);
+			if (entryWeight > maxWeight)
+				return; // would evict everything else and still not fit
+
+			long ttl = (results.isExactMatch() ? exactMatchTtl : resultListTtl);
+			entry = new Entry(key, results, entryWeight, currentTimeMillis() + ttl);
+			entries.put(key, entry);
+			weight += entryWeight;
+
+			evict();
+		}
+
+		// the seasons are the bulk of a series, so weigh it again once they're in. Registered outside of the lock, since
+		// the callbacks may run right away.
+		if (results.isExactMatch() && results.getExactMatch() instanceof Series)
+		{
+			Series series = (Series) results.getExactMatch();
+			if (!series.hasLoadedSeasons())
+			{
+				series.whenSeasonsLoaded(new Runnable() {
+					public void run()
+					{
+						reweigh(entry);
+					}
+				});
+			}
+		}
+	}
+
+	public synchronized void remove(String key)
+	{
+		Entry entry = entries.remove(key);
+		if (entry != null)
+		{
+			entry.removed = true;
+			weight -= entry.weight;
+		}
+	}
+
+	public synchronized void clear()
+	{
+		for (Entry entry : entries.values())
+			entry.removed = true;
+
+		entries.clear();
+		weight = 0;
+	}
+
+	public synchronized CacheStatistics getStatistics()
+	{
+		return new CacheStatistics(hitCount, missCount, evictionCount, expirationCount, entries.size(), weight);
+	}
+
+	/**
+	 * Removes least recently used entries until the cache is back within its limits.
+	 */
+	@GuardedBy("this")
+	private void evict()
+	{
+		Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+		while ((entries.size() > maxEntries || weight > maxWeight) && it.hasNext())
+		{
+			Entry entry = it.next().getValue();
+			it.remove();
+			entry.removed = true;
+			weight -= entry.weight;
+			evictionCount++;
+		}
+	}
+
+	/**
+	 * Weighs the given entry again if it is still cached, evicting entries if it has grown beyond the cache's limits.
+	 */
+	private synchronized void reweigh(Entry entry)
+	{
+		if (entry.removed)
+			return;
+
+		int entryWeight = weigh(entry.results);
+		if (entryWeight > maxWeight)
+		{
+			remove(entry.key); // would evict everything else and still not fit
+			evictionCount++;
+			return;
+		}
+
+		weight += entryWeight - entry.weight;
+		entry.weight = entryWeight;
+
+		evict();
+	}
+
+	/**
+	 * Returns the weight of the given results; must be at least 1.
+	 */
+	protected int weigh(ImdbSearchResults results)
+	{
+		int resultWeight = Math.max(1, results.getMatches().size());
+
+		if (results.isExactMatch() && results.getExactMatch() instanceof Series)
+		{
+			// seasons that haven't been loaded yet aren't weighed, weighing them mustn't trigger fetching them
+			Series series = (Series) results.getExactMatch();
+			if (series.hasLoadedSeasons() && series.getSeasons() != null)
+			{
+				for (Season season : series.getSeasons())
+				{
+					if (season != null)
+						resultWeight += season.getEpisodes().size();
+				}
+			}
+		}
+
+		return resultWeight;
+	}
+
+	/**
+	 * Returns the current time in milliseconds; used to determine entry expiration.
+	 */
+	protected long currentTimeMillis()
+	{
+		return System.currentTimeMillis();
+	}
+
+	private static class Entry
+	{
+		final String key;
+		final ImdbSearchResults results;
+		final long expiresAt;
+		int weight; // guarded by the cache, as is removed
+		boolean removed;
+
+		Entry(String key, ImdbSearchResults results, int weight, long expiresAt)
+		{
+			this.key = key;
+			this.results = results;
+			this.weight = weight;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+}
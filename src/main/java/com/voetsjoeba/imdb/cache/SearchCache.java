@@ -0,0 +1,43 @@
+package com.voetsjoeba.imdb.cache;
+
+import com.voetsjoeba.imdb.ImdbSearcher;
+import com.voetsjoeba.imdb.ImdbSearchResults;
+
+/**
+ * Cache of {@link ImdbSearchResults}, consulted by an {@link ImdbSearcher} before it goes out to IMDb. Keys are
+ * normalized search terms or title ids.
+ * 
+ * <p>Implementations must be thread-safe. Note that cached results are shared between all callers that hit the same
+ * entry, so the titles they contain should be treated as read-only.</p>
+ * 
+ * @author Jeroen De Ridder
+ * @see ImdbSearcher#setCache(SearchCache)
+ */
+public interface SearchCache {
+	
+	/**
+	 * Returns the cached results for the given key, or null if there are none (or they have expired).
+	 */
+	public ImdbSearchResults get(String key);
+	
+	/**
+	 * Stores results under the given key, replacing any previous entry.
+	 */
+	public void put(String key, ImdbSearchResults results);
+	
+	/**
+	 * Removes the entry for the given key, if any.
+	 */
+	public void remove(String key);
+	
+	/**
+	 * Removes all entries.
+	 */
+	public void clear();
+	
+	/**
+	 * Returns a snapshot of this cache's usage counters.
+	 */
+	public CacheStatistics getStatistics();
+	
+}
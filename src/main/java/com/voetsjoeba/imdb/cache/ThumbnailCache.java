@@ -0,0 +1,352 @@
+package com.voetsjoeba.imdb.cache;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+import org.apache.http.HttpException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.voetsjoeba.imdb.exception.ImdbException;
+import com.voetsjoeba.imdb.http.Transport;
+import com.voetsjoeba.imdb.util.SingleFlight;
+
+/**
+ * Cache of encoded thumbnail images, keyed by their URL. Recently used images are kept in memory up to a maximum total
+ * amount of bytes; if a directory is given, every image is also written to disk, where it outlives both evictions from
+ * memory and the cache itself. The disk side is not bounded.
+ *
+ * <p>Images are kept as they were served (typically JPEG), which takes up a fraction of the memory of decoded images.
+ * Concurrent {@link #load(String, Transport)}s of the same URL share a single fetch.</p>
+ *
+ * @author Jeroen De Ridder
+ */
+@ThreadSafe
+public class ThumbnailCache {
+
+	private static final Logger log = LoggerFactory.getLogger(ThumbnailCache.class);
+
+	public static final long DEFAULT_MAX_MEMORY = 16 * 1024 * 1024; // bytes
+
+	private static final String FILE_EXTENSION = ".img";
+	private static final String TEMP_FILE_EXTENSION = ".tmp";
+
+	private final long maxMemory;
+	private final File directory; // null if images are only kept in memory
+
+	@GuardedBy("this") private final LinkedHashMap<String, byte[]> images;
+	@GuardedBy("this") private long memory;
+
+	@GuardedBy("this") private long hitCount;
+	@GuardedBy("this") private long missCount;
+	@GuardedBy("this") private long evictionCount;
+
+	private final SingleFlight<String, byte[]> loadsInFlight = new SingleFlight<String, byte[]>();
+
+	/**
+	 * Creates a memory-only cache of the default size.
+	 */
+	public ThumbnailCache()
+	{
+		this(DEFAULT_MAX_MEMORY);
+	}
+
+	/**
+	 * Creates a memory-only cache.
+	 *
+	 * @param maxMemory The maximum total amount of bytes of the images kept in memory.
+	 */
+	public ThumbnailCache(long maxMemory)
+	{
+		if (maxMemory < 1)
+			throw new IllegalArgumentException("Maximum memory must be positive");
+
+		this.maxMemory = maxMemory;
+		this.directory = null;
+
+		images = new LinkedHashMap<String, byte[]>(16, 0.75f, true); // access order
+	}
+
+	/**
+	 * Creates a cache that also keeps images on disk, in the given directory. The directory is created if it does not
+	 * exist yet.
+	 *
+	 * @param maxMemory The maximum total amount of bytes of the images kept in memory.
+	 * @param directory The directory to keep images in.
+	 */
+	public ThumbnailCache(long maxMemory, File directory) throws IOException
+	{
+		if (maxMemory < 1)
+			throw new IllegalArgumentException("Maximum memory must be positive");
+		if (directory == null)
+			throw new IllegalArgumentException("Directory must not be null");
+		if (!directory.isDirectory() && !directory.mkdirs())
+			throw new IOException("Could not create thumbnail cache directory " + directory);
+
+		this.maxMemory = maxMemory;
+		this.directory = directory;
+
+		images = new LinkedHashMap<String, byte[]>(16, 0.75f, true); // access order
+	}
+
+	/**
+	 * Returns the image for the given URL from memory or disk, or null if it isn't cached. Images read from disk are kept
+	 * in memory again. Failures to read from disk are logged and treated as absent images.
+	 */
+	public byte[] get(String url)
+	{
+		synchronized (this)
+		{
+			byte[] data = images.get(url);
+			if (data != null)
+			{
+				hitCount++;
+				return data;
+			}
+		}
+
+		byte[] data = readFile(url);
+
+		synchronized (this)
+		{
+			if (data == null)
+			{
+				missCount++;
+				return null;
+			}
+
+			hitCount++;
+			putInMemory(url, data);
+			return data;
+		}
+	}
+
+	/**
+	 * Caches the image for the given URL, replacing any previous one. Failures to write to disk are logged and otherwise
+	 * ignored.
+	 */
+	public void put(String url, byte[] data)
+	{
+		if (url == null || data == null)
+			return;
+
+		synchronized (this)
+		{
+			putInMemory(url, data);
+		}
+
+		writeFile(url, data);
+	}
+
+	/**
+	 * Returns the image for the given URL, fetching it through the given transport and caching it if it isn't cached yet.
+	 */
+	public byte[] load(final String url, final Transport transport) throws IOException, HttpException
+	{
+		byte[] data = get(url);
+		if (data != null)
+			return data;
+
+		try
+		{
+			return loadsInFlight.execute(url, new Callable<byte[]>() {
+				public byte[] call() throws Exception
+				{
+					byte[] data = transport.getImageBytes(url);
+					put(url, data);
+					return data;
+				}
+			});
+		}
+		catch (ExecutionException eex)
+		{
+			Throwable cause = eex.getCause();
+			if (cause instanceof IOException)
+				throw (IOException) cause;
+			if (cause instanceof HttpException)
+				throw (HttpException) cause;
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw new ImdbException(cause);
+		}
+		catch (InterruptedException iex)
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for a concurrent fetch of " + url);
+		}
+	}
+
+	/**
+	 * Removes all images from memory. Images on disk are kept.
+	 */
+	public synchronized void clear()
+	{
+		images.clear();
+		memory = 0;
+	}
+
+	/**
+	 * Returns the usage counters of the memory side of this cache; hits include images that were read from disk. The
+	 * weight is the total amount of bytes kept in memory.
+	 */
+	public synchronized CacheStatistics getStatistics()
+	{
+		return new CacheStatistics(hitCount, missCount, evictionCount, 0, images.size(), memory);
+	}
+
+	@GuardedBy("this")
+	private void putInMemory(String url, byte[] data)
+	{
+		byte[] previous = images.remove(url);
+		if (previous != null)
+			memory -= previous.length;
+
+		if (data.length > maxMemory)
+			return; // would evict everything else and still not fit
+
+		images.put(url, data);
+		memory += data.length;
+
+		Iterator<byte[]> it = images.values().iterator();
+		while (memory > maxMemory && it.hasNext())
+		{
+			memory -= it.next().length;
+			it.remove();
+			evictionCount++;
+		}
+	}
+
+	private byte[] readFile(String url)
+	{
+		if (directory == null)
+			return null;
+
+		File file = getFile(url);
+		if (!file.isFile())
+			return null;
+
+		try
+		{
+			InputStream in = new BufferedInputStream(new FileInputStream(file));
+			try
+			{
+				byte[] data = new byte[(int) file.length()];
+				int offset = 0;
+				int read;
+				while (offset < data.length && (read = in.read(data, offset, data.length - offset)) >= 0)
+					offset += read;
+
+				if (offset < data.length)
+					throw new IOException("Unexpected end of file");
+
+				return data;
+			}
+			finally
+			{
+				in.close();
+			}
+		}
+		catch (IOException ioex)
+		{
+			log.warn("Could not read cached thumbnail {}: {}", file, ioex.getMessage());
+			return null;
+		}
+	}
+
+	private void writeFile(String url, byte[] data)
+	{
+		if (directory == null)
+			return;
+
+		File file = getFile(url);
+		try
+		{
+			File parent = file.getParentFile();
+			if (!parent.isDirectory() && !parent.mkdirs() && !parent.isDirectory())
+				throw new IOException("Could not create directory " + parent);
+
+			// written to a temporary file first, so that readers never see a partially written image
+			File tempFile = File.createTempFile("tmp-", TEMP_FILE_EXTENSION, parent);
+			try
+			{
+				FileOutputStream out = new FileOutputStream(tempFile);
+				try
+				{
+					out.write(data);
+				}
+				finally
+				{
+					out.close();
+				}
+
+				if (!tempFile.renameTo(file))
+				{
+					file.delete();
+					if (!tempFile.renameTo(file))
+						throw new IOException("Could not move " + tempFile + " to " + file);
+				}
+			}
+			finally
+			{
+				tempFile.delete(); // no-op if it was renamed
+			}
+		}
+		catch (IOException ioex)
+		{
+			log.warn("Could not write cached thumbnail {}: {}", file, ioex.getMessage());
+		}
+	}
+
+	/**
+	 * Returns the file the image for the given URL is kept in. Files are named after the SHA-1 hash of the URL, and spread
+	 * over subdirectories by its first two characters.
+	 */
+	protected File getFile(String url)
+	{
+		String hash = sha1(url);
+		return new File(new File(directory, hash.substring(0, 2)), hash + FILE_EXTENSION);
+	}
+
+	private static String sha1(String value)
+	{
+		try
+		{
+			byte[] digest = MessageDigest.getInstance("SHA-1").digest(value.getBytes("UTF-8"));
+
+			StringBuilder hex = new StringBuilder(digest.length * 2);
+			for (byte b : digest)
+			{
+				hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+				hex.append(Character.forDigit(b & 0xF, 16));
+			}
+			return hex.toString();
+		}
+		catch (NoSuchAlgorithmException nsaex)
+		{
+			throw new ImdbException(nsaex); // every JRE supports SHA-1
+		}
+		catch (UnsupportedEncodingException ueex)
+		{
+			throw new ImdbException(ueex); // every JRE supports UTF-8
+		}
+	}
+
+}
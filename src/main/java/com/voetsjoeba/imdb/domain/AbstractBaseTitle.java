@@ -4,6 +4,7 @@ import java.io.Serializable;
 
 import com.voetsjoeba.imdb.domain.api.BaseTitle;
 import com.voetsjoeba.imdb.exception.UnknownIdException;
+import com.voetsjoeba.imdb.util.ImdbUrls;
 
 /**
  * Default abstract {@link BaseTitle} implementation.
@@ -17,6 +18,7 @@ public abstract class AbstractBaseTitle implements BaseTitle, Serializable {
 	protected final String id;
 	protected String title;
 	protected Integer year;
+	protected ImdbUrls imdbUrls; // null for IMDb itself
 	
 	public AbstractBaseTitle(String id){
 		if(id == null) throw new IllegalArgumentException("ID must be non-null");
@@ -45,7 +47,15 @@ public abstract class AbstractBaseTitle implements BaseTitle, Serializable {
 	
 	public String getUrl() {
 		if(id == null) throw new UnknownIdException("Cannot build URL to IMDb title: ID not known");
-		return "http://www.imdb.com/title/" + id;
+		return getImdbUrls().getTitleUrl(id);
+	}
+	
+	public ImdbUrls getImdbUrls() {
+		return ImdbUrls.orDefault(imdbUrls);
+	}
+	
+	public void setImdbUrls(ImdbUrls imdbUrls) {
+		this.imdbUrls = imdbUrls;
 	}
 	
 	@Override
@@ -1,20 +1,36 @@
 package com.voetsjoeba.imdb.domain;
 
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.imageio.ImageIO;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.voetsjoeba.imdb.domain.api.Name;
 import com.voetsjoeba.imdb.domain.api.Title;
+import com.voetsjoeba.imdb.http.PageValidators;
+import com.voetsjoeba.imdb.util.LazyValue;
 
 /**
  * Default abstract {@link Title} implementation.
  * 
  * @author Jeroen De Ridder
  */
-public abstract class AbstractTitle extends AbstractBaseTitle implements Title {
+public abstract class AbstractTitle extends AbstractBaseTitle implements Title, Cloneable {
 	
 	static final long serialVersionUID = 1L;
 	
+	private static final Logger log = LoggerFactory.getLogger(AbstractTitle.class);
+	
 	protected Integer rating; // on a scale of 0 to 100
 	protected String tagline;
 	protected String plot;
@@ -23,6 +39,11 @@ public abstract class AbstractTitle extends AbstractBaseTitle implements Title {
 	
 	protected transient BufferedImage thumbnail;
 	protected String thumbnailUrl;
+	private transient volatile LazyValue<byte[]> thumbnailLoader; // only the encoded image is kept, see getThumbnail()
+	
+	protected Set<TitleField> fields; // null if not restricted, e.g. for titles stored before fields could be chosen
+	private transient volatile Map<TitleField, Exception> fetchFailures; // copied on write, null if there are none
+	protected PageValidators pageValidators; // of the title page this title was parsed from
 	
 	public AbstractTitle(String id) {
 		super(id);
@@ -68,12 +89,60 @@ public abstract class AbstractTitle extends AbstractBaseTitle implements Title {
 		this.plot = plot;
 	}
 	
+	/**
+	 * Returns the thumbnail image. If it was set through a loader, the image is loaded on the first call and decoded anew
+	 * on every call; only its encoded bytes are kept, which take up a fraction of the memory of the decoded image.
+	 */
 	public BufferedImage getThumbnail() {
-		return thumbnail;
+		
+		BufferedImage image = thumbnail;
+		if (image != null)
+			return image;
+		
+		byte[] data = getThumbnailData();
+		if (data == null)
+			return null;
+		
+		try {
+			return ImageIO.read(new ByteArrayInputStream(data));
+		}
+		catch (IOException ioex) {
+			log.error("Could not decode thumbnail " + thumbnailUrl + ": " + ioex.getMessage());
+			return null;
+		}
+		
 	}
 	
 	public void setThumbnail(BufferedImage image) {
 		this.thumbnail = image;
+		thumbnailLoader = null;
+	}
+	
+	/**
+	 * Returns the encoded thumbnail image as it was fetched, loading it first if this is the first access. Returns null
+	 * if the thumbnail has no loader or could not be loaded.
+	 */
+	public byte[] getThumbnailData() {
+		LazyValue<byte[]> loader = thumbnailLoader;
+		return (loader == null ? null : loader.get());
+	}
+	
+	/**
+	 * Makes the thumbnail of this title load on first access, replacing any image set before. The loader is run at most
+	 * once, and should return the encoded image, or null if it could not be loaded.
+	 */
+	public void setThumbnailLoader(LazyValue<byte[]> thumbnailLoader) {
+		this.thumbnailLoader = thumbnailLoader;
+		thumbnail = null;
+	}
+	
+	public boolean hasThumbnail() {
+		return (thumbnail != null || thumbnailLoader != null);
+	}
+	
+	public boolean hasLoadedThumbnail() {
+		LazyValue<byte[]> loader = thumbnailLoader;
+		return (loader == null || loader.isComputed());
 	}
 	
 	public String getThumbnailUrl() {
@@ -84,4 +153,59 @@ public abstract class AbstractTitle extends AbstractBaseTitle implements Title {
 		this.thumbnailUrl = thumbnailUrl;
 	}
 	
+	public Map<TitleField, Exception> getFetchFailures() {
+		Map<TitleField, Exception> failures = fetchFailures;
+		return (failures == null ? Collections.<TitleField, Exception>emptyMap() : failures);
+	}
+	
+	public synchronized void setFetchFailure(TitleField field, Exception failure) {
+		
+		Map<TitleField, Exception> failures = new EnumMap<TitleField, Exception>(TitleField.class);
+		if (fetchFailures != null)
+			failures.putAll(fetchFailures);
+		
+		if (failure == null)
+			failures.remove(field);
+		else
+			failures.put(field, failure);
+		
+		fetchFailures = (failures.isEmpty() ? null : Collections.unmodifiableMap(failures));
+		
+	}
+	
+	public PageValidators getPageValidators() {
+		return (pageValidators == null ? PageValidators.NONE : pageValidators);
+	}
+	
+	public void setPageValidators(PageValidators pageValidators) {
+		this.pageValidators = pageValidators;
+	}
+	
+	public Set<TitleField> getFields() {
+		return (fields == null ? TitleField.all() : Collections.unmodifiableSet(fields));
+	}
+	
+	public void setFields(Set<TitleField> fields) {
+		if (fields == null) {
+			this.fields = null;
+		}
+		else {
+			this.fields = EnumSet.noneOf(TitleField.class);
+			this.fields.addAll(fields);
+		}
+	}
+	
+	/**
+	 * Returns a shallow copy of this title. The values of its fields are shared rather than copied; that is safe because
+	 * they are replaced rather than modified when set.
+	 */
+	public AbstractTitle copy() {
+		try {
+			return (AbstractTitle) clone();
+		}
+		catch (CloneNotSupportedException cnsex) {
+			throw new AssertionError(cnsex); // we're Cloneable
+		}
+	}
+	
 }
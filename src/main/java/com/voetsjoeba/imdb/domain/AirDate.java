@@ -0,0 +1,146 @@
+package com.voetsjoeba.imdb.domain;
+
+import java.io.Serializable;
+import java.util.Calendar;
+
+import net.jcip.annotations.Immutable;
+
+/**
+ * The date an episode first aired. IMDb doesn't always list the full date, so the month and day may be unknown.
+ *
+ * @author Jeroen De Ridder
+ */
+@Immutable
+public final class AirDate implements Comparable<AirDate>, Serializable
+{
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Value of the month or day fields when they are not known.
+	 */
+	public static final int UNKNOWN = 0;
+
+	private final int year;
+	private final int month; // 1-12
+	private final int day;   // 1-31
+
+	/**
+	 * Creates an air date of which only the year is known.
+	 */
+	public AirDate(int year)
+	{
+		this(year, UNKNOWN, UNKNOWN);
+	}
+
+	/**
+	 * Creates a new air date.
+	 *
+	 * @param year The year.
+	 * @param month The month (1-12), or {@link #UNKNOWN}.
+	 * @param day The day of the month (1-31), or {@link #UNKNOWN}. Must be unknown if the month is unknown.
+	 */
+	public AirDate(int year, int month, int day)
+	{
+		if (month < UNKNOWN || month > 12)
+			throw new IllegalArgumentException("Invalid month: " + month);
+		if (day < UNKNOWN || day > 31 || (month == UNKNOWN && day != UNKNOWN))
+			throw new IllegalArgumentException("Invalid day: " + day);
+
+		this.year = year;
+		this.month = month;
+		this.day = day;
+	}
+
+	public int getYear()
+	{
+		return year;
+	}
+
+	/**
+	 * Returns the month (1-12), or {@link #UNKNOWN}.
+	 */
+	public int getMonth()
+	{
+		return month;
+	}
+
+	/**
+	 * Returns the day of the month (1-31), or {@link #UNKNOWN}.
+	 */
+	public int getDay()
+	{
+		return day;
+	}
+
+	/**
+	 * Returns true if the year, month and day are all known.
+	 */
+	public boolean isComplete()
+	{
+		return (month != UNKNOWN && day != UNKNOWN);
+	}
+
+	/**
+	 * Returns a new {@link Calendar} set to midnight (local time) of this date. Unknown months and days default to the
+	 * first of the year or month.
+	 */
+	public Calendar toCalendar()
+	{
+		Calendar calendar = Calendar.getInstance();
+		calendar.clear();
+		calendar.set(year, (month == UNKNOWN ? 0 : month - 1), (day == UNKNOWN ? 1 : day));
+		return calendar;
+	}
+
+	/**
+	 * Returns the air date of the given calendar's date, or null if the calendar is null.
+	 */
+	public static AirDate fromCalendar(Calendar calendar)
+	{
+		if (calendar == null)
+			return null;
+		return new AirDate(calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH) + 1, calendar.get(Calendar.DAY_OF_MONTH));
+	}
+
+	public int compareTo(AirDate other)
+	{
+		if (year != other.year)
+			return (year < other.year ? -1 : 1);
+		if (month != other.month)
+			return (month < other.month ? -1 : 1);
+		if (day != other.day)
+			return (day < other.day ? -1 : 1);
+		return 0;
+	}
+
+	@Override
+	public boolean equals(Object obj)
+	{
+		if (obj == this)
+			return true;
+		if (!(obj instanceof AirDate))
+			return false;
+
+		AirDate other = (AirDate) obj;
+		return (year == other.year && month == other.month && day == other.day);
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return (year * 12 + month) * 31 + day;
+	}
+
+	/**
+	 * Returns this date in ISO 8601 format, leaving out unknown parts (e.g. "2007-09-24" or "2007").
+	 */
+	@Override
+	public String toString()
+	{
+		if (month == UNKNOWN)
+			return String.format("%04d", year);
+		if (day == UNKNOWN)
+			return String.format("%04d-%02d", year, month);
+		return String.format("%04d-%02d-%02d", year, month, day);
+	}
+}
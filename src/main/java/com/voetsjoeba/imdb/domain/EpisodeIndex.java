@@ -0,0 +1,102 @@
+package com.voetsjoeba.imdb.domain;
+
+import java.util.Collection;
+
+import net.jcip.annotations.Immutable;
+
+import com.voetsjoeba.imdb.domain.api.Episode;
+import com.voetsjoeba.imdb.domain.api.Season;
+import com.voetsjoeba.imdb.domain.api.Series;
+import com.voetsjoeba.imdb.util.LongMap;
+
+/**
+ * Snapshot index of all episodes of a series, keyed by season and episode number packed into a long (see
+ * {@link SeasonEpisodeNumber#pack(int, int)}). Meant for matching large amounts of season/episode numbers -- e.g. ones
+ * extracted from file names -- against a series without allocating anything per lookup.
+ *
+ * <p>The index reflects the episodes at the time it was created; changes to the series afterwards are not picked up.
+ * Once created it is safe to use from multiple threads.</p>
+ *
+ * @author Jeroen De Ridder
+ */
+@Immutable
+public class EpisodeIndex
+{
+	private final LongMap<Episode> episodes;
+
+	/**
+	 * Indexes the episodes of the given series. Series whose seasons haven't been parsed yield an empty index.
+	 */
+	public EpisodeIndex(Series series)
+	{
+		this(series.getSeasons());
+	}
+
+	/**
+	 * Indexes the episodes of the given seasons. Seasons or episodes without a number are skipped; of multiple episodes
+	 * with the same season and episode number, the first one is kept.
+	 */
+	public EpisodeIndex(Collection<? extends Season> seasons)
+	{
+		int episodeCount = 0;
+		if (seasons != null)
+		{
+			for (Season season : seasons)
+			{
+				if (season != null)
+					episodeCount += season.getEpisodes().size();
+			}
+		}
+
+		episodes = new LongMap<Episode>(episodeCount);
+		if (seasons == null)
+			return;
+
+		for (Season season : seasons)
+		{
+			if (season == null || season.getNumber() == null)
+				continue;
+
+			int seasonNumber = season.getNumber().intValue();
+			for (Episode episode : season.getEpisodes())
+			{
+				if (episode != null)
+					episodes.putIfAbsent(SeasonEpisodeNumber.pack(seasonNumber, episode.getNumber()), episode);
+			}
+		}
+	}
+
+	/**
+	 * Returns the episode for the given packed season and episode number, or null if there is none.
+	 */
+	public Episode get(long packedNumber)
+	{
+		return episodes.get(packedNumber);
+	}
+
+	/**
+	 * Returns the episode with the given season and episode number, or null if there is none.
+	 */
+	public Episode get(int seasonNumber, int episodeNumber)
+	{
+		return episodes.get(SeasonEpisodeNumber.pack(seasonNumber, episodeNumber));
+	}
+
+	public boolean contains(long packedNumber)
+	{
+		return episodes.containsKey(packedNumber);
+	}
+
+	public boolean contains(int seasonNumber, int episodeNumber)
+	{
+		return episodes.containsKey(SeasonEpisodeNumber.pack(seasonNumber, episodeNumber));
+	}
+
+	/**
+	 * Returns the amount of indexed episodes.
+	 */
+	public int size()
+	{
+		return episodes.size();
+	}
+}
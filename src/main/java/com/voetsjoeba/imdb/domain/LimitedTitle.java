@@ -34,6 +34,7 @@ public class LimitedTitle extends AbstractBaseTitle {
 		
 		this.year = title.getYear();
 		this.title = title.getTitle();
+		this.imdbUrls = title.getImdbUrls();
 	}
 
 	public List<String> getExtraInfo() {
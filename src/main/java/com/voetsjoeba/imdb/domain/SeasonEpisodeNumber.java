@@ -26,6 +26,52 @@ public class SeasonEpisodeNumber implements Serializable
 		this(episode.getSeason().getNumber(), episode.getNumber());
 	}
 	
+	/**
+	 * Packs a season and episode number into a single long, e.g. to use as a key in an {@link EpisodeIndex} without
+	 * allocating a SeasonEpisodeNumber. Packed keys order the same way as the numbers they were created from, season
+	 * first.
+	 */
+	public static long pack(int seasonNumber, int episodeNumber)
+	{
+		return ((long) seasonNumber << 32) | (episodeNumber & 0xFFFFFFFFL);
+	}
+	
+	/**
+	 * Returns the season number of a key created by {@link #pack(int, int)}.
+	 */
+	public static int unpackSeasonNumber(long packed)
+	{
+		return (int) (packed >> 32);
+	}
+	
+	/**
+	 * Returns the episode number of a key created by {@link #pack(int, int)}.
+	 */
+	public static int unpackEpisodeNumber(long packed)
+	{
+		return (int) packed;
+	}
+	
+	/**
+	 * Creates a SeasonEpisodeNumber from a key created by {@link #pack(int, int)}.
+	 */
+	public static SeasonEpisodeNumber unpack(long packed)
+	{
+		return new SeasonEpisodeNumber(unpackSeasonNumber(packed), unpackEpisodeNumber(packed));
+	}
+	
+	/**
+	 * Returns this season and episode number packed into a single long.
+	 * 
+	 * @throws IllegalStateException if either number is unknown.
+	 */
+	public long pack()
+	{
+		if (seasonNumber == null || episodeNumber == null)
+			throw new IllegalStateException("Cannot pack " + this + ": season and episode number must both be known");
+		return pack(seasonNumber.intValue(), episodeNumber.intValue());
+	}
+	
 	public Integer getSeasonNumber()
 	{
 		return seasonNumber;
@@ -74,16 +120,9 @@ public class SeasonEpisodeNumber implements Serializable
 			return false;
 		SeasonEpisodeNumber other = (SeasonEpisodeNumber) obj;
 		
-		Integer otherEpisodeNumber = other.getEpisodeNumber();
-		if (episodeNumber == null && otherEpisodeNumber != null)
-			return false;
-		if (!episodeNumber.equals(otherEpisodeNumber))
-			return false;
-		
-		Integer otherSeasonNumber = other.getSeasonNumber();
-		if (seasonNumber == null && otherSeasonNumber != null)
+		if (episodeNumber == null ? other.episodeNumber != null : !episodeNumber.equals(other.episodeNumber))
 			return false;
-		if (!seasonNumber.equals(otherSeasonNumber))
+		if (seasonNumber == null ? other.seasonNumber != null : !seasonNumber.equals(other.seasonNumber))
 			return false;
 		
 		return true;
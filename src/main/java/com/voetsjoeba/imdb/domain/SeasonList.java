@@ -0,0 +1,114 @@
+package com.voetsjoeba.imdb.domain;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.RandomAccess;
+
+import net.jcip.annotations.Immutable;
+
+import com.voetsjoeba.imdb.domain.api.Season;
+import com.voetsjoeba.imdb.util.IntMap;
+
+/**
+ * Unmodifiable list of seasons, ordered by season number. Unlike a list indexed by season number, it holds no padding for
+ * missing seasons: series with gaps in their numbering, a season 0 of specials or seasons numbered by year are all
+ * represented as-is. Seasons without a number are kept at the end of the list, in the order they were given.
+ *
+ * <p>Seasons can also be looked up by number in constant time through {@link #getSeason(int)}.</p>
+ *
+ * @author Jeroen De Ridder
+ */
+@Immutable
+public class SeasonList extends AbstractList<Season> implements RandomAccess, Serializable
+{
+	private static final long serialVersionUID = 1L;
+
+	private static final Comparator<Season> numberOrder = new Comparator<Season>() {
+		public int compare(Season s1, Season s2)
+		{
+			Integer n1 = s1.getNumber();
+			Integer n2 = s2.getNumber();
+			if (n1 == null)
+				return (n2 == null ? 0 : 1);
+			if (n2 == null)
+				return -1;
+			return n1.compareTo(n2);
+		}
+	};
+
+	private final Season[] seasons;
+	private final transient IntMap<Season> index;
+
+	/**
+	 * Creates a list of the given seasons, sorted by number. Null elements are dropped; of multiple seasons with the same
+	 * number, only the first one is kept.
+	 */
+	public SeasonList(Collection<? extends Season> seasons)
+	{
+		Season[] sorted = new Season[seasons.size()];
+		int count = 0;
+		for (Season season : seasons)
+		{
+			if (season != null)
+				sorted[count++] = season;
+		}
+
+		// stable sort, so the first of a run of equal numbers is the one that was given first
+		Arrays.sort(sorted, 0, count, numberOrder);
+
+		int unique = 0;
+		for (int i = 0; i < count; i++)
+		{
+			Integer number = sorted[i].getNumber();
+			if (number != null && unique > 0 && number.equals(sorted[unique - 1].getNumber()))
+				continue;
+			sorted[unique++] = sorted[i];
+		}
+
+		this.seasons = new Season[unique];
+		System.arraycopy(sorted, 0, this.seasons, 0, unique);
+
+		index = new IntMap<Season>();
+		for (Season season : this.seasons)
+		{
+			if (season.getNumber() != null)
+				index.put(season.getNumber().intValue(), season);
+		}
+	}
+
+	@Override
+	public Season get(int index)
+	{
+		return seasons[index];
+	}
+
+	@Override
+	public int size()
+	{
+		return seasons.length;
+	}
+
+	/**
+	 * Returns the season with the given number, or null if there is none.
+	 */
+	public Season getSeason(int number)
+	{
+		return index.get(number);
+	}
+
+	public boolean hasSeason(int number)
+	{
+		return index.containsKey(number);
+	}
+
+	/**
+	 * Rebuilds the lookup index after deserialization.
+	 */
+	private Object readResolve()
+	{
+		return new SeasonList(Arrays.asList(seasons));
+	}
+}
@@ -18,7 +18,7 @@ public class StandardEpisode extends AbstractEpisode implements Serializable
 	
 	protected int number;
 	protected String title;
-	protected Calendar airDate;
+	protected AirDate airDate;
 	protected String plot;
 	
 	public StandardEpisode(Season season)
@@ -55,10 +55,20 @@ public class StandardEpisode extends AbstractEpisode implements Serializable
 	
 	public Calendar getAirDate()
 	{
-		return airDate;
+		return (airDate == null ? null : airDate.toCalendar());
 	}
 	
 	public void setAirDate(Calendar airDate)
+	{
+		this.airDate = AirDate.fromCalendar(airDate);
+	}
+	
+	public AirDate getAirDateValue()
+	{
+		return airDate;
+	}
+	
+	public void setAirDateValue(AirDate airDate)
 	{
 		this.airDate = airDate;
 	}
@@ -1,5 +1,7 @@
 package com.voetsjoeba.imdb.domain;
 
+import java.io.Serializable;
+
 import net.jcip.annotations.Immutable;
 import net.jcip.annotations.ThreadSafe;
 
@@ -7,7 +9,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.voetsjoeba.imdb.domain.api.Name;
-import com.voetsjoeba.imdb.util.HttpUtils;
+import com.voetsjoeba.imdb.util.ImdbUrls;
 
 /**
  * Default {@link Name} implementation.
@@ -16,18 +18,30 @@ import com.voetsjoeba.imdb.util.HttpUtils;
  */
 @ThreadSafe
 @Immutable
-public class StandardName implements Name
+public class StandardName implements Name, Serializable
 {
+	private static final long serialVersionUID = 1L;
+	
 	@SuppressWarnings("unused")
 	private static final Logger log = LoggerFactory.getLogger(StandardName.class);
 	
 	protected final String id;
 	protected final String name;
+	protected final ImdbUrls imdbUrls; // null for IMDb itself
 	
 	public StandardName(String id, String name)
+	{
+		this(id, name, null);
+	}
+	
+	/**
+	 * @param imdbUrls The URL builder for the site this person was found on, or null for IMDb itself.
+	 */
+	public StandardName(String id, String name, ImdbUrls imdbUrls)
 	{
 		this.id = id;
 		this.name = name;
+		this.imdbUrls = imdbUrls;
 	}
 	
 	public String getId()
@@ -53,12 +67,12 @@ public class StandardName implements Name
 			
 			// no ID known for this person, make it a link to the search page
 			// for their name
-			return "http://www.imdb.com/find?s=all&q=" + HttpUtils.urlEncodeUtf8(name);
+			return ImdbUrls.orDefault(imdbUrls).getSearchUrl(name);
 		}
 		else
 		{
 			// ID known, link directly to this person's page
-			return "http://www.imdb.com/name/" + id;
+			return ImdbUrls.orDefault(imdbUrls).getNameUrl(id);
 		}
 	}
 }
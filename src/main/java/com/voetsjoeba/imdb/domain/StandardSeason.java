@@ -1,5 +1,7 @@
 package com.voetsjoeba.imdb.domain;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -7,6 +9,7 @@ import java.util.List;
 
 import com.voetsjoeba.imdb.domain.api.Episode;
 import com.voetsjoeba.imdb.domain.api.Season;
+import com.voetsjoeba.imdb.util.IntMap;
 
 /**
  * Default {@link Season} implementation.
@@ -20,9 +23,13 @@ public class StandardSeason implements Season, Serializable
 	protected Integer number;
 	protected List<Episode> episodes;
 	
+	// lookup index by episode number, built whenever the episodes are set; not serialized since it is easily rebuilt.
+	// Volatile so that threads sharing this season through a cache see a fully built index.
+	private transient volatile IntMap<Episode> episodeIndex;
+	
 	public StandardSeason()
 	{
-		episodes = new ArrayList<Episode>();
+		setEpisodes(new ArrayList<Episode>());
 	}
 	
 	public StandardSeason(int number)
@@ -48,28 +55,47 @@ public class StandardSeason implements Season, Serializable
 	
 	public Episode getEpisode(int number)
 	{
-		// TODO: this is inefficient, but we'll allow it since the amount of
-		// episodes in an IMDb title is usually very low
-		for (Episode episode : episodes)
-		{
-			if (episode.getNumber() == number)
-				return episode;
-		}
-		
-		return null;
+		return episodeIndex.get(number);
 	}
 	
+	/**
+	 * Sets the episodes of this season; null means there are none. Changes made to the given list afterwards, or to the
+	 * numbers of its episodes, are not picked up by {@link #getEpisode(int)} and {@link #hasEpisode(int)} until the list
+	 * is set again.
+	 */
 	public void setEpisodes(List<Episode> episodes)
 	{
+		if (episodes == null)
+			episodes = new ArrayList<Episode>();
+		
 		this.episodes = episodes;
+		episodeIndex = buildIndex(episodes);
 	}
 	
 	public boolean hasEpisode(int number)
 	{
-		// TODO: this is inefficient, but we'll allow it since the amount of
-		// episodes in an IMDb title is usually very low
-		Episode episode = getEpisode(number);
-		return (episode != null);
+		return episodeIndex.containsKey(number);
+	}
+	
+	private static IntMap<Episode> buildIndex(List<Episode> episodes)
+	{
+		IntMap<Episode> index = new IntMap<Episode>();
+		for (Episode episode : episodes)
+		{
+			// the first episode with a given number wins, like the linear scan this replaces
+			if (episode != null)
+				index.putIfAbsent(episode.getNumber(), episode);
+		}
+		return index;
+	}
+	
+	/**
+	 * Rebuilds the lookup index after deserialization.
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
+	{
+		in.defaultReadObject();
+		episodeIndex = buildIndex(episodes);
 	}
 	
 }
@@ -1,9 +1,19 @@
 package com.voetsjoeba.imdb.domain;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import net.jcip.annotations.GuardedBy;
 
 import com.voetsjoeba.imdb.domain.api.Season;
 import com.voetsjoeba.imdb.domain.api.Series;
+import com.voetsjoeba.imdb.http.PageValidators;
+import com.voetsjoeba.imdb.util.IntMap;
+import com.voetsjoeba.imdb.util.LazyValue;
 
 /**
  * Default {@link Series} implementation.
@@ -18,6 +28,19 @@ public class StandardSeries extends AbstractTitle implements Series {
 	// these, as the saved episode list is likely to become obsolete as time progresses.
 	protected transient List<Season> seasons;
 	
+	// transient along with the seasons they belong to
+	protected transient volatile PageValidators episodeListingValidators;
+	
+	// loads the seasons on first access instead, if set
+	private transient volatile LazyValue<List<Season>> seasonLoader;
+	
+	// lookup index by season number, built when seasons other than a SeasonList are set. Volatile so that threads sharing
+	// this series through a cache see a fully built index.
+	private transient volatile IntMap<Season> seasonIndex;
+	
+	// run once the seasons have been loaded or set; null if there are none
+	@GuardedBy("this") private transient List<Runnable> seasonsLoadedCallbacks;
+	
 	/**
 	 * Creates a new Series with the specified id.
 	 */
@@ -35,40 +58,201 @@ public class StandardSeries extends AbstractTitle implements Series {
 		setTitle(title);
 	}
 	
+	/**
+	 * Returns the seasons of this series. If a season loader was set and hasn't run yet, it is run first, on the calling 
+	 * thread; concurrent callers wait for it to complete rather than loading the seasons again.
+	 */
 	public List<Season> getSeasons()
 	{
-		return seasons;
+		LazyValue<List<Season>> loader = seasonLoader;
+		if (loader == null)
+			return seasons;
+		
+		boolean loaded = loader.isComputed();
+		List<Season> result = loader.get();
+		if (!loaded)
+			runSeasonsLoadedCallbacks();
+		return result;
 	}
 	
+	/**
+	 * Sets the seasons of this series. Unless they are given as a {@link SeasonList}, seasons added to or renumbered in the
+	 * given list afterwards are not picked up by {@link #getSeason(int)} until the list is set again.
+	 */
 	public void setSeasons(List<Season> seasons)
 	{
+		seasonIndex = (seasons == null || seasons instanceof SeasonList ? null : buildIndex(seasons));
 		this.seasons = seasons;
+		seasonLoader = null;
+		runSeasonsLoadedCallbacks();
+	}
+	
+	/**
+	 * Makes the seasons of this series load on first access, replacing any seasons set before. The loader is run at most
+	 * once.
+	 */
+	public void setSeasonLoader(LazyValue<List<Season>> seasonLoader)
+	{
+		seasonIndex = null;
+		seasons = null;
+		this.seasonLoader = seasonLoader;
+	}
+	
+	public PageValidators getEpisodeListingValidators()
+	{
+		PageValidators validators = episodeListingValidators;
+		return (validators == null ? PageValidators.NONE : validators);
+	}
+	
+	public void setEpisodeListingValidators(PageValidators validators)
+	{
+		this.episodeListingValidators = validators;
+	}
+	
+	public boolean hasLoadedSeasons()
+	{
+		LazyValue<List<Season>> loader = seasonLoader;
+		return (loader == null || loader.isComputed());
+	}
+	
+	public void whenSeasonsLoaded(Runnable callback)
+	{
+		synchronized (this)
+		{
+			if (seasonsLoadedCallbacks == null)
+				seasonsLoadedCallbacks = new ArrayList<Runnable>();
+			seasonsLoadedCallbacks.add(callback);
+		}
+		
+		// checked after adding the callback, so that it runs even if the seasons finished loading in the meantime
+		if (hasLoadedSeasons())
+			runSeasonsLoadedCallbacks();
+	}
+	
+	/**
+	 * Runs and forgets the callbacks registered through {@link #whenSeasonsLoaded(Runnable)}; each runs only once, even
+	 * if this is called from several threads at once.
+	 */
+	private void runSeasonsLoadedCallbacks()
+	{
+		List<Runnable> callbacks;
+		synchronized (this)
+		{
+			callbacks = seasonsLoadedCallbacks;
+			seasonsLoadedCallbacks = null;
+		}
+		
+		if (callbacks != null)
+		{
+			for (Runnable callback : callbacks)
+				callback.run();
+		}
+	}
+	
+	/**
+	 * Starts loading the seasons of this series on the given executor, if they haven't been loaded yet. Calls to
+	 * {@link #getSeasons()} in the meantime wait for the load to complete.
+	 * 
+	 * @return A {@link Future} holding the seasons once they have been loaded.
+	 */
+	public Future<List<Season>> prefetchSeasons(Executor executor)
+	{
+		FutureTask<List<Season>> task = new FutureTask<List<Season>>(new Callable<List<Season>>() {
+			public List<Season> call()
+			{
+				return getSeasons();
+			}
+		});
+		
+		if (hasLoadedSeasons())
+			task.run();
+		else
+			executor.execute(task);
+		
+		return task;
 	}
 	
 	public boolean hasSeason(int number)
 	{
-		// TODO: this is inefficient, but we'll allow it since the amount of
-		// seasons in an IMDb title is usually very low
 		return (getSeason(number) != null);
 	}
 	
 	public Season getSeason(int number)
 	{
-		// TODO: this is inefficient, but we'll allow it since the amount of
-		// seasons in an IMDb title is usually very low
-		for (Season season : seasons)
+		List<Season> seasonList = getSeasons();
+		if (seasonList == null)
+			return null;
+		if (seasonList instanceof SeasonList)
+			return ((SeasonList) seasonList).getSeason(number);
+		
+		IntMap<Season> index = seasonIndex;
+		if (index != null)
+			return index.get(number);
+		
+		// loaded by a loader that didn't produce a SeasonList; not worth indexing for the odd lookup
+		for (Season season : seasonList)
 		{
-			if (season.getNumber() == number)
+			if (season != null && season.getNumber() != null && season.getNumber().intValue() == number)
 				return season;
 		}
-		
 		return null;
 	}
 	
 	public boolean hasSeasonEpisode(SeasonEpisodeNumber seNumber)
 	{
-		Season season = getSeason(seNumber.getSeasonNumber());
-		return (season != null && season.hasEpisode(seNumber.getEpisodeNumber()));
+		Integer seasonNumber = seNumber.getSeasonNumber();
+		Integer episodeNumber = seNumber.getEpisodeNumber();
+		if (seasonNumber == null || episodeNumber == null)
+			return false;
+		
+		return hasSeasonEpisode(seasonNumber.intValue(), episodeNumber.intValue());
+	}
+	
+	public boolean hasSeasonEpisode(int seasonNumber, int episodeNumber)
+	{
+		Season season = getSeason(seasonNumber);
+		return (season != null && season.hasEpisode(episodeNumber));
+	}
+	
+	/**
+	 * Returns a shallow copy of this series. If its seasons haven't been loaded yet, the copy loads them through this
+	 * series, so that they are only loaded once and callbacks waiting for them on this series still run.
+	 */
+	@Override
+	public StandardSeries copy()
+	{
+		final StandardSeries original = this;
+		StandardSeries copy = (StandardSeries) super.copy();
+		
+		synchronized (copy)
+		{
+			copy.seasonsLoadedCallbacks = null; // registered on this series, not on the copy
+		}
+		
+		LazyValue<List<Season>> loader = seasonLoader;
+		if (loader != null && !loader.isComputed())
+		{
+			copy.seasonLoader = new LazyValue<List<Season>>() {
+				@Override
+				protected List<Season> compute()
+				{
+					return original.getSeasons();
+				}
+			};
+		}
+		
+		return copy;
+	}
+	
+	private static IntMap<Season> buildIndex(List<Season> seasonList)
+	{
+		IntMap<Season> index = new IntMap<Season>();
+		for (Season season : seasonList)
+		{
+			if (season != null && season.getNumber() != null)
+				index.putIfAbsent(season.getNumber().intValue(), season);
+		}
+		return index;
 	}
 	
 	@Override
@@ -0,0 +1,93 @@
+package com.voetsjoeba.imdb.domain;
+
+import java.util.Collection;
+import java.util.EnumSet;
+
+import com.voetsjoeba.imdb.domain.api.Title;
+
+/**
+ * Groups of {@link Title} fields that can be requested separately when looking up a title. Leaving out fields saves the
+ * work of extracting them and, for {@link #EPISODES} and {@link #THUMBNAIL}, the extra page and image fetches.
+ *
+ * @author Jeroen De Ridder
+ */
+public enum TitleField
+{
+	/**
+	 * The id, title, year, type (movie or series) and thumbnail URL. Always parsed, whether requested or not.
+	 */
+	BASIC,
+
+	/**
+	 * The user rating.
+	 */
+	RATING,
+
+	/**
+	 * The genres.
+	 */
+	GENRES,
+
+	/**
+	 * The stars.
+	 */
+	CAST,
+
+	/**
+	 * The plot and tagline.
+	 */
+	PLOT,
+
+	/**
+	 * The seasons and episodes of series; requires fetching the series' episode listing.
+	 */
+	EPISODES,
+
+	/**
+	 * The thumbnail image; requires fetching the image.
+	 */
+	THUMBNAIL;
+
+	/**
+	 * Returns a new set of all fields.
+	 */
+	public static EnumSet<TitleField> all()
+	{
+		return EnumSet.allOf(TitleField.class);
+	}
+
+	/**
+	 * Returns a new set of all fields, except for {@link #THUMBNAIL} unless asked for.
+	 */
+	public static EnumSet<TitleField> all(boolean thumbnail)
+	{
+		EnumSet<TitleField> fields = all();
+		if (!thumbnail)
+			fields.remove(THUMBNAIL);
+		return fields;
+	}
+
+	/**
+	 * Returns a new set of the given fields, plus {@link #BASIC}.
+	 */
+	public static EnumSet<TitleField> of(Collection<TitleField> fields)
+	{
+		if (fields == null)
+			throw new IllegalArgumentException("Fields must not be null");
+
+		EnumSet<TitleField> result = EnumSet.of(BASIC);
+		result.addAll(fields);
+		return result;
+	}
+
+	/**
+	 * Returns a new set of the given fields, plus {@link #BASIC}.
+	 */
+	public static EnumSet<TitleField> of(TitleField... fields)
+	{
+		EnumSet<TitleField> result = EnumSet.of(BASIC);
+		for (TitleField field : fields)
+			result.add(field);
+		return result;
+	}
+}
@@ -1,5 +1,6 @@
 package com.voetsjoeba.imdb.domain.api;
 
+import com.voetsjoeba.imdb.util.ImdbUrls;
 
 /**
  * Holds information that is common to any title type, be it full or limited.
@@ -28,6 +29,14 @@ public interface BaseTitle extends Searchable {
 	 */
 	public String getUrl();
 	
+	/**
+	 * Returns the URL builder for the site this title was fetched from, which its own URL (and those of the people
+	 * involved in it) point to.
+	 */
+	public ImdbUrls getImdbUrls();
+	
+	public void setImdbUrls(ImdbUrls imdbUrls);
+	
 	public void setTitle(String title);
 	public void setYear(Integer year);
 	
@@ -2,6 +2,7 @@ package com.voetsjoeba.imdb.domain.api;
 
 import java.util.Calendar;
 
+import com.voetsjoeba.imdb.domain.AirDate;
 import com.voetsjoeba.imdb.domain.SeasonEpisodeNumber;
 
 /**
@@ -22,10 +23,18 @@ public interface Episode {
 	public String getTitle();
 	
 	/**
-	 * Returns the date this episode was first aired.
+	 * Returns the date this episode was first aired, as a new {@link Calendar} instance. If only part of the date is
+	 * known, the unknown parts default to the start of the year or month.
+	 * 
+	 * @see #getAirDateValue()
 	 */
 	public Calendar getAirDate();
 	
+	/**
+	 * Returns the date this episode was first aired, or null if it is not known.
+	 */
+	public AirDate getAirDateValue();
+	
 	/**
 	 * Returns the plot of this episode.
 	 */
@@ -44,6 +53,7 @@ public interface Episode {
 	public void setNumber(int number);
 	public void setTitle(String title);
 	public void setAirDate(Calendar airDate);
+	public void setAirDateValue(AirDate airDate);
 	public void setPlot(String plot);
 	public void setSeason(Season season);
 	
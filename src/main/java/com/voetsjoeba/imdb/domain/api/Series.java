@@ -3,6 +3,7 @@ package com.voetsjoeba.imdb.domain.api;
 import java.util.List;
 
 import com.voetsjoeba.imdb.domain.SeasonEpisodeNumber;
+import com.voetsjoeba.imdb.http.PageValidators;
 
 /**
  * Represents an IMDb TV series.
@@ -12,17 +13,22 @@ import com.voetsjoeba.imdb.domain.SeasonEpisodeNumber;
 public interface Series extends Title {
 	
 	/**
-	 * Returns a list of all seasons in this series.
+	 * Returns a list of all seasons in this series, or null if they aren't known. The list may be unmodifiable (it is
+	 * for seasons parsed from IMDb or read from a title store): to change the seasons, pass a new list to
+	 * {@link #setSeasons(List)} instead.
 	 */
 	public List<Season> getSeasons();
 	
 	/**
-	 * Returns the season with the specified number (starting at 1). If no such season exists, null is returned.
+	 * Returns the season with the specified number as listed on IMDb. If no such season exists, null is returned.
+	 * Season numbers need not be consecutive or start at 1: there may be gaps, a season 0 for specials, or seasons
+	 * numbered by year (e.g. 2015).
 	 */
 	public Season getSeason(int number);
 	
 	/**
-	 * Returns true if this series has a season with the specified number (starting at 1), false otherwise.
+	 * Returns true if this series has a season with the specified number as listed on IMDb, false otherwise. See
+	 * {@link #getSeason(int)} for how seasons are numbered.
 	 */
 	public boolean hasSeason(int number);
 	
@@ -31,6 +37,30 @@ public interface Series extends Title {
 	 */
 	public boolean hasSeasonEpisode(SeasonEpisodeNumber seNumber);
 	
+	/**
+	 * Returns true if this series contains an episode with the provided season and episode numbers, false otherwise.
+	 */
+	public boolean hasSeasonEpisode(int seasonNumber, int episodeNumber);
+	
 	public void setSeasons(List<Season> seasons);
 	
+	/**
+	 * Returns false if the seasons of this series are loaded lazily and haven't been loaded yet, i.e. if the next call to
+	 * {@link #getSeasons()} may have to fetch them first.
+	 */
+	public boolean hasLoadedSeasons();
+	
+	/**
+	 * Runs the given callback once the seasons of this series have been loaded or set, on the thread that did so. If
+	 * they have been loaded already, it is run straight away on the calling thread. The callback is run only once.
+	 */
+	public void whenSeasonsLoaded(Runnable callback);
+	
+	/**
+	 * Returns the validators of the episode listing the seasons of this series were parsed from, with which it can be
+	 * checked whether the listing has changed since. Returns {@link PageValidators#NONE} if there are none.
+	 */
+	public PageValidators getEpisodeListingValidators();
+	public void setEpisodeListingValidators(PageValidators validators);
+	
 }
\ No newline at end of file
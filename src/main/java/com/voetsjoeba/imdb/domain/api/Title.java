@@ -2,6 +2,11 @@ package com.voetsjoeba.imdb.domain.api;
 
 import java.awt.image.BufferedImage;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.voetsjoeba.imdb.domain.TitleField;
+import com.voetsjoeba.imdb.http.PageValidators;
 
 /**
  * Represents a generic IMDb title. Serves as the base class for more specialized titles, primarily {@link Movie} and {@link Series}.
@@ -28,6 +33,54 @@ public interface Title extends BaseTitle {
 	public void setThumbnailUrl(String url);
 	public void setThumbnail(BufferedImage image);
 	
+	/**
+	 * Returns the encoded thumbnail image (e.g. JPEG data) if it is loaded lazily, fetching it on first access, or null
+	 * otherwise.
+	 */
+	public byte[] getThumbnailData();
+	
+	/**
+	 * Returns true if this title holds a thumbnail image or a loader for one.
+	 */
+	public boolean hasThumbnail();
+	
+	/**
+	 * Returns true if getting the thumbnail won't trigger fetching it, i.e. if it has been loaded already or isn't loaded
+	 * lazily in the first place.
+	 */
+	public boolean hasLoadedThumbnail();
+	
+	/**
+	 * Returns the fields that were parsed for this title; fields outside of this set are left unset. Titles that were
+	 * not parsed with a restricted set of fields report all of them.
+	 */
+	public Set<TitleField> getFields();
+	public void setFields(Set<TitleField> fields);
+	
+	/**
+	 * Returns the fields that could not be filled in because fetching them failed (e.g. the episode listing of a series
+	 * or the thumbnail image), with the failure for each. Empty if nothing failed.
+	 */
+	public Map<TitleField, Exception> getFetchFailures();
+	
+	/**
+	 * Records that fetching the given field failed, or clears that record if the failure is null.
+	 */
+	public void setFetchFailure(TitleField field, Exception failure);
+	
+	/**
+	 * Returns the validators of the title page this title was parsed from, with which it can be checked whether the page
+	 * has changed since. Returns {@link PageValidators#NONE} if there are none.
+	 */
+	public PageValidators getPageValidators();
+	public void setPageValidators(PageValidators validators);
+	
+	/**
+	 * Returns a shallow copy of this title, which shares everything parsed so far with this one. Setting fields on the
+	 * copy doesn't affect this title, so it can be updated while this one is in use elsewhere.
+	 */
+	public Title copy();
+	
 	/**
 	 * Returns a string representation of the type of title represented by this instance.
 	 */
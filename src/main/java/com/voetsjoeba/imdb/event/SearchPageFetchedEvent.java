@@ -2,19 +2,33 @@ package com.voetsjoeba.imdb.event;
 
 import java.util.EventObject;
 
+import com.voetsjoeba.imdb.util.LazyValue;
+
 @SuppressWarnings("serial")
 public class SearchPageFetchedEvent extends EventObject
 {
-	private String imdbPageHtml;
+	private transient LazyValue<String> imdbPageHtml;
 	
 	public SearchPageFetchedEvent(Object source, String imdbPageHtml)
+	{
+		this(source, LazyValue.of(imdbPageHtml));
+	}
+	
+	/**
+	 * Creates an event whose page HTML is only produced once a listener asks for it.
+	 */
+	public SearchPageFetchedEvent(Object source, LazyValue<String> imdbPageHtml)
 	{
 		super(source);
 		this.imdbPageHtml = imdbPageHtml;
 	}
 	
+	/**
+	 * Returns the HTML of the fetched page. This may be produced on demand by serializing the parsed page, in which case
+	 * it can differ in formatting from the HTML as it was sent by IMDb.
+	 */
 	public String getImdbPageHtml()
 	{
-		return imdbPageHtml;
+		return (imdbPageHtml == null ? null : imdbPageHtml.get());
 	}
 }
@@ -0,0 +1,117 @@
+package com.voetsjoeba.imdb.http;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.apache.http.HttpException;
+import org.jsoup.nodes.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.voetsjoeba.imdb.util.HttpUtils;
+
+/**
+ * {@link Transport} decorator that writes every page fetched through it to a {@link PageArchive}, so that the pages can
+ * later be served again by a {@link ReplayTransport}. Images are passed through without being archived.
+ * 
+ * @author Jeroen De Ridder
+ */
+@ThreadSafe
+public class ArchivingTransport implements Transport
+{
+	private static final Logger log = LoggerFactory.getLogger(ArchivingTransport.class);
+	
+	private final Transport delegate;
+	private final PageArchive archive;
+	
+	/**
+	 * @param delegate The transport to fetch pages with.
+	 * @param archive The archive to write fetched pages to.
+	 */
+	public ArchivingTransport(Transport delegate, PageArchive archive)
+	{
+		if (delegate == null || archive == null)
+			throw new IllegalArgumentException("Delegate transport and archive must not be null");
+		
+		this.delegate = delegate;
+		this.archive = archive;
+	}
+	
+	/**
+	 * Fetches a page through the delegate transport and archives it. Failing to archive the page does not fail the fetch.
+	 */
+	public String getPage(String url) throws IOException, HttpException
+	{
+		String page = delegate.getPage(url);
+		
+		try
+		{
+			archive.append(HttpUtils.normalizeUrl(url), page);
+		}
+		catch (IOException ioex)
+		{
+			log.warn("Could not archive page {}: {}", url, ioex.getMessage());
+		}
+		
+		return page;
+	}
+	
+	/**
+	 * Fetches a page through {@link #getPage(String)}, so that it gets archived, and parses it.
+	 */
+	public Document getDocument(String url) throws IOException, HttpException
+	{
+		return HttpUtils.parsePage(getPage(url));
+	}
+	
+	/**
+	 * Fetches a page through the delegate transport if it changed, and archives it as it was served if so. Failing to
+	 * archive the page does not fail the fetch.
+	 */
+	public ConditionalPage getPage(String url, PageValidators validators) throws IOException, HttpException
+	{
+		ConditionalPage page = delegate.getPage(url, validators);
+		if (page.isModified())
+		{
+			try
+			{
+				archive.append(HttpUtils.normalizeUrl(url), page.getContent());
+			}
+			catch (IOException ioex)
+			{
+				log.warn("Could not archive page {}: {}", url, ioex.getMessage());
+			}
+		}
+		return page;
+	}
+	
+	/**
+	 * Fetches a page through {@link #getPage(String, PageValidators)}, so that it gets archived as it was served, and
+	 * parses it.
+	 */
+	public ConditionalPage getDocument(String url, PageValidators validators) throws IOException, HttpException
+	{
+		ConditionalPage page = getPage(url, validators);
+		if (!page.isModified())
+			return page;
+		
+		return ConditionalPage.modified(page.getDocument(), page.getValidators());
+	}
+	
+	public BufferedImage fetchImage(String url) throws IOException, HttpException
+	{
+		return delegate.fetchImage(url);
+	}
+	
+	public byte[] getImageBytes(String url) throws IOException, HttpException
+	{
+		return delegate.getImageBytes(url);
+	}
+	
+	public PageArchive getArchive()
+	{
+		return archive;
+	}
+}
@@ -0,0 +1,126 @@
+package com.voetsjoeba.imdb.http;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stops fetches from being attempted while the server appears to be down, so that callers fail fast instead of each
+ * waiting for their own fetch to time out or fail.
+ *
+ * <p>The breaker starts out closed, letting every fetch through. After a number of consecutive failures it opens, and
+ * rejects all fetches for a while. Once that time has passed, it lets a single trial fetch through (half-open): if that
+ * one succeeds, the breaker closes again, otherwise it stays open for another while.</p>
+ *
+ * @author Jeroen De Ridder
+ */
+@ThreadSafe
+public class CircuitBreaker
+{
+	private static final Logger log = LoggerFactory.getLogger(CircuitBreaker.class);
+
+	public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+	public static final long DEFAULT_OPEN_DURATION = 30000; // ms
+
+	public enum State
+	{
+		CLOSED, OPEN, HALF_OPEN;
+	}
+
+	private final int failureThreshold;
+	private final long openDuration;
+
+	@GuardedBy("this") private State state = State.CLOSED;
+	@GuardedBy("this") private int consecutiveFailures;
+	@GuardedBy("this") private long openedAt;
+
+	/**
+	 * Creates a breaker with the default failure threshold and open duration.
+	 */
+	public CircuitBreaker()
+	{
+		this(DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_DURATION);
+	}
+
+	/**
+	 * Creates a new breaker.
+	 *
+	 * @param failureThreshold The amount of consecutive failures after which the breaker opens.
+	 * @param openDuration The amount of milliseconds the breaker stays open before letting a trial fetch through.
+	 */
+	public CircuitBreaker(int failureThreshold, long openDuration)
+	{
+		if (failureThreshold < 1)
+			throw new IllegalArgumentException("Failure threshold must be positive");
+		if (openDuration <= 0)
+			throw new IllegalArgumentException("Open duration must be positive");
+
+		this.failureThreshold = failureThreshold;
+		this.openDuration = openDuration;
+	}
+
+	/**
+	 * Returns true if a fetch may be attempted now. If this returns true, the outcome of the fetch must be reported
+	 * through {@link #recordSuccess()} or {@link #recordFailure()}.
+	 */
+	public synchronized boolean allowRequest()
+	{
+		switch (state)
+		{
+			case CLOSED:
+				return true;
+
+			case OPEN:
+				if (currentTimeMillis() - openedAt < openDuration)
+					return false;
+				state = State.HALF_OPEN; // this one is the trial
+				return true;
+
+			default:
+				return false; // trial in progress
+		}
+	}
+
+	/**
+	 * Records a successful fetch, closing the breaker.
+	 */
+	public synchronized void recordSuccess()
+	{
+		if (state != State.CLOSED)
+			log.info("Circuit closed, fetches succeed again");
+
+		state = State.CLOSED;
+		consecutiveFailures = 0;
+	}
+
+	/**
+	 * Records a failed fetch, opening the breaker if it was a trial or if there have been too many consecutive failures.
+	 */
+	public synchronized void recordFailure()
+	{
+		consecutiveFailures++;
+		if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold))
+		{
+			if (state == State.CLOSED)
+				log.warn("Circuit opened after {} consecutive failed fetches", consecutiveFailures);
+
+			state = State.OPEN;
+			openedAt = currentTimeMillis();
+		}
+	}
+
+	public synchronized State getState()
+	{
+		return state;
+	}
+
+	/**
+	 * Returns the current time in milliseconds; used to determine when an open breaker lets a trial fetch through.
+	 */
+	protected long currentTimeMillis()
+	{
+		return System.currentTimeMillis();
+	}
+}
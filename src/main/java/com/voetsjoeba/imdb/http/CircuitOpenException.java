@@ -0,0 +1,18 @@
+package com.voetsjoeba.imdb.http;
+
+import org.apache.http.HttpException;
+
+/**
+ * Indicates that a fetch was not attempted because its {@link CircuitBreaker} is open, i.e. because recent fetches kept
+ * failing.
+ *
+ * @author Jeroen De Ridder
+ */
+@SuppressWarnings("serial")
+public class CircuitOpenException extends HttpException
+{
+	public CircuitOpenException(String message)
+	{
+		super(message);
+	}
+}
@@ -0,0 +1,94 @@
+package com.voetsjoeba.imdb.http;
+
+import net.jcip.annotations.Immutable;
+
+import org.jsoup.nodes.Document;
+
+import com.voetsjoeba.imdb.util.HttpUtils;
+
+/**
+ * Outcome of a conditional page fetch: either the page, if it changed since the validators the request was made with
+ * were obtained, or just the news that it didn't (a 304 Not Modified response). The page is held either parsed or as
+ * the raw content that was served, depending on how it was fetched.
+ *
+ * @author Jeroen De Ridder
+ * @see Transport#getDocument(String, PageValidators)
+ * @see Transport#getPage(String, PageValidators)
+ */
+@Immutable
+public class ConditionalPage
+{
+	private final Document document;
+	private final String content;
+	private final PageValidators validators;
+
+	private ConditionalPage(Document document, String content, PageValidators validators)
+	{
+		this.document = document;
+		this.content = content;
+		this.validators = (validators == null ? PageValidators.NONE : validators);
+	}
+
+	/**
+	 * Returns the outcome of a fetch that returned the page.
+	 */
+	public static ConditionalPage modified(Document document, PageValidators validators)
+	{
+		if (document == null)
+			throw new IllegalArgumentException("Document must not be null");
+		return new ConditionalPage(document, null, validators);
+	}
+
+	/**
+	 * Returns the outcome of a fetch that returned the page, holding its raw content.
+	 */
+	public static ConditionalPage modified(String content, PageValidators validators)
+	{
+		if (content == null)
+			throw new IllegalArgumentException("Content must not be null");
+		return new ConditionalPage(null, content, validators);
+	}
+
+	/**
+	 * Returns the outcome of a fetch for which the server replied that the page did not change.
+	 */
+	public static ConditionalPage notModified(PageValidators validators)
+	{
+		return new ConditionalPage(null, null, validators);
+	}
+
+	/**
+	 * Returns true if the page changed and was returned, false if it didn't change.
+	 */
+	public boolean isModified()
+	{
+		return (document != null || content != null);
+	}
+
+	/**
+	 * Returns the page, or null if it didn't change. A page that is held as raw content is parsed on every call.
+	 */
+	public Document getDocument()
+	{
+		if (document == null && content != null)
+			return HttpUtils.parsePage(content);
+		return document;
+	}
+
+	/**
+	 * Returns the raw content of the page as it was served, or null if it didn't change or was only returned parsed.
+	 */
+	public String getContent()
+	{
+		return content;
+	}
+
+	/**
+	 * Returns the validators to make the next conditional request for the page with. If the page didn't change, these are
+	 * the validators the request was made with, unless the server sent new ones.
+	 */
+	public PageValidators getValidators()
+	{
+		return validators;
+	}
+}
@@ -0,0 +1,201 @@
+package com.voetsjoeba.imdb.http;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import net.jcip.annotations.NotThreadSafe;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.HttpEntityWrapper;
+
+/**
+ * Response entity wrapper that decompresses gzip and deflate content-encoded content while it is being read, and counts
+ * the bytes that came over the wire and the bytes they decoded to. Content that isn't compressed is passed through as
+ * is, and counted towards both.
+ *
+ * @author Jeroen De Ridder
+ */
+@NotThreadSafe
+public class DecodingEntity extends HttpEntityWrapper
+{
+	private final String encoding; // null if not compressed in an encoding we know
+	private final AtomicLong wireBytes;
+	private final AtomicLong decodedBytes;
+
+	/**
+	 * @param entity The entity to decode.
+	 * @param wireBytes The counter to add the amount of bytes read from the entity to.
+	 * @param decodedBytes The counter to add the amount of decoded bytes to.
+	 */
+	public DecodingEntity(HttpEntity entity, AtomicLong wireBytes, AtomicLong decodedBytes)
+	{
+		super(entity);
+		this.encoding = getEncoding(entity);
+		this.wireBytes = wireBytes;
+		this.decodedBytes = decodedBytes;
+	}
+
+	/**
+	 * Returns true if this entity's content is compressed, and is decompressed when read.
+	 */
+	public boolean isDecoding()
+	{
+		return (encoding != null);
+	}
+
+	@Override
+	public InputStream getContent() throws IOException
+	{
+		InputStream content = new CountingInputStream(wrappedEntity.getContent(), wireBytes);
+
+		if ("gzip".equals(encoding))
+			content = new GZIPInputStream(content);
+		else if ("deflate".equals(encoding))
+			content = inflate(content);
+
+		return new CountingInputStream(content, decodedBytes);
+	}
+
+	@Override
+	public long getContentLength()
+	{
+		return (isDecoding() ? -1 : super.getContentLength()); // the decoded length isn't known up front
+	}
+
+	@Override
+	public Header getContentEncoding()
+	{
+		return (isDecoding() ? null : super.getContentEncoding());
+	}
+
+	@Override
+	public boolean isRepeatable()
+	{
+		return false; // counted every time it is read
+	}
+
+	@Override
+	public void writeTo(OutputStream out) throws IOException
+	{
+		InputStream in = getContent();
+		try
+		{
+			byte[] buffer = new byte[4096];
+			int read;
+			while ((read = in.read(buffer)) >= 0)
+				out.write(buffer, 0, read);
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+
+	/**
+	 * Returns the content encoding of the given entity if it is one that can be decoded, or null otherwise.
+	 */
+	private static String getEncoding(HttpEntity entity)
+	{
+		Header header = entity.getContentEncoding();
+		if (header == null || header.getValue() == null)
+			return null;
+
+		String encoding = header.getValue().trim().toLowerCase();
+		if (encoding.equals("gzip") || encoding.equals("x-gzip"))
+			return "gzip";
+		if (encoding.equals("deflate"))
+			return "deflate";
+		return null;
+	}
+
+	/**
+	 * Inflates deflate content-encoded content. The encoding is meant to be zlib-wrapped deflate data, but some servers
+	 * send raw deflate data instead; the two are told apart by the zlib header.
+	 */
+	private static InputStream inflate(InputStream content) throws IOException
+	{
+		PushbackInputStream pushback = new PushbackInputStream(content, 2);
+
+		byte[] header = new byte[2];
+		int length = 0;
+		int read;
+		while (length < 2 && (read = pushback.read(header, length, 2 - length)) >= 0)
+			length += read;
+		pushback.unread(header, 0, length);
+
+		int cmf = header[0] & 0xFF;
+		int flg = header[1] & 0xFF;
+		boolean zlib = (length == 2 && (cmf & 0x0F) == 8 && ((cmf << 8) | flg) % 31 == 0);
+
+		final Inflater inflater = new Inflater(!zlib);
+		return new InflaterInputStream(pushback, inflater) {
+			@Override
+			public void close() throws IOException
+			{
+				try
+				{
+					super.close();
+				}
+				finally
+				{
+					inflater.end(); // not done by InflaterInputStream for inflaters it didn't create itself
+				}
+			}
+		};
+	}
+
+	/**
+	 * Adds the amount of bytes read through it to a counter.
+	 */
+	private static class CountingInputStream extends FilterInputStream
+	{
+		private final AtomicLong counter;
+
+		CountingInputStream(InputStream in, AtomicLong counter)
+		{
+			super(in);
+			this.counter = counter;
+		}
+
+		@Override
+		public int read() throws IOException
+		{
+			int b = super.read();
+			if (b >= 0)
+				counter.incrementAndGet();
+			return b;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException
+		{
+			int read = super.read(buffer, offset, length);
+			if (read > 0)
+				counter.addAndGet(read);
+			return read;
+		}
+
+		@Override
+		public long skip(long n) throws IOException
+		{
+			long skipped = super.skip(n);
+			if (skipped > 0)
+				counter.addAndGet(skipped);
+			return skipped;
+		}
+
+		@Override
+		public boolean markSupported()
+		{
+			return false;
+		}
+	}
+}
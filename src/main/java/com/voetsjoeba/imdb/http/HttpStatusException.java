@@ -0,0 +1,62 @@
+package com.voetsjoeba.imdb.http;
+
+import org.apache.http.HttpException;
+
+/**
+ * Indicates that a request returned a status code other than 200 OK.
+ *
+ * @author Jeroen De Ridder
+ */
+@SuppressWarnings("serial")
+public class HttpStatusException extends HttpException
+{
+	private final int statusCode;
+	private final long retryAfter;
+
+	public HttpStatusException(int statusCode, String message)
+	{
+		this(statusCode, message, -1);
+	}
+
+	/**
+	 * @param retryAfter The amount of milliseconds the server asked to wait before retrying (through its Retry-After
+	 *        header), or -1 if it didn't say.
+	 */
+	public HttpStatusException(int statusCode, String message, long retryAfter)
+	{
+		super(message);
+		this.statusCode = statusCode;
+		this.retryAfter = retryAfter;
+	}
+
+	public int getStatusCode()
+	{
+		return statusCode;
+	}
+
+	/**
+	 * Returns the amount of milliseconds the server asked to wait before retrying, or -1 if it didn't say.
+	 */
+	public long getRetryAfter()
+	{
+		return retryAfter;
+	}
+
+	/**
+	 * Returns true if the status code indicates a failure on the server's side (5xx) or throttling (429), which might
+	 * not occur again when retrying the request later.
+	 */
+	public boolean isTransient()
+	{
+		return (statusCode >= 500 || statusCode == 429);
+	}
+
+	/**
+	 * Returns true if the status code indicates that the server is overloaded or is limiting the rate of requests it
+	 * accepts, i.e. 429 Too Many Requests or 503 Service Unavailable.
+	 */
+	public boolean isThrottled()
+	{
+		return (statusCode == 429 || statusCode == 503);
+	}
+}
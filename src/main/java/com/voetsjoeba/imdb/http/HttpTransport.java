@@ -0,0 +1,504 @@
+package com.voetsjoeba.imdb.http;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.imageio.ImageIO;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.StatusLine;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.protocol.RequestAddCookies;
+import org.apache.http.client.protocol.ResponseProcessCookies;
+import org.apache.http.conn.params.ConnManagerParams;
+import org.apache.http.conn.params.ConnPerRouteBean;
+import org.apache.http.conn.scheme.PlainSocketFactory;
+import org.apache.http.conn.scheme.Scheme;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.conn.ssl.SSLSocketFactory;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
+import org.apache.http.impl.cookie.DateParseException;
+import org.apache.http.impl.cookie.DateUtils;
+import org.apache.http.params.BasicHttpParams;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+import org.apache.http.params.HttpProtocolParams;
+import org.apache.http.protocol.HTTP;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.voetsjoeba.imdb.util.HttpUtils;
+
+/**
+ * Long-lived HTTP transport backed by a single pooled, keep-alive {@link HttpClient}. All page and image fetches
+ * made through the same transport share one connection pool, so consecutive requests to IMDb reuse open connections
+ * instead of performing a new TCP handshake each time.
+ *
+ * <p>Responses are requested gzip or deflate compressed, and are decompressed while they are being read; see
+ * {@link #getTransferStatistics()} for how much that saves.</p>
+ *
+ * <p>Instances are thread-safe and are meant to be shared; use {@link #getDefault()} unless you need a pool with
+ * different limits. Idle connections are evicted by a background daemon thread, which is stopped by {@link #shutdown()}.</p>
+ *
+ * @author Jeroen De Ridder
+ */
+@ThreadSafe
+public class HttpTransport implements Transport
+{
+	private static final Logger log = LoggerFactory.getLogger(HttpTransport.class);
+
+	public static final int DEFAULT_MAX_TOTAL_CONNECTIONS = 20;
+	public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 10;
+	public static final long DEFAULT_IDLE_TIMEOUT = 30000; // ms
+	public static final int DEFAULT_CONNECT_TIMEOUT = 10000; // ms
+	public static final int DEFAULT_SOCKET_TIMEOUT = 30000; // ms
+	public static final long DEFAULT_POOL_TIMEOUT = 10000; // ms
+
+	private static final Set<String> imageContentTypes = Collections.unmodifiableSet(new HashSet<String>(Arrays.asList("image/jpg", "image/jpeg", "image/png", "image/gif")));
+
+	private static HttpTransport defaultTransport;
+
+	private final ThreadSafeClientConnManager connectionManager;
+	private final DefaultHttpClient httpClient;
+	private final IdleConnectionEvictor idleConnectionEvictor;
+
+	private final AtomicLong wireBytes = new AtomicLong();
+	private final AtomicLong decodedBytes = new AtomicLong();
+
+	/**
+	 * Creates a new transport with the default pool limits and timeouts.
+	 */
+	public HttpTransport()
+	{
+		this(DEFAULT_MAX_TOTAL_CONNECTIONS, DEFAULT_MAX_CONNECTIONS_PER_ROUTE, DEFAULT_IDLE_TIMEOUT);
+	}
+
+	/**
+	 * Creates a new transport with the default timeouts.
+	 *
+	 * @param maxTotalConnections The maximum amount of open connections in the pool, across all hosts.
+	 * @param maxConnectionsPerRoute The maximum amount of open connections to a single host.
+	 * @param idleTimeout The amount of milliseconds after which an unused pooled connection is closed.
+	 */
+	public HttpTransport(int maxTotalConnections, int maxConnectionsPerRoute, long idleTimeout)
+	{
+		this(maxTotalConnections, maxConnectionsPerRoute, idleTimeout, DEFAULT_CONNECT_TIMEOUT, DEFAULT_SOCKET_TIMEOUT, DEFAULT_POOL_TIMEOUT);
+	}
+
+	/**
+	 * Creates a new transport. Since the connections are shared by all callers, each wait is bounded by a timeout, so that
+	 * a stalled server or an exhausted pool fails fetches rather than blocking their threads indefinitely.
+	 *
+	 * @param maxTotalConnections The maximum amount of open connections in the pool, across all hosts.
+	 * @param maxConnectionsPerRoute The maximum amount of open connections to a single host.
+	 * @param idleTimeout The amount of milliseconds after which an unused pooled connection is closed.
+	 * @param connectTimeout The amount of milliseconds to wait for a connection to be established.
+	 * @param socketTimeout The amount of milliseconds to wait for data on an open connection (SO_TIMEOUT).
+	 * @param poolTimeout The amount of milliseconds to wait for a connection from the pool when all are in use.
+	 */
+	public HttpTransport(int maxTotalConnections, int maxConnectionsPerRoute, long idleTimeout, int connectTimeout, int socketTimeout, long poolTimeout)
+	{
+		if (maxTotalConnections < 1 || maxConnectionsPerRoute < 1)
+			throw new IllegalArgumentException("Connection limits must be positive");
+		if (idleTimeout <= 0)
+			throw new IllegalArgumentException("Idle timeout must be positive");
+		if (connectTimeout <= 0 || socketTimeout <= 0 || poolTimeout <= 0)
+			throw new IllegalArgumentException("Timeouts must be positive");
+
+		HttpParams params = new BasicHttpParams();
+		HttpProtocolParams.setVersion(params, HttpVersion.HTTP_1_1);
+		HttpProtocolParams.setContentCharset(params, HTTP.DEFAULT_CONTENT_CHARSET);
+		HttpConnectionParams.setStaleCheckingEnabled(params, true);
+		HttpConnectionParams.setConnectionTimeout(params, connectTimeout);
+		HttpConnectionParams.setSoTimeout(params, socketTimeout);
+		ConnManagerParams.setTimeout(params, poolTimeout);
+		ConnManagerParams.setMaxTotalConnections(params, maxTotalConnections);
+		ConnManagerParams.setMaxConnectionsPerRoute(params, new ConnPerRouteBean(maxConnectionsPerRoute));
+
+		SchemeRegistry schemeRegistry = new SchemeRegistry();
+		schemeRegistry.register(new Scheme("http", PlainSocketFactory.getSocketFactory(), 80));
+		schemeRegistry.register(new Scheme("https", SSLSocketFactory.getSocketFactory(), 443));
+
+		connectionManager = new ThreadSafeClientConnManager(params, schemeRegistry);
+
+		// we don't bother with cookies; see HttpUtils#getNoCookiesHttpClient
+		httpClient = new DefaultHttpClient(connectionManager, params);
+		httpClient.removeRequestInterceptorByClass(RequestAddCookies.class);
+		httpClient.removeResponseInterceptorByClass(ResponseProcessCookies.class);
+
+		// ask for compressed responses, and decompress them while they're read
+		httpClient.addRequestInterceptor(new HttpRequestInterceptor() {
+			public void process(HttpRequest request, HttpContext context)
+			{
+				if (!request.containsHeader("Accept-Encoding"))
+					request.addHeader("Accept-Encoding", "gzip, deflate");
+			}
+		});
+		httpClient.addResponseInterceptor(new HttpResponseInterceptor() {
+			public void process(HttpResponse response, HttpContext context)
+			{
+				HttpEntity entity = response.getEntity();
+				if (entity != null)
+					response.setEntity(new DecodingEntity(entity, wireBytes, decodedBytes));
+			}
+		});
+
+		idleConnectionEvictor = new IdleConnectionEvictor(idleTimeout);
+		idleConnectionEvictor.start();
+	}
+
+	/**
+	 * Returns the shared transport instance used when no transport is explicitly provided.
+	 */
+	public static synchronized HttpTransport getDefault()
+	{
+		if (defaultTransport == null)
+			defaultTransport = new HttpTransport();
+		return defaultTransport;
+	}
+
+	/**
+	 * Fetches a web page over HTTP via GET and returns it as a {@link String}.
+	 *
+	 * @param url The URL of the page to fetch.
+	 */
+	public String getPage(String url) throws IOException, HttpException
+	{
+		HttpResponse response = execute(url);
+		HttpEntity responseContent = response.getEntity();
+
+		try
+		{
+			// get the response as a properly character-decoded string
+			String responseString = EntityUtils.toString(responseContent);
+			log.trace(responseString);
+			return responseString;
+		}
+		finally
+		{
+			// releases the connection back to the pool
+			responseContent.consumeContent();
+		}
+	}
+
+	/**
+	 * Fetches a web page and parses it straight from the response stream, without first reading it into a {@link String}.
+	 * The character set is taken from the response's Content-Type header if present; otherwise it is detected from the
+	 * page itself.
+	 *
+	 * @param url The URL of the page to fetch.
+	 */
+	public Document getDocument(String url) throws IOException, HttpException
+	{
+		HttpResponse response = execute(url);
+		HttpEntity responseContent = response.getEntity();
+
+		try
+		{
+			String charset = EntityUtils.getContentCharSet(responseContent); // null lets jsoup detect it
+			return Jsoup.parse(responseContent.getContent(), charset, HttpUtils.normalizeUrl(url));
+		}
+		finally
+		{
+			responseContent.consumeContent();
+		}
+	}
+
+	/**
+	 * Fetches a web page with a conditional GET request, which the server answers with 304 Not Modified instead of the page
+	 * if it hasn't changed since the given validators were obtained.
+	 *
+	 * @param url The URL of the page to fetch.
+	 * @param validators The validators to make the request with.
+	 */
+	public ConditionalPage getDocument(String url, PageValidators validators) throws IOException, HttpException
+	{
+		String normalizedUrl = HttpUtils.normalizeUrl(url);
+		HttpResponse response = executeConditional(normalizedUrl, validators);
+		HttpEntity responseContent = response.getEntity();
+
+		try
+		{
+			if (response.getStatusLine().getStatusCode() == HttpStatus.SC_NOT_MODIFIED)
+			{
+				// the server may or may not repeat the validators in a 304 response
+				PageValidators newValidators = getValidators(response);
+				return ConditionalPage.notModified(newValidators.isEmpty() ? validators : newValidators);
+			}
+
+			String charset = EntityUtils.getContentCharSet(responseContent); // null lets jsoup detect it
+			Document document = Jsoup.parse(responseContent.getContent(), charset, normalizedUrl);
+			return ConditionalPage.modified(document, getValidators(response));
+		}
+		finally
+		{
+			if (responseContent != null)
+				responseContent.consumeContent();
+		}
+	}
+
+	/**
+	 * Fetches a web page with a conditional GET request like {@link #getDocument(String, PageValidators)}, but returns it
+	 * as a character-decoded {@link String} rather than parsing it.
+	 *
+	 * @param url The URL of the page to fetch.
+	 * @param validators The validators to make the request with.
+	 */
+	public ConditionalPage getPage(String url, PageValidators validators) throws IOException, HttpException
+	{
+		HttpResponse response = executeConditional(HttpUtils.normalizeUrl(url), validators);
+		HttpEntity responseContent = response.getEntity();
+
+		try
+		{
+			if (response.getStatusLine().getStatusCode() == HttpStatus.SC_NOT_MODIFIED)
+			{
+				PageValidators newValidators = getValidators(response);
+				return ConditionalPage.notModified(newValidators.isEmpty() ? validators : newValidators);
+			}
+
+			return ConditionalPage.modified(EntityUtils.toString(responseContent), getValidators(response));
+		}
+		finally
+		{
+			if (responseContent != null)
+				responseContent.consumeContent();
+		}
+	}
+
+	/**
+	 * Executes a conditional GET request for the given URL, made with the given validators. Unlike other requests, a 304
+	 * Not Modified response is returned rather than treated as a failure.
+	 */
+	private HttpResponse executeConditional(String normalizedUrl, PageValidators validators) throws IOException, HttpException
+	{
+		HttpGet request = new HttpGet(normalizedUrl);
+		if (validators != null && validators.getEtag() != null)
+			request.addHeader("If-None-Match", validators.getEtag());
+		if (validators != null && validators.getLastModified() != null)
+			request.addHeader("If-Modified-Since", validators.getLastModified());
+
+		return execute(request, true);
+	}
+
+	/**
+	 * Fetches an image from a URL.
+	 *
+	 * @param url the URL to fetch. Must not be null.
+	 */
+	public BufferedImage fetchImage(String url) throws IOException, HttpException
+	{
+		HttpResponse response = execute(url);
+		HttpEntity responseContent = response.getEntity();
+
+		try
+		{
+			checkImageContentType(url, responseContent);
+			InputStream imageStream = responseContent.getContent();
+			return ImageIO.read(imageStream);
+		}
+		finally
+		{
+			responseContent.consumeContent();
+		}
+	}
+
+	/**
+	 * Fetches an image from a URL without decoding it.
+	 *
+	 * @param url the URL to fetch. Must not be null.
+	 */
+	public byte[] getImageBytes(String url) throws IOException, HttpException
+	{
+		HttpResponse response = execute(url);
+		HttpEntity responseContent = response.getEntity();
+
+		try
+		{
+			checkImageContentType(url, responseContent);
+			return EntityUtils.toByteArray(responseContent);
+		}
+		finally
+		{
+			responseContent.consumeContent();
+		}
+	}
+
+	private void checkImageContentType(String url, HttpEntity responseContent) throws HttpException
+	{
+		String responseContentType = responseContent.getContentType().getValue();
+		log.debug("Image fetch request " + url + " returned result of MIME type " + responseContentType);
+
+		if (!imageContentTypes.contains(responseContentType.toLowerCase()))
+			throw new HttpException("Response returned unknown MIME type content (returned: " + responseContentType + ", expected: one of " + imageContentTypes + ")");
+	}
+
+	/**
+	 * Returns the pooled {@link HttpClient} backing this transport. Requests executed on it directly must consume their
+	 * response entity, or the connection will not be returned to the pool.
+	 */
+	public HttpClient getHttpClient()
+	{
+		return httpClient;
+	}
+
+	/**
+	 * Returns the amount of response content read through this transport so far, as received and as decoded.
+	 */
+	public TransferStatistics getTransferStatistics()
+	{
+		return new TransferStatistics(wireBytes.get(), decodedBytes.get());
+	}
+
+	/**
+	 * Closes all pooled connections and stops the idle connection evictor. The transport cannot be used afterwards.
+	 */
+	public void shutdown()
+	{
+		idleConnectionEvictor.shutdown();
+		connectionManager.shutdown();
+	}
+
+	/**
+	 * Executes a GET request for the given URL and makes sure it returned a 200 OK response.
+	 * 
+	 * @throws HttpStatusException if the response had any other status code
+	 */
+	protected HttpResponse execute(String url) throws IOException, HttpException
+	{
+		return execute(new HttpGet(HttpUtils.normalizeUrl(url)), false);
+	}
+
+	/**
+	 * Executes a GET request and makes sure it returned a 200 OK response, or a 304 Not Modified response if allowed.
+	 * 
+	 * @throws HttpStatusException if the response had any other status code
+	 */
+	protected HttpResponse execute(HttpGet request, boolean notModifiedAllowed) throws IOException, HttpException
+	{
+		HttpResponse response = httpClient.execute(request);
+
+		StatusLine responseStatusLine = response.getStatusLine();
+		int statusCode = responseStatusLine.getStatusCode();
+		if (statusCode != HttpStatus.SC_OK && !(notModifiedAllowed && statusCode == HttpStatus.SC_NOT_MODIFIED))
+		{
+			HttpEntity responseContent = response.getEntity();
+			if (responseContent != null)
+				responseContent.consumeContent();
+
+			throw new HttpStatusException(responseStatusLine.getStatusCode(), "Response returned status code that is not 200 OK (returned: " + responseStatusLine.getStatusCode() + " " + responseStatusLine.getReasonPhrase() + ")", getRetryAfter(response));
+		}
+
+		return response;
+	}
+
+	/**
+	 * Returns the validators in the ETag and Last-Modified headers of the given response.
+	 */
+	protected static PageValidators getValidators(HttpResponse response)
+	{
+		Header etag = response.getFirstHeader("ETag");
+		Header lastModified = response.getFirstHeader("Last-Modified");
+		if (etag == null && lastModified == null)
+			return PageValidators.NONE;
+
+		return new PageValidators(etag == null ? null : etag.getValue(), lastModified == null ? null : lastModified.getValue());
+	}
+
+	/**
+	 * Returns the amount of milliseconds to wait according to the response's Retry-After header, which holds either an
+	 * amount of seconds or a date. Returns -1 if the header is absent or invalid.
+	 */
+	protected static long getRetryAfter(HttpResponse response)
+	{
+		Header header = response.getFirstHeader("Retry-After");
+		if (header == null || header.getValue() == null)
+			return -1;
+
+		String value = header.getValue().trim();
+		try
+		{
+			return Math.max(0, Long.parseLong(value) * 1000);
+		}
+		catch (NumberFormatException nfex)
+		{
+			// not an amount of seconds, try a date
+		}
+
+		try
+		{
+			return Math.max(0, DateUtils.parseDate(value).getTime() - System.currentTimeMillis());
+		}
+		catch (DateParseException dpex)
+		{
+			log.debug("Ignoring invalid Retry-After header: {}", value);
+			return -1;
+		}
+	}
+
+	/**
+	 * Daemon thread that periodically closes expired connections and connections that have been idle for too long, so
+	 * that the pool doesn't hand out connections the server has already dropped.
+	 */
+	private class IdleConnectionEvictor extends Thread
+	{
+		private final long idleTimeout;
+		private volatile boolean shutdown;
+
+		public IdleConnectionEvictor(long idleTimeout)
+		{
+			super("imdb-idle-connection-evictor");
+			this.idleTimeout = idleTimeout;
+			setDaemon(true);
+		}
+
+		@Override
+		public void run()
+		{
+			while (!shutdown)
+			{
+				try
+				{
+					Thread.sleep(Math.max(1000, idleTimeout / 2));
+				}
+				catch (InterruptedException iex)
+				{
+					continue; // re-check shutdown flag
+				}
+
+				connectionManager.closeExpiredConnections();
+				connectionManager.closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+			}
+		}
+
+		public void shutdown()
+		{
+			shutdown = true;
+			interrupt();
+		}
+	}
+
+}
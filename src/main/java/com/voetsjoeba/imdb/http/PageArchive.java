@@ -0,0 +1,290 @@
+package com.voetsjoeba.imdb.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only archive of fetched pages, stored compressed in a single file and keyed by URL. Archiving the same URL
+ * again adds a new record; lookups return the most recent one.
+ *
+ * <p>An index of the records is built in memory when the archive is opened. If the last record was only partially
+ * written (e.g. because the process was killed halfway through an append), it is discarded.</p>
+ *
+ * @author Jeroen De Ridder
+ * @see ArchivingTransport
+ * @see ReplayTransport
+ */
+@ThreadSafe
+public class PageArchive
+{
+	private static final Logger log = LoggerFactory.getLogger(PageArchive.class);
+
+	private static final int MAGIC = 0x494d4442; // "IMDB"
+	private static final int FORMAT_VERSION = 1;
+	private static final String CHARSET = "UTF-8";
+
+	private final File file;
+
+	@GuardedBy("this") private final RandomAccessFile raf;
+	@GuardedBy("this") private final Map<String, Record> index = new HashMap<String, Record>();
+
+	/**
+	 * Opens the archive in the given file, creating it if it does not exist yet.
+	 */
+	public PageArchive(File file) throws IOException
+	{
+		this.file = file;
+		raf = new RandomAccessFile(file, "rw");
+
+		try
+		{
+			if (raf.length() == 0)
+			{
+				raf.writeInt(MAGIC);
+				raf.writeInt(FORMAT_VERSION);
+			}
+			else
+			{
+				if (raf.readInt() != MAGIC)
+					throw new IOException(file + " is not a page archive");
+				int version = raf.readInt();
+				if (version != FORMAT_VERSION)
+					throw new IOException("Unsupported page archive format version " + version + " in " + file);
+
+				readIndex();
+			}
+		}
+		catch (IOException ioex)
+		{
+			raf.close();
+			throw ioex;
+		}
+	}
+
+	/**
+	 * Adds a page to the archive, timestamped with the current time.
+	 */
+	public void append(String url, String content) throws IOException
+	{
+		append(url, content, System.currentTimeMillis());
+	}
+
+	/**
+	 * Adds a page to the archive.
+	 *
+	 * @param url The URL the page was fetched from.
+	 * @param content The page contents.
+	 * @param fetchedAt The time the page was fetched at, in milliseconds since the epoch.
+	 */
+	public void append(String url, String content, long fetchedAt) throws IOException
+	{
+		if (url == null || content == null)
+			throw new IllegalArgumentException("URL and content must not be null");
+
+		// compress outside of the lock
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		DeflaterOutputStream deflaterOut = new DeflaterOutputStream(compressed, new Deflater(Deflater.BEST_SPEED));
+		byte[] contentBytes = content.getBytes(CHARSET);
+		deflaterOut.write(contentBytes);
+		deflaterOut.close();
+
+		ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+		DataOutputStream recordOut = new DataOutputStream(recordBytes);
+		recordOut.writeUTF(url);
+		recordOut.writeLong(fetchedAt);
+		recordOut.writeInt(contentBytes.length);
+		recordOut.writeInt(compressed.size());
+		int headerLength = recordOut.size();
+		compressed.writeTo(recordOut);
+		recordOut.flush();
+
+		synchronized (this)
+		{
+			long recordOffset = raf.length();
+			raf.seek(recordOffset);
+			raf.write(recordBytes.toByteArray());
+
+			index.put(url, new Record(recordOffset + headerLength, compressed.size(), contentBytes.length, fetchedAt));
+		}
+	}
+
+	/**
+	 * Returns the most recently archived page for the given URL, or null if the URL was never archived.
+	 */
+	public ArchivedPage get(String url) throws IOException
+	{
+		byte[] compressed;
+		Record record;
+
+		synchronized (this)
+		{
+			record = index.get(url);
+			if (record == null)
+				return null;
+
+			compressed = new byte[record.compressedLength];
+			raf.seek(record.offset);
+			raf.readFully(compressed);
+		}
+
+		Inflater inflater = new Inflater();
+		try
+		{
+			inflater.setInput(compressed);
+			byte[] content = new byte[record.length];
+			int inflated = 0;
+			while (inflated < content.length && !inflater.finished())
+				inflated += inflater.inflate(content, inflated, content.length - inflated);
+
+			return new ArchivedPage(url, record.fetchedAt, new String(content, 0, inflated, CHARSET));
+		}
+		catch (DataFormatException dfex)
+		{
+			throw new IOException("Corrupt archive record for " + url + " in " + file + ": " + dfex.getMessage());
+		}
+		finally
+		{
+			inflater.end();
+		}
+	}
+
+	/**
+	 * Returns true if the archive holds a page for the given URL.
+	 */
+	public synchronized boolean contains(String url)
+	{
+		return index.containsKey(url);
+	}
+
+	/**
+	 * Returns the URLs of all archived pages.
+	 */
+	public synchronized Set<String> getUrls()
+	{
+		return Collections.unmodifiableSet(new HashSet<String>(index.keySet()));
+	}
+
+	/**
+	 * Returns the amount of distinct URLs in the archive.
+	 */
+	public synchronized int size()
+	{
+		return index.size();
+	}
+
+	/**
+	 * Flushes all appended records to disk and closes the archive.
+	 */
+	public synchronized void close() throws IOException
+	{
+		raf.getFD().sync();
+		raf.close();
+	}
+
+	/**
+	 * Scans all records following the file header and indexes them. A truncated record at the end of the file is cut off.
+	 */
+	@GuardedBy("this")
+	private void readIndex() throws IOException
+	{
+		long validLength = raf.getFilePointer();
+
+		try
+		{
+			while (validLength < raf.length())
+			{
+				String url = raf.readUTF();
+				long fetchedAt = raf.readLong();
+				int length = raf.readInt();
+				int compressedLength = raf.readInt();
+				long offset = raf.getFilePointer();
+
+				if (length < 0 || compressedLength < 0 || offset + compressedLength > raf.length())
+					throw new EOFException();
+
+				raf.seek(offset + compressedLength);
+				index.put(url, new Record(offset, compressedLength, length, fetchedAt));
+				validLength = raf.getFilePointer();
+			}
+		}
+		catch (EOFException eofex)
+		{
+			log.warn("Discarding truncated record at the end of page archive {}", file);
+			raf.setLength(validLength);
+		}
+	}
+
+	private static class Record
+	{
+		final long offset;
+		final int compressedLength;
+		final int length;
+		final long fetchedAt;
+
+		Record(long offset, int compressedLength, int length, long fetchedAt)
+		{
+			this.offset = offset;
+			this.compressedLength = compressedLength;
+			this.length = length;
+			this.fetchedAt = fetchedAt;
+		}
+	}
+
+	/**
+	 * A page read back from a {@link PageArchive}.
+	 *
+	 * @author Jeroen De Ridder
+	 */
+	@Immutable
+	public static class ArchivedPage
+	{
+		private final String url;
+		private final long fetchedAt;
+		private final String content;
+
+		public ArchivedPage(String url, long fetchedAt, String content)
+		{
+			this.url = url;
+			this.fetchedAt = fetchedAt;
+			this.content = content;
+		}
+
+		public String getUrl()
+		{
+			return url;
+		}
+
+		/**
+		 * Returns the time the page was fetched at, in milliseconds since the epoch.
+		 */
+		public long getFetchedAt()
+		{
+			return fetchedAt;
+		}
+
+		public String getContent()
+		{
+			return content;
+		}
+	}
+}
@@ -0,0 +1,60 @@
+package com.voetsjoeba.imdb.http;
+
+import java.io.Serializable;
+
+import net.jcip.annotations.Immutable;
+
+/**
+ * The validators a server returned along with a page (its ETag and Last-Modified headers), with which a later request
+ * for the same page can ask the server to only send it if it has changed since.
+ *
+ * @author Jeroen De Ridder
+ * @see Transport#getDocument(String, PageValidators)
+ */
+@Immutable
+public class PageValidators implements Serializable
+{
+	static final long serialVersionUID = 1L;
+
+	/**
+	 * Validators for a page the server returned none for.
+	 */
+	public static final PageValidators NONE = new PageValidators(null, null);
+
+	private final String etag;
+	private final String lastModified;
+
+	/**
+	 * @param etag The value of the ETag header, or null if there was none.
+	 * @param lastModified The value of the Last-Modified header, or null if there was none.
+	 */
+	public PageValidators(String etag, String lastModified)
+	{
+		this.etag = etag;
+		this.lastModified = lastModified;
+	}
+
+	public String getEtag()
+	{
+		return etag;
+	}
+
+	public String getLastModified()
+	{
+		return lastModified;
+	}
+
+	/**
+	 * Returns true if there are no validators, i.e. a conditional request can't be made with these.
+	 */
+	public boolean isEmpty()
+	{
+		return (etag == null && lastModified == null);
+	}
+
+	@Override
+	public String toString()
+	{
+		return "etag=" + etag + ", lastModified=" + lastModified;
+	}
+}
@@ -0,0 +1,250 @@
+package com.voetsjoeba.imdb.http;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Token bucket rate limiter with a separate budget per host. Each host's bucket holds up to a burst amount of tokens and
+ * is refilled at a steady rate; every request takes one token, and waits for one if the bucket is empty.
+ *
+ * <p>The rate adapts to how the host responds. Every request reported as throttled (e.g. a 503 response) halves the
+ * host's rate, down to a sixteenth of its limit; every successful one raises it by a twentieth of its limit again, until
+ * the limit is reached. Requests of {@link RequestPriority#BACKGROUND} priority only get a token while no
+ * {@link RequestPriority#INTERACTIVE} requests to the same host are waiting for one.</p>
+ *
+ * <p>A single limiter is meant to be shared by everything that fetches from the same hosts, typically through
+ * {@link ThrottlingTransport}s.</p>
+ *
+ * @author Jeroen De Ridder
+ */
+@ThreadSafe
+public class RateLimiter
+{
+	private static final Logger log = LoggerFactory.getLogger(RateLimiter.class);
+
+	public static final double DEFAULT_RATE = 2.0; // requests per second
+	public static final int DEFAULT_BURST = 4;
+
+	private static final double BACKOFF_FACTOR = 0.5;
+	private static final double MIN_RATE_FRACTION = 1.0 / 16;
+	private static final double RECOVERY_FRACTION = 1.0 / 20;
+
+	private final double defaultRate;
+	private final int defaultBurst;
+	private final ConcurrentMap<String, Bucket> buckets = new ConcurrentHashMap<String, Bucket>();
+
+	/**
+	 * Creates a limiter that allows {@link #DEFAULT_RATE} requests per second to each host, in bursts of up to
+	 * {@link #DEFAULT_BURST}.
+	 */
+	public RateLimiter()
+	{
+		this(DEFAULT_RATE, DEFAULT_BURST);
+	}
+
+	/**
+	 * Creates a new limiter.
+	 *
+	 * @param rate The maximum amount of requests per second to each host for which no separate limit is set.
+	 * @param burst The maximum amount of requests to each such host that may be made at once after a quiet period.
+	 */
+	public RateLimiter(double rate, int burst)
+	{
+		checkLimit(rate, burst);
+
+		this.defaultRate = rate;
+		this.defaultBurst = burst;
+	}
+
+	/**
+	 * Sets a separate limit for the given host, replacing the default one.
+	 *
+	 * @param host The host name, e.g. <tt>ia.media-imdb.com</tt>.
+	 * @param rate The maximum amount of requests per second to the host.
+	 * @param burst The maximum amount of requests to the host that may be made at once after a quiet period.
+	 */
+	public void setHostLimit(String host, double rate, int burst)
+	{
+		checkLimit(rate, burst);
+
+		Bucket bucket = getBucket(host);
+		synchronized (bucket)
+		{
+			bucket.refill(nanoTime());
+			bucket.limit = rate;
+			bucket.rate = rate;
+			bucket.burst = burst;
+			bucket.tokens = Math.min(bucket.tokens, burst);
+			bucket.notifyAll();
+		}
+	}
+
+	/**
+	 * Takes a token for a request to the given host, waiting for one if necessary.
+	 *
+	 * @throws InterruptedException if the calling thread was interrupted while waiting.
+	 */
+	public void acquire(String host, RequestPriority priority) throws InterruptedException
+	{
+		boolean interactive = (priority == RequestPriority.INTERACTIVE);
+		Bucket bucket = getBucket(host);
+
+		synchronized (bucket)
+		{
+			if (interactive)
+				bucket.interactiveWaiting++;
+
+			try
+			{
+				while (!bucket.take(nanoTime(), interactive))
+				{
+					// woken early when an interactive request has been let through, or when the limit changes
+					long waitNanos = (long) (Math.max(1, 1 - bucket.tokens) * TimeUnit.SECONDS.toNanos(1) / bucket.rate);
+					TimeUnit.NANOSECONDS.timedWait(bucket, Math.max(waitNanos, TimeUnit.MILLISECONDS.toNanos(1)));
+				}
+			}
+			finally
+			{
+				if (interactive)
+				{
+					bucket.interactiveWaiting--;
+					bucket.notifyAll();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Takes a token for a request to the given host if one is available right away.
+	 *
+	 * @return true if a token was taken, false if the request would have to wait.
+	 */
+	public boolean tryAcquire(String host, RequestPriority priority)
+	{
+		Bucket bucket = getBucket(host);
+		synchronized (bucket)
+		{
+			return bucket.take(nanoTime(), priority == RequestPriority.INTERACTIVE);
+		}
+	}
+
+	/**
+	 * Reports that a request to the given host was answered normally, which gradually restores a reduced rate.
+	 */
+	public void reportSuccess(String host)
+	{
+		Bucket bucket = getBucket(host);
+		synchronized (bucket)
+		{
+			if (bucket.rate < bucket.limit)
+			{
+				bucket.refill(nanoTime());
+				bucket.rate = Math.min(bucket.limit, bucket.rate + bucket.limit * RECOVERY_FRACTION);
+			}
+		}
+	}
+
+	/**
+	 * Reports that a request to the given host was throttled or failed because the host is overloaded. Halves the rate
+	 * for the host and empties its bucket.
+	 */
+	public void reportThrottled(String host)
+	{
+		Bucket bucket = getBucket(host);
+		synchronized (bucket)
+		{
+			bucket.refill(nanoTime());
+			bucket.rate = Math.max(bucket.limit * MIN_RATE_FRACTION, bucket.rate * BACKOFF_FACTOR);
+			bucket.tokens = Math.min(bucket.tokens, 0);
+
+			log.debug("Slowing down requests to {} to {} per second", host, bucket.rate);
+		}
+	}
+
+	/**
+	 * Returns the current rate, in requests per second, at which requests to the given host are let through.
+	 */
+	public double getRate(String host)
+	{
+		Bucket bucket = getBucket(host);
+		synchronized (bucket)
+		{
+			return bucket.rate;
+		}
+	}
+
+	/**
+	 * Returns the current time in nanoseconds; used to refill buckets.
+	 */
+	protected long nanoTime()
+	{
+		return System.nanoTime();
+	}
+
+	private Bucket getBucket(String host)
+	{
+		String key = (host == null ? "" : host.toLowerCase());
+
+		Bucket bucket = buckets.get(key);
+		if (bucket == null)
+		{
+			Bucket newBucket = new Bucket(defaultRate, defaultBurst, nanoTime());
+			bucket = buckets.putIfAbsent(key, newBucket);
+			if (bucket == null)
+				bucket = newBucket;
+		}
+		return bucket;
+	}
+
+	private static void checkLimit(double rate, int burst)
+	{
+		if (!(rate > 0) || Double.isInfinite(rate))
+			throw new IllegalArgumentException("Rate must be positive");
+		if (burst < 1)
+			throw new IllegalArgumentException("Burst must be positive");
+	}
+
+	private static class Bucket
+	{
+		@GuardedBy("this") double limit;
+		@GuardedBy("this") double rate;
+		@GuardedBy("this") int burst;
+		@GuardedBy("this") double tokens;
+		@GuardedBy("this") long refilledAt;
+		@GuardedBy("this") int interactiveWaiting;
+
+		Bucket(double limit, int burst, long now)
+		{
+			this.limit = limit;
+			this.rate = limit;
+			this.burst = burst;
+			this.tokens = burst;
+			this.refilledAt = now;
+		}
+
+		@GuardedBy("this")
+		void refill(long now)
+		{
+			tokens = Math.min(burst, tokens + (now - refilledAt) * rate / TimeUnit.SECONDS.toNanos(1));
+			refilledAt = now;
+		}
+
+		@GuardedBy("this")
+		boolean take(long now, boolean interactive)
+		{
+			refill(now);
+			if (tokens < 1 || (!interactive && interactiveWaiting > 0))
+				return false;
+
+			tokens -= 1;
+			return true;
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package com.voetsjoeba.imdb.http;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.apache.http.HttpException;
+import org.jsoup.nodes.Document;
+
+import com.voetsjoeba.imdb.http.PageArchive.ArchivedPage;
+import com.voetsjoeba.imdb.util.HttpUtils;
+
+/**
+ * {@link Transport} that serves pages from a {@link PageArchive} instead of fetching them over the network. Pages that 
+ * are not in the archive fail like an unavailable page would. Since images are not archived, image fetches always fail.
+ * 
+ * @author Jeroen De Ridder
+ * @see ArchivingTransport
+ */
+@ThreadSafe
+public class ReplayTransport implements Transport
+{
+	private final PageArchive archive;
+	
+	public ReplayTransport(PageArchive archive)
+	{
+		if (archive == null)
+			throw new IllegalArgumentException("Archive must not be null");
+		
+		this.archive = archive;
+	}
+	
+	public String getPage(String url) throws IOException, HttpException
+	{
+		ArchivedPage page = archive.get(HttpUtils.normalizeUrl(url));
+		if (page == null)
+			throw new HttpException("Page is not in the archive: " + url);
+		
+		return page.getContent();
+	}
+	
+	public Document getDocument(String url) throws IOException, HttpException
+	{
+		return HttpUtils.parsePage(getPage(url));
+	}
+	
+	/**
+	 * Serves a page from the archive. The archive doesn't keep validators, so the page is always returned.
+	 */
+	public ConditionalPage getDocument(String url, PageValidators validators) throws IOException, HttpException
+	{
+		return ConditionalPage.modified(getDocument(url), PageValidators.NONE);
+	}
+	
+	/**
+	 * Serves a page from the archive. The archive doesn't keep validators, so the page is always returned.
+	 */
+	public ConditionalPage getPage(String url, PageValidators validators) throws IOException, HttpException
+	{
+		return ConditionalPage.modified(getPage(url), PageValidators.NONE);
+	}
+	
+	public BufferedImage fetchImage(String url) throws IOException, HttpException
+	{
+		throw new HttpException("Images are not archived, cannot replay " + url);
+	}
+	
+	public byte[] getImageBytes(String url) throws IOException, HttpException
+	{
+		throw new HttpException("Images are not archived, cannot replay " + url);
+	}
+	
+	public PageArchive getArchive()
+	{
+		return archive;
+	}
+}
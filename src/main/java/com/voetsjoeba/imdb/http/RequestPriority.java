@@ -0,0 +1,20 @@
+package com.voetsjoeba.imdb.http;
+
+/**
+ * Priority class of a request waiting for a {@link RateLimiter}.
+ *
+ * @author Jeroen De Ridder
+ */
+public enum RequestPriority
+{
+	/**
+	 * Requests someone is waiting on, e.g. a lookup made from a user interface. Served first.
+	 */
+	INTERACTIVE,
+
+	/**
+	 * Requests nobody is waiting on, e.g. refreshing stored titles. Only served while no interactive requests to the same
+	 * host are waiting.
+	 */
+	BACKGROUND;
+}
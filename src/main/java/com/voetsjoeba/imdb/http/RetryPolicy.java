@@ -0,0 +1,110 @@
+package com.voetsjoeba.imdb.http;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.Random;
+
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * Decides whether and when a failed fetch is retried. Failed attempts are retried after an exponentially growing delay,
+ * with random jitter so that fetches that failed together don't all retry at the same moment: the n-th retry waits
+ * between half and all of <tt>initialDelay * 2^(n-1)</tt>, capped at the maximum delay. If the server asked to wait
+ * longer through a Retry-After header, that is honored instead, unless it exceeds the maximum delay, in which case the
+ * fetch is not retried at all.
+ *
+ * <p>Only failures that might not occur again are retried: I/O failures, server errors (5xx) and throttled requests
+ * (429). Fetches are GET requests, so retrying them is safe.</p>
+ *
+ * @author Jeroen De Ridder
+ */
+@ThreadSafe
+public class RetryPolicy
+{
+	public static final int DEFAULT_MAX_ATTEMPTS = 3;
+	public static final long DEFAULT_INITIAL_DELAY = 500; // ms
+	public static final long DEFAULT_MAX_DELAY = 10000; // ms
+
+	private final int maxAttempts;
+	private final long initialDelay;
+	private final long maxDelay;
+	private final Random random = new Random();
+
+	/**
+	 * Creates a policy with the default amount of attempts and delays.
+	 */
+	public RetryPolicy()
+	{
+		this(DEFAULT_MAX_ATTEMPTS, DEFAULT_INITIAL_DELAY, DEFAULT_MAX_DELAY);
+	}
+
+	/**
+	 * Creates a new policy.
+	 *
+	 * @param maxAttempts The maximum amount of attempts per fetch, including the first one; 1 disables retrying.
+	 * @param initialDelay The amount of milliseconds to wait before the first retry, before jitter.
+	 * @param maxDelay The maximum amount of milliseconds to wait before any retry.
+	 */
+	public RetryPolicy(int maxAttempts, long initialDelay, long maxDelay)
+	{
+		if (maxAttempts < 1)
+			throw new IllegalArgumentException("Maximum amount of attempts must be positive");
+		if (initialDelay < 0 || maxDelay < initialDelay)
+			throw new IllegalArgumentException("Delays must be non-negative, and the maximum delay at least the initial delay");
+
+		this.maxAttempts = maxAttempts;
+		this.initialDelay = initialDelay;
+		this.maxDelay = maxDelay;
+	}
+
+	/**
+	 * Returns true if the given failure might not occur again when retrying, and is worth retrying for.
+	 */
+	public boolean isRetryable(Exception failure)
+	{
+		if (failure instanceof HttpStatusException)
+			return ((HttpStatusException) failure).isTransient();
+		if (failure instanceof CircuitOpenException)
+			return false;
+		if (failure instanceof InterruptedIOException && !(failure instanceof SocketTimeoutException))
+			return false;
+		return (failure instanceof IOException);
+	}
+
+	/**
+	 * Returns the amount of milliseconds to wait before retrying a fetch that failed on the given attempt (counting from
+	 * 1), or -1 if it should not be retried.
+	 */
+	public long getDelay(int attempt, Exception failure)
+	{
+		if (attempt >= maxAttempts || !isRetryable(failure))
+			return -1;
+
+		long backoff = Math.min(maxDelay, initialDelay << Math.min(attempt - 1, 30));
+		long delay = backoff / 2 + nextLong(backoff - backoff / 2 + 1);
+
+		if (failure instanceof HttpStatusException)
+		{
+			long retryAfter = ((HttpStatusException) failure).getRetryAfter();
+			if (retryAfter > maxDelay)
+				return -1; // not worth waiting for
+			delay = Math.max(delay, retryAfter);
+		}
+
+		return delay;
+	}
+
+	public int getMaxAttempts()
+	{
+		return maxAttempts;
+	}
+
+	private long nextLong(long bound)
+	{
+		synchronized (random)
+		{
+			return (long) (random.nextDouble() * bound);
+		}
+	}
+}
@@ -0,0 +1,234 @@
+package com.voetsjoeba.imdb.http;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.apache.http.HttpException;
+import org.jsoup.nodes.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link Transport} decorator that retries failed fetches according to a {@link RetryPolicy}, and fails fast through a
+ * {@link CircuitBreaker} while fetches keep failing. Failures that are not worth retrying, like a 404 response, are
+ * passed on straight away and don't count against the breaker, since the server did answer.
+ *
+ * <p>When combined with a {@link ThrottlingTransport}, put this one on the outside, so that every retry waits for the
+ * rate limiter too:</p>
+ *
+ * <pre>
+ * Transport transport = new RetryingTransport(new ThrottlingTransport(HttpTransport.getDefault(), limiter, RequestPriority.INTERACTIVE));
+ * </pre>
+ *
+ * @author Jeroen De Ridder
+ */
+@ThreadSafe
+public class RetryingTransport implements Transport
+{
+	private static final Logger log = LoggerFactory.getLogger(RetryingTransport.class);
+
+	private final Transport delegate;
+	private final RetryPolicy retryPolicy;
+	private final CircuitBreaker circuitBreaker;
+
+	/**
+	 * Creates a transport with the default retry policy and its own circuit breaker with default settings.
+	 */
+	public RetryingTransport(Transport delegate)
+	{
+		this(delegate, new RetryPolicy(), new CircuitBreaker());
+	}
+
+	/**
+	 * @param delegate The transport to fetch pages and images with.
+	 * @param retryPolicy The policy deciding which failed fetches to retry, and when.
+	 * @param circuitBreaker The breaker to fail fast with; may be shared with other transports fetching from the same server.
+	 */
+	public RetryingTransport(Transport delegate, RetryPolicy retryPolicy, CircuitBreaker circuitBreaker)
+	{
+		if (delegate == null || retryPolicy == null || circuitBreaker == null)
+			throw new IllegalArgumentException("Delegate transport, retry policy and circuit breaker must not be null");
+
+		this.delegate = delegate;
+		this.retryPolicy = retryPolicy;
+		this.circuitBreaker = circuitBreaker;
+	}
+
+	public String getPage(final String url) throws IOException, HttpException
+	{
+		return execute(url, new Fetch<String>() {
+			@Override
+			protected String fetch() throws IOException, HttpException
+			{
+				return delegate.getPage(url);
+			}
+		});
+	}
+
+	public Document getDocument(final String url) throws IOException, HttpException
+	{
+		return execute(url, new Fetch<Document>() {
+			@Override
+			protected Document fetch() throws IOException, HttpException
+			{
+				return delegate.getDocument(url);
+			}
+		});
+	}
+
+	public ConditionalPage getDocument(final String url, final PageValidators validators) throws IOException, HttpException
+	{
+		return execute(url, new Fetch<ConditionalPage>() {
+			@Override
+			protected ConditionalPage fetch() throws IOException, HttpException
+			{
+				return delegate.getDocument(url, validators);
+			}
+		});
+	}
+
+	public ConditionalPage getPage(final String url, final PageValidators validators) throws IOException, HttpException
+	{
+		return execute(url, new Fetch<ConditionalPage>() {
+			@Override
+			protected ConditionalPage fetch() throws IOException, HttpException
+			{
+				return delegate.getPage(url, validators);
+			}
+		});
+	}
+
+	public BufferedImage fetchImage(final String url) throws IOException, HttpException
+	{
+		return execute(url, new Fetch<BufferedImage>() {
+			@Override
+			protected BufferedImage fetch() throws IOException, HttpException
+			{
+				return delegate.fetchImage(url);
+			}
+		});
+	}
+
+	public byte[] getImageBytes(final String url) throws IOException, HttpException
+	{
+		return execute(url, new Fetch<byte[]>() {
+			@Override
+			protected byte[] fetch() throws IOException, HttpException
+			{
+				return delegate.getImageBytes(url);
+			}
+		});
+	}
+
+	public RetryPolicy getRetryPolicy()
+	{
+		return retryPolicy;
+	}
+
+	public CircuitBreaker getCircuitBreaker()
+	{
+		return circuitBreaker;
+	}
+
+	/**
+	 * Performs a fetch, retrying it for as long as the retry policy allows.
+	 *
+	 * @throws CircuitOpenException if the circuit breaker didn't let the fetch (or a retry of it) through.
+	 */
+	protected <T> T execute(String url, Fetch<T> fetch) throws IOException, HttpException
+	{
+		for (int attempt = 1; ; attempt++)
+		{
+			if (!circuitBreaker.allowRequest())
+				throw new CircuitOpenException("Not fetching " + url + ", too many fetches failed recently");
+
+			// every fetch the breaker let through must have its outcome recorded, or a half-open breaker would wait for
+			// the outcome of its trial forever
+			boolean outcomeRecorded = false;
+			Exception failure;
+			try
+			{
+				try
+				{
+					T result = fetch.fetch();
+					circuitBreaker.recordSuccess();
+					outcomeRecorded = true;
+					return result;
+				}
+				catch (IOException ioex)
+				{
+					failure = ioex;
+				}
+				catch (HttpException hex)
+				{
+					failure = hex;
+				}
+				catch (RuntimeException rex)
+				{
+					circuitBreaker.recordSuccess(); // not the server's doing
+					outcomeRecorded = true;
+					throw rex;
+				}
+
+				if (!retryPolicy.isRetryable(failure))
+				{
+					circuitBreaker.recordSuccess(); // the server did answer
+					outcomeRecorded = true;
+					throw propagate(failure);
+				}
+
+				circuitBreaker.recordFailure();
+				outcomeRecorded = true;
+			}
+			finally
+			{
+				if (!outcomeRecorded)
+					circuitBreaker.recordFailure(); // e.g. an Error while parsing the page
+			}
+
+			long delay = retryPolicy.getDelay(attempt, failure);
+			if (delay < 0)
+				throw propagate(failure);
+
+			log.debug("Fetch of {} failed ({}), retrying in {} ms", new Object[]{url, failure.getMessage(), delay});
+			try
+			{
+				sleep(delay);
+			}
+			catch (InterruptedException iex)
+			{
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while waiting to retry " + url);
+			}
+		}
+	}
+
+	/**
+	 * Waits the given amount of milliseconds before a retry.
+	 */
+	protected void sleep(long millis) throws InterruptedException
+	{
+		Thread.sleep(millis);
+	}
+
+	/**
+	 * Throws the given failure if it is an {@link HttpException}, or returns it for the caller to throw otherwise.
+	 */
+	private static IOException propagate(Exception failure) throws HttpException
+	{
+		if (failure instanceof HttpException)
+			throw (HttpException) failure;
+		return (IOException) failure;
+	}
+
+	/**
+	 * A single attempt at a fetch.
+	 */
+	protected static abstract class Fetch<T>
+	{
+		protected abstract T fetch() throws IOException, HttpException;
+	}
+}
@@ -0,0 +1,235 @@
+package com.voetsjoeba.imdb.http;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.apache.http.HttpException;
+import org.jsoup.nodes.Document;
+
+import com.voetsjoeba.imdb.util.HttpUtils;
+
+/**
+ * {@link Transport} decorator that makes every fetch wait for its host's budget in a {@link RateLimiter}, and reports
+ * back to the limiter how the host responded so that it can slow down when the host starts refusing requests. Responses
+ * with status 429 or 503 and I/O failures count as throttled; anything else, including other error statuses, counts as
+ * answered normally.
+ *
+ * <p>To let interactive lookups overtake background work, share one limiter between transports of different priority:</p>
+ *
+ * <pre>
+ * RateLimiter limiter = new RateLimiter();
+ * ThrottlingTransport interactive = new ThrottlingTransport(HttpTransport.getDefault(), limiter, RequestPriority.INTERACTIVE);
+ * ImdbSearcher searcher = new ImdbSearcher(interactive);
+ * ImdbSearcher refresher = new ImdbSearcher(interactive.withPriority(RequestPriority.BACKGROUND));
+ * </pre>
+ *
+ * @author Jeroen De Ridder
+ */
+@ThreadSafe
+public class ThrottlingTransport implements Transport
+{
+	private final Transport delegate;
+	private final RateLimiter limiter;
+	private final RequestPriority priority;
+
+	/**
+	 * @param delegate The transport to fetch pages and images with.
+	 * @param limiter The limiter to wait for before every fetch.
+	 * @param priority The priority of fetches made through this transport.
+	 */
+	public ThrottlingTransport(Transport delegate, RateLimiter limiter, RequestPriority priority)
+	{
+		if (delegate == null || limiter == null || priority == null)
+			throw new IllegalArgumentException("Delegate transport, limiter and priority must not be null");
+
+		this.delegate = delegate;
+		this.limiter = limiter;
+		this.priority = priority;
+	}
+
+	/**
+	 * Returns a transport that fetches through the same delegate and limiter as this one, but with the given priority.
+	 */
+	public ThrottlingTransport withPriority(RequestPriority priority)
+	{
+		return new ThrottlingTransport(delegate, limiter, priority);
+	}
+
+	public String getPage(String url) throws IOException, HttpException
+	{
+		String host = acquire(url);
+		try
+		{
+			String page = delegate.getPage(url);
+			limiter.reportSuccess(host);
+			return page;
+		}
+		catch (IOException ioex)
+		{
+			throw report(host, ioex);
+		}
+		catch (HttpException hex)
+		{
+			throw report(host, hex);
+		}
+	}
+
+	public Document getDocument(String url) throws IOException, HttpException
+	{
+		String host = acquire(url);
+		try
+		{
+			Document document = delegate.getDocument(url);
+			limiter.reportSuccess(host);
+			return document;
+		}
+		catch (IOException ioex)
+		{
+			throw report(host, ioex);
+		}
+		catch (HttpException hex)
+		{
+			throw report(host, hex);
+		}
+	}
+
+	public ConditionalPage getDocument(String url, PageValidators validators) throws IOException, HttpException
+	{
+		String host = acquire(url);
+		try
+		{
+			ConditionalPage page = delegate.getDocument(url, validators);
+			limiter.reportSuccess(host);
+			return page;
+		}
+		catch (IOException ioex)
+		{
+			throw report(host, ioex);
+		}
+		catch (HttpException hex)
+		{
+			throw report(host, hex);
+		}
+	}
+
+	public ConditionalPage getPage(String url, PageValidators validators) throws IOException, HttpException
+	{
+		String host = acquire(url);
+		try
+		{
+			ConditionalPage page = delegate.getPage(url, validators);
+			limiter.reportSuccess(host);
+			return page;
+		}
+		catch (IOException ioex)
+		{
+			throw report(host, ioex);
+		}
+		catch (HttpException hex)
+		{
+			throw report(host, hex);
+		}
+	}
+
+	public BufferedImage fetchImage(String url) throws IOException, HttpException
+	{
+		String host = acquire(url);
+		try
+		{
+			BufferedImage image = delegate.fetchImage(url);
+			limiter.reportSuccess(host);
+			return image;
+		}
+		catch (IOException ioex)
+		{
+			throw report(host, ioex);
+		}
+		catch (HttpException hex)
+		{
+			throw report(host, hex);
+		}
+	}
+
+	public byte[] getImageBytes(String url) throws IOException, HttpException
+	{
+		String host = acquire(url);
+		try
+		{
+			byte[] data = delegate.getImageBytes(url);
+			limiter.reportSuccess(host);
+			return data;
+		}
+		catch (IOException ioex)
+		{
+			throw report(host, ioex);
+		}
+		catch (HttpException hex)
+		{
+			throw report(host, hex);
+		}
+	}
+
+	public RateLimiter getLimiter()
+	{
+		return limiter;
+	}
+
+	public RequestPriority getPriority()
+	{
+		return priority;
+	}
+
+	/**
+	 * Waits for a token for the host of the given URL, and returns the host.
+	 */
+	private String acquire(String url) throws InterruptedIOException
+	{
+		String host = getHost(url);
+		try
+		{
+			limiter.acquire(host, priority);
+			return host;
+		}
+		catch (InterruptedException iex)
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting to fetch " + url);
+		}
+	}
+
+	private IOException report(String host, IOException ioex)
+	{
+		if (!Thread.currentThread().isInterrupted()) // an interrupted fetch says nothing about the host
+			limiter.reportThrottled(host);
+		return ioex;
+	}
+
+	private HttpException report(String host, HttpException hex)
+	{
+		if (hex instanceof HttpStatusException && ((HttpStatusException) hex).isThrottled())
+			limiter.reportThrottled(host);
+		else
+			limiter.reportSuccess(host);
+		return hex;
+	}
+
+	/**
+	 * Returns the host of the given URL, or null if it can't be determined.
+	 */
+	protected static String getHost(String url)
+	{
+		try
+		{
+			return new URL(HttpUtils.normalizeUrl(url)).getHost();
+		}
+		catch (MalformedURLException muex)
+		{
+			return null;
+		}
+	}
+}
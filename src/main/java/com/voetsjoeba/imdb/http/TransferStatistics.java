@@ -0,0 +1,52 @@
+package com.voetsjoeba.imdb.http;
+
+import net.jcip.annotations.Immutable;
+
+/**
+ * Point-in-time snapshot of the amount of response content an {@link HttpTransport} has read, both as it came over the
+ * wire and as it was decoded to.
+ * 
+ * @author Jeroen De Ridder
+ */
+@Immutable
+public class TransferStatistics {
+	
+	private final long wireBytes;
+	private final long decodedBytes;
+	
+	public TransferStatistics(long wireBytes, long decodedBytes)
+	{
+		this.wireBytes = wireBytes;
+		this.decodedBytes = decodedBytes;
+	}
+	
+	/**
+	 * Returns the amount of response content bytes that were received, compressed or not.
+	 */
+	public long getWireBytes()
+	{
+		return wireBytes;
+	}
+	
+	/**
+	 * Returns the amount of bytes the received response content decompressed to.
+	 */
+	public long getDecodedBytes()
+	{
+		return decodedBytes;
+	}
+	
+	/**
+	 * Returns how many times smaller the content was on the wire than decoded, or 1 if nothing was received yet.
+	 */
+	public double getCompressionRatio()
+	{
+		return (wireBytes == 0 ? 1 : (double) decodedBytes / wireBytes);
+	}
+	
+	@Override
+	public String toString()
+	{
+		return "wire=" + wireBytes + ", decoded=" + decodedBytes;
+	}
+}
@@ -0,0 +1,77 @@
+package com.voetsjoeba.imdb.http;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+import org.apache.http.HttpException;
+import org.jsoup.nodes.Document;
+
+import com.voetsjoeba.imdb.ImdbSearcher;
+
+/**
+ * Fetches IMDb pages and images on behalf of an {@link ImdbSearcher} and the parser. {@link HttpTransport} fetches 
+ * them over the network; other implementations may serve them from elsewhere or decorate another transport.
+ * 
+ * <p>Implementations must be thread-safe.</p>
+ * 
+ * @author Jeroen De Ridder
+ */
+public interface Transport {
+	
+	/**
+	 * Fetches a web page and returns it as a {@link String}.
+	 * 
+	 * @param url The URL of the page to fetch.
+	 * @throws HttpException if the page could not be fetched
+	 */
+	public String getPage(String url) throws IOException, HttpException;
+	
+	/**
+	 * Fetches a web page and parses it into a {@link Document}. Unlike parsing the result of {@link #getPage(String)},
+	 * implementations should avoid holding on to the raw page contents where they can.
+	 * 
+	 * @param url The URL of the page to fetch.
+	 * @throws HttpException if the page could not be fetched
+	 */
+	public Document getDocument(String url) throws IOException, HttpException;
+	
+	/**
+	 * Fetches a web page and parses it into a {@link Document}, unless it hasn't changed since the given validators were
+	 * obtained. Implementations that can't tell whether the page changed always return it.
+	 * 
+	 * @param url The URL of the page to fetch.
+	 * @param validators The validators returned by an earlier fetch of the page, or {@link PageValidators#NONE} to fetch
+	 *        it regardless (and obtain its validators).
+	 * @throws HttpException if the page could not be fetched
+	 */
+	public ConditionalPage getDocument(String url, PageValidators validators) throws IOException, HttpException;
+	
+	/**
+	 * Fetches a web page and returns its raw content, unless it hasn't changed since the given validators were obtained.
+	 * Implementations that can't tell whether the page changed always return it.
+	 * 
+	 * @param url The URL of the page to fetch.
+	 * @param validators The validators returned by an earlier fetch of the page, or {@link PageValidators#NONE} to fetch
+	 *        it regardless (and obtain its validators).
+	 * @return The outcome of the fetch; its {@link ConditionalPage#getContent()} holds the page if it changed.
+	 * @throws HttpException if the page could not be fetched
+	 */
+	public ConditionalPage getPage(String url, PageValidators validators) throws IOException, HttpException;
+	
+	/**
+	 * Fetches an image from a URL.
+	 * 
+	 * @param url The URL of the image to fetch.
+	 * @throws HttpException if the image could not be fetched
+	 */
+	public BufferedImage fetchImage(String url) throws IOException, HttpException;
+	
+	/**
+	 * Fetches an image from a URL without decoding it, returning its bytes as they were served (e.g. a JPEG file).
+	 * 
+	 * @param url The URL of the image to fetch.
+	 * @throws HttpException if the image could not be fetched
+	 */
+	public byte[] getImageBytes(String url) throws IOException, HttpException;
+	
+}
@@ -0,0 +1,321 @@
+package com.voetsjoeba.imdb.store;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeSet;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.voetsjoeba.imdb.domain.SeasonList;
+import com.voetsjoeba.imdb.domain.api.Season;
+import com.voetsjoeba.imdb.domain.api.Series;
+import com.voetsjoeba.imdb.domain.api.Title;
+import com.voetsjoeba.imdb.http.PageValidators;
+
+/**
+ * {@link TitleStore} that keeps each title in its own file below a base directory, using Java serialization.
+ *
+ * <p>Writes go to a temporary file that is synced to disk and then renamed into place, so a crash during a write never
+ * leaves a half-written title behind; the previously stored version (if any) is kept instead. Files are spread over
+ * subdirectories by the last two characters of the title id, to keep directory sizes manageable for large stores.</p>
+ *
+ * <p>Titles older than the store's maximum age are treated as absent by {@link #get(String)}, but are still returned
+ * when iterating over the store.</p>
+ *
+ * @author Jeroen De Ridder
+ */
+@ThreadSafe
+public class FileTitleStore implements TitleStore {
+
+	private static final Logger log = LoggerFactory.getLogger(FileTitleStore.class);
+
+	private static final int FORMAT_VERSION = 3;
+	private static final int PREVIOUS_FORMAT_VERSION = 2; // without episode listing validators
+	private static final String FILE_EXTENSION = ".title";
+	private static final String TEMP_FILE_EXTENSION = ".tmp";
+
+	private final File directory;
+	private final long maxAge;
+
+	/**
+	 * Creates a store in the given directory whose titles never expire.
+	 */
+	public FileTitleStore(File directory) throws IOException
+	{
+		this(directory, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Creates a store in the given directory. The directory is created if it does not exist yet.
+	 *
+	 * @param directory The base directory to store titles in.
+	 * @param maxAge The amount of milliseconds after which a stored title is no longer returned by {@link #get(String)}.
+	 */
+	public FileTitleStore(File directory, long maxAge) throws IOException
+	{
+		if (directory == null)
+			throw new IllegalArgumentException("Directory must not be null");
+		if (maxAge <= 0)
+			throw new IllegalArgumentException("Maximum age must be positive");
+		if (!directory.isDirectory() && !directory.mkdirs())
+			throw new IOException("Could not create title store directory " + directory);
+
+		this.directory = directory;
+		this.maxAge = maxAge;
+	}
+
+	public Title get(String id) throws IOException
+	{
+		File file = getFile(id);
+		if (!file.isFile())
+			return null;
+
+		StoredTitle storedTitle = read(file);
+		if (storedTitle == null)
+			return null;
+
+		if (System.currentTimeMillis() - storedTitle.storedAt > maxAge)
+			return null;
+
+		return storedTitle.title;
+	}
+
+	public void put(Title title) throws IOException
+	{
+		if (title == null)
+			throw new IllegalArgumentException("Title must not be null");
+
+		File file = getFile(title.getId());
+		File parent = file.getParentFile();
+		if (!parent.isDirectory() && !parent.mkdirs() && !parent.isDirectory())
+			throw new IOException("Could not create directory " + parent);
+
+		File tempFile = File.createTempFile("tmp-" + title.getId(), TEMP_FILE_EXTENSION, parent);
+		try
+		{
+			FileOutputStream fileOut = new FileOutputStream(tempFile);
+			try
+			{
+				ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(fileOut));
+				out.writeInt(FORMAT_VERSION);
+				out.writeLong(System.currentTimeMillis());
+				out.writeObject(title);
+
+				// seasons are transient on the series themselves, so store them separately, along with the validators of the
+				// episode listing they came from. Seasons that haven't been loaded yet are left out rather than fetched just
+				// to be stored.
+				List<Season> seasons = null;
+				if (title instanceof Series && ((Series) title).hasLoadedSeasons() && ((Series) title).getSeasons() != null)
+					seasons = new ArrayList<Season>(((Series) title).getSeasons());
+				out.writeObject(seasons);
+				out.writeObject(seasons == null ? null : ((Series) title).getEpisodeListingValidators());
+
+				out.flush();
+				fileOut.getFD().sync();
+			}
+			finally
+			{
+				fileOut.close();
+			}
+
+			// File.renameTo doesn't replace existing files on all platforms
+			if (!tempFile.renameTo(file))
+			{
+				file.delete();
+				if (!tempFile.renameTo(file))
+					throw new IOException("Could not move " + tempFile + " to " + file);
+			}
+		}
+		finally
+		{
+			tempFile.delete(); // no-op if it was renamed
+		}
+	}
+
+	public void remove(String id) throws IOException
+	{
+		File file = getFile(id);
+		if (file.exists() && !file.delete())
+			throw new IOException("Could not delete " + file);
+	}
+
+	public boolean contains(String id)
+	{
+		return getFile(id).isFile();
+	}
+
+	public Set<String> getIds()
+	{
+		Set<String> ids = new TreeSet<String>();
+		for (File file : listTitleFiles())
+		{
+			String name = file.getName();
+			ids.add(name.substring(0, name.length() - FILE_EXTENSION.length()));
+		}
+		return ids;
+	}
+
+	/**
+	 * Returns an iterator over all stored titles. Titles are read lazily as the iterator advances.
+	 */
+	public Iterator<Title> iterator()
+	{
+		final Iterator<File> files = listTitleFiles().iterator();
+
+		return new Iterator<Title>() {
+
+			private Title next;
+
+			public boolean hasNext()
+			{
+				while (next == null && files.hasNext())
+				{
+					try
+					{
+						StoredTitle storedTitle = read(files.next());
+						if (storedTitle != null)
+							next = storedTitle.title;
+					}
+					catch (IOException ioex)
+					{
+						log.warn("Skipping unreadable stored title: {}", ioex.getMessage());
+					}
+				}
+				return (next != null);
+			}
+
+			public Title next()
+			{
+				if (!hasNext())
+					throw new NoSuchElementException();
+
+				Title result = next;
+				next = null;
+				return result;
+			}
+
+			public void remove()
+			{
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * Returns the file the title with the given id is stored in.
+	 */
+	protected File getFile(String id)
+	{
+		if (id == null || id.length() == 0 || id.indexOf('/') >= 0 || id.indexOf('\\') >= 0 || id.startsWith("."))
+			throw new IllegalArgumentException("Invalid title id: " + id);
+
+		String shard = (id.length() > 2 ? id.substring(id.length() - 2) : id);
+		return new File(new File(directory, shard), id + FILE_EXTENSION);
+	}
+
+	/**
+	 * Reads a stored title from the given file, or returns null if it was written in an unknown format.
+	 */
+	protected StoredTitle read(File file) throws IOException
+	{
+		FileInputStream fileIn = new FileInputStream(file);
+		try
+		{
+			ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(fileIn)); // reads the stream header
+			int version = in.readInt();
+			if (version != FORMAT_VERSION && version != PREVIOUS_FORMAT_VERSION)
+			{
+				log.warn("Ignoring stored title {} with unknown format version {}", file, version);
+				return null;
+			}
+
+			long storedAt = in.readLong();
+			Title title = (Title) in.readObject();
+
+			@SuppressWarnings("unchecked")
+			List<Season> seasons = (List<Season>) in.readObject();
+			PageValidators episodeListingValidators = (version == FORMAT_VERSION ? (PageValidators) in.readObject() : null);
+			if (title instanceof Series && seasons != null)
+			{
+				((Series) title).setSeasons(new SeasonList(seasons));
+				((Series) title).setEpisodeListingValidators(episodeListingValidators);
+			}
+
+			return new StoredTitle(title, storedAt);
+		}
+		catch (ClassNotFoundException cnfex)
+		{
+			IOException ioex = new IOException("Could not read stored title " + file + ": " + cnfex.getMessage());
+			ioex.initCause(cnfex);
+			throw ioex;
+		}
+		catch (ClassCastException ccex)
+		{
+			IOException ioex = new IOException("Could not read stored title " + file + ": " + ccex.getMessage());
+			ioex.initCause(ccex);
+			throw ioex;
+		}
+		finally
+		{
+			fileIn.close();
+		}
+	}
+
+	private List<File> listTitleFiles()
+	{
+		List<File> titleFiles = new ArrayList<File>();
+
+		File[] shards = directory.listFiles();
+		if (shards == null)
+			return titleFiles;
+
+		for (File shard : shards)
+		{
+			if (!shard.isDirectory())
+				continue;
+
+			File[] files = shard.listFiles(new FileFilter() {
+				public boolean accept(File file)
+				{
+					return file.isFile() && file.getName().endsWith(FILE_EXTENSION);
+				}
+			});
+
+			if (files != null)
+			{
+				for (File file : files)
+					titleFiles.add(file);
+			}
+		}
+
+		return titleFiles;
+	}
+
+	protected static class StoredTitle
+	{
+		final Title title;
+		final long storedAt;
+
+		StoredTitle(Title title, long storedAt)
+		{
+			this.title = title;
+			this.storedAt = storedAt;
+		}
+	}
+
+}
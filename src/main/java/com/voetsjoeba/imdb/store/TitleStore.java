@@ -0,0 +1,46 @@
+package com.voetsjoeba.imdb.store;
+
+import java.io.IOException;
+import java.util.Set;
+
+import com.voetsjoeba.imdb.ImdbSearcher;
+import com.voetsjoeba.imdb.domain.api.Title;
+
+/**
+ * Persistent store of parsed {@link Title}s, keyed by title id. For series, the seasons and episodes are stored along
+ * with the title.
+ * 
+ * <p>Implementations must be thread-safe. Iterating over a store yields all titles it currently holds; titles that can
+ * no longer be read are skipped.</p>
+ * 
+ * @author Jeroen De Ridder
+ * @see ImdbSearcher#setTitleStore(TitleStore)
+ */
+public interface TitleStore extends Iterable<Title> {
+	
+	/**
+	 * Returns the stored title with the given id, or null if there is none.
+	 */
+	public Title get(String id) throws IOException;
+	
+	/**
+	 * Stores a title, replacing any previously stored title with the same id.
+	 */
+	public void put(Title title) throws IOException;
+	
+	/**
+	 * Removes the title with the given id, if any.
+	 */
+	public void remove(String id) throws IOException;
+	
+	/**
+	 * Returns true if a title with the given id is stored.
+	 */
+	public boolean contains(String id);
+	
+	/**
+	 * Returns the ids of all stored titles.
+	 */
+	public Set<String> getIds();
+	
+}
@@ -0,0 +1,217 @@
+package com.voetsjoeba.imdb.util;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import net.jcip.annotations.Immutable;
+
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.select.Collector;
+import org.jsoup.select.Elements;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.NodeTraversor;
+import org.jsoup.select.NodeVisitor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * CSS selector that is parsed only once. {@link Element#select(String)} parses its query into Jsoup's evaluators on
+ * every call; a CompiledSelector holds on to them, so it can be kept in a constant and applied to any amount of documents,
+ * from any amount of threads.
+ *
+ * <p>Jsoup (as of 1.8.1) doesn't expose its query parser, so it is reached through reflection. Should that fail, the
+ * selector falls back to plain string-based selection, with identical results.</p>
+ *
+ * @author Jeroen De Ridder
+ */
+@Immutable
+public final class CompiledSelector
+{
+	private static final Logger log = LoggerFactory.getLogger(CompiledSelector.class);
+
+	private static final Method queryParserMethod;
+	static
+	{
+		Method method = null;
+		try
+		{
+			method = Class.forName("org.jsoup.select.QueryParser").getDeclaredMethod("parse", String.class);
+			method.setAccessible(true);
+		}
+		catch (Exception ex)
+		{
+			log.warn("Unable to access Jsoup's query parser, selectors will be parsed on every use: {}", ex.toString());
+			method = null;
+		}
+		queryParserMethod = method;
+	}
+
+	private final String query;
+	private final Evaluator evaluator; // null if the query parser isn't accessible
+
+	private CompiledSelector(String query, Evaluator evaluator)
+	{
+		this.query = query;
+		this.evaluator = evaluator;
+	}
+
+	/**
+	 * Parses the given CSS selector query. If the query is invalid, the exception Jsoup raises for it (an
+	 * IllegalArgumentException or IllegalStateException) is passed on.
+	 */
+	public static CompiledSelector compile(String query)
+	{
+		if (queryParserMethod == null)
+			return new CompiledSelector(query, null);
+
+		try
+		{
+			return new CompiledSelector(query, (Evaluator) queryParserMethod.invoke(null, query));
+		}
+		catch (InvocationTargetException itex)
+		{
+			if (itex.getCause() instanceof RuntimeException)
+				throw (RuntimeException) itex.getCause();
+			throw new IllegalStateException("Failed to compile selector '" + query + "': " + itex.getCause());
+		}
+		catch (IllegalAccessException iaex)
+		{
+			return new CompiledSelector(query, null);
+		}
+	}
+
+	/**
+	 * Returns all elements matching this selector, starting at and including the given root. Equivalent to
+	 * <tt>root.select(query)</tt>.
+	 */
+	public Elements select(Element root)
+	{
+		if (evaluator == null)
+			return root.select(query);
+		return Collector.collect(evaluator, root);
+	}
+
+	/**
+	 * Returns the first element (in document order) matching this selector, or null if there is none. Equivalent to
+	 * <tt>root.select(query).first()</tt>, but stops searching at the first match.
+	 */
+	public Element first(Element root)
+	{
+		return first(root, new CompiledSelector[]{this})[0];
+	}
+
+	/**
+	 * Finds the first match of each of the given selectors in a single traversal of the tree under the given root, which
+	 * stops as soon as every selector has found its match. The result array holds the match of each selector at the same
+	 * position, or null where a selector didn't match anything.
+	 */
+	public static Element[] first(Element root, CompiledSelector... selectors)
+	{
+		Element[] matches = new Element[selectors.length];
+
+		for (CompiledSelector selector : selectors)
+		{
+			if (selector.evaluator == null)
+			{
+				// no evaluators available to test elements against while walking the tree
+				for (int i = 0; i < selectors.length; i++)
+					matches[i] = root.select(selectors[i].query).first();
+				return matches;
+			}
+		}
+
+		int remaining = selectors.length;
+		Node node = root;
+		int depth = 0;
+
+		// iterative pre-order walk, i.e. in document order, same as Jsoup's own traversal
+		while (node != null && remaining > 0)
+		{
+			if (node instanceof Element)
+			{
+				Element element = (Element) node;
+				for (int i = 0; i < selectors.length; i++)
+				{
+					if (matches[i] == null && selectors[i].evaluator.matches(root, element))
+					{
+						matches[i] = element;
+						remaining--;
+					}
+				}
+			}
+
+			if (node.childNodeSize() > 0)
+			{
+				node = node.childNode(0);
+				depth++;
+			}
+			else
+			{
+				while (node.nextSibling() == null && depth > 0)
+				{
+					node = node.parentNode();
+					depth--;
+				}
+				if (node == root)
+					break;
+				node = node.nextSibling();
+			}
+		}
+
+		return matches;
+	}
+
+	/**
+	 * Finds all matches of each of the given selectors in a single traversal of the tree under the given root. The result
+	 * array holds the matches of each selector at the same position, in document order; each is equal to what
+	 * {@link #select(Element)} would return for that selector.
+	 */
+	public static Elements[] selectAll(final Element root, final CompiledSelector... selectors)
+	{
+		final Elements[] matches = new Elements[selectors.length];
+		boolean compiled = true;
+		for (int i = 0; i < selectors.length; i++)
+		{
+			matches[i] = new Elements();
+			compiled &= (selectors[i].evaluator != null);
+		}
+
+		if (!compiled)
+		{
+			for (int i = 0; i < selectors.length; i++)
+				matches[i] = selectors[i].select(root);
+			return matches;
+		}
+
+		new NodeTraversor(new NodeVisitor() {
+			public void head(Node node, int depth)
+			{
+				if (!(node instanceof Element))
+					return;
+
+				Element element = (Element) node;
+				for (int i = 0; i < selectors.length; i++)
+				{
+					if (selectors[i].evaluator.matches(root, element))
+						matches[i].add(element);
+				}
+			}
+
+			public void tail(Node node, int depth) { }
+		}).traverse(root);
+
+		return matches;
+	}
+
+	public String getQuery()
+	{
+		return query;
+	}
+
+	@Override
+	public String toString()
+	{
+		return query;
+	}
+}
@@ -0,0 +1,34 @@
+package com.voetsjoeba.imdb.util;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * {@link ThreadFactory} that creates named daemon threads, so that background pools owned by the library never keep
+ * the JVM from exiting.
+ * 
+ * @author Jeroen De Ridder
+ */
+@ThreadSafe
+public class DaemonThreadFactory implements ThreadFactory
+{
+	private final String namePrefix;
+	private final AtomicInteger threadNumber = new AtomicInteger(1);
+	
+	/**
+	 * @param namePrefix Prefix of the created threads' names; a sequence number is appended to it.
+	 */
+	public DaemonThreadFactory(String namePrefix)
+	{
+		this.namePrefix = namePrefix;
+	}
+	
+	public Thread newThread(Runnable r)
+	{
+		Thread thread = new Thread(r, namePrefix + "-" + threadNumber.getAndIncrement());
+		thread.setDaemon(true);
+		return thread;
+	}
+}
@@ -2,116 +2,64 @@ package com.voetsjoeba.imdb.util;
 
 import java.awt.image.BufferedImage;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
-
-import javax.imageio.ImageIO;
 
 import net.jcip.annotations.ThreadSafe;
 
 import org.apache.commons.lang.StringUtils;
-import org.apache.http.HttpEntity;
 import org.apache.http.HttpException;
-import org.apache.http.HttpResponse;
-import org.apache.http.HttpStatus;
-import org.apache.http.StatusLine;
 import org.apache.http.client.HttpClient;
-import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.protocol.RequestAddCookies;
 import org.apache.http.client.protocol.ResponseProcessCookies;
 import org.apache.http.impl.client.DefaultHttpClient;
-import org.apache.http.util.EntityUtils;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.nodes.TextNode;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+
+import com.voetsjoeba.imdb.http.HttpTransport;
 
 @ThreadSafe
 public class HttpUtils
 {
-	private static final Logger log = LoggerFactory.getLogger(HttpUtils.class);
-	
-	private static final Set<String> imageContentTypes = Collections.synchronizedSet(new HashSet<String>(Arrays.asList("image/jpg", "image/jpeg", "image/png", "image/gif")));
-	
 	/**
-	 * Fetches an image from a URL.
+	 * Fetches an image from a URL using the shared {@link HttpTransport}.
 	 * 
 	 * @param url the URL to fetch. Must not be null.
+	 * @see HttpTransport#getDefault()
 	 */
 	public static BufferedImage fetchImage(String url) throws IOException, HttpException
 	{
-		if(url == null)
-			throw new IllegalArgumentException("URL argument must not be null");
-		if(!url.startsWith("http://"))
-			url = "http://" + url; // throws a weird "Target host must not be null" exception if used without starting "http://" 
-		
-		BufferedImage result = null;
-		HttpClient httpClient = getNoCookiesHttpClient();
-		
-		HttpGet request = new HttpGet(url);
-		HttpResponse response = httpClient.execute(request);
-		
-		StatusLine responseStatusLine = response.getStatusLine();
-		if (responseStatusLine.getStatusCode() != HttpStatus.SC_OK)
-		{
-			throw new HttpException("Response returned status code that is not 200 OK (returned: " + responseStatusLine.getStatusCode() + " " + responseStatusLine.getReasonPhrase() + ")");
-		}
-		
-		HttpEntity responseContent = response.getEntity();
-		String responseContentType = responseContent.getContentType().getValue();
-		
-		log.debug("Image fetch request " + url + " returned result of MIME type " + responseContentType);
-		
-		if (!imageContentTypes.contains(responseContentType.toLowerCase()))
-			throw new HttpException("Response returned unknown MIME type content (returned: " + responseContentType + ", expected: one of " + imageContentTypes + ")");
-
-		InputStream imageStream = responseContent.getContent();
-		result = ImageIO.read(imageStream);
-		
-		return result;
+		return HttpTransport.getDefault().fetchImage(url);
 	}
 	
 	/**
-	 * Fetches a web page over HTTP via GET and returns it as a {@link String}.
+	 * Fetches a web page over HTTP via GET using the shared {@link HttpTransport} and returns it as a {@link String}.
 	 * 
 	 * @param url The URL of the page to fetch.
+	 * @see HttpTransport#getDefault()
 	 */
 	public static String getPage(String url) throws IOException, HttpException
+	{
+		return HttpTransport.getDefault().getPage(url);
+	}
+	
+	/**
+	 * Returns the given URL with an explicit scheme, defaulting to "http://" if it has none. HttpClient throws a weird
+	 * "Target host must not be null" exception for URLs without one.
+	 * 
+	 * @param url The URL to normalize. Must not be null.
+	 */
+	public static String normalizeUrl(String url)
 	{
 		if(url == null)
 			throw new IllegalArgumentException("URL argument must not be null");
-		if(!url.startsWith("http://"))
-			url = "http://" + url; // throws a weird "Target host must not be null" exception if used without starting "http://"
-		
-		// create new default http client and disable cookies
-		HttpClient httpClient = getNoCookiesHttpClient();
-		
-		HttpGet request = new HttpGet(url);
-		HttpResponse response = httpClient.execute(request);
-		
-		// make sure we got a 200 OK response
-		StatusLine responseStatusLine = response.getStatusLine();
-		if (responseStatusLine.getStatusCode() != HttpStatus.SC_OK)
-		{
-			throw new HttpException("Response returned status code that is not 200 OK (returned: " + responseStatusLine.getStatusCode() + " " + responseStatusLine.getReasonPhrase() + ")");
-		}
-		
-		// get the response as a properly character-decoded string
-		HttpEntity responseContent = response.getEntity();
-		String responseString = EntityUtils.toString(responseContent);
-		log.trace(responseString);
-		
-		responseContent.consumeContent();
-		return responseString;
+		if(!url.startsWith("http://") && !url.startsWith("https://"))
+			url = "http://" + url;
+		return url;
 	}
 	
 	/**
@@ -126,7 +74,11 @@ public class HttpUtils
 	
 	/**
 	 * Creates and returns an HttpClient instance that does not bother with cookies.
+	 * 
+	 * @deprecated every call creates a new client with its own connection manager; use the pooled client of
+	 *             {@link HttpTransport#getHttpClient()} instead.
 	 */
+	@Deprecated
 	public static HttpClient getNoCookiesHttpClient()
 	{
 		DefaultHttpClient httpClient = new DefaultHttpClient();
@@ -0,0 +1,101 @@
+package com.voetsjoeba.imdb.util;
+
+import java.io.Serializable;
+
+import net.jcip.annotations.Immutable;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Builds the URLs of IMDb pages relative to a base URL, so that pages can be fetched from somewhere other than IMDb
+ * itself, like a mirror, a caching proxy or a local fixture server. Titles and names parsed from pages fetched through
+ * a base URL keep it, and link back to it from their own URLs.
+ *
+ * @author Jeroen De Ridder
+ */
+@Immutable
+public final class ImdbUrls implements Serializable
+{
+	private static final long serialVersionUID = 1L;
+
+	public static final String DEFAULT_BASE_URL = "http://www.imdb.com";
+
+	/**
+	 * Builds URLs to IMDb itself.
+	 */
+	public static final ImdbUrls DEFAULT = new ImdbUrls(DEFAULT_BASE_URL);
+
+	private final String baseUrl;
+
+	/**
+	 * @param baseUrl The URL the IMDb pages are found under, e.g. <tt>http://localhost:8080</tt>. Defaults to the
+	 *            http scheme if it has none; a trailing slash is ignored.
+	 */
+	public ImdbUrls(String baseUrl)
+	{
+		if (baseUrl == null)
+			throw new IllegalArgumentException("Base URL must not be null");
+
+		this.baseUrl = StringUtils.removeEnd(HttpUtils.normalizeUrl(baseUrl.trim()), "/");
+	}
+
+	/**
+	 * Returns the given URL builder, or {@link #DEFAULT} if it is null.
+	 */
+	public static ImdbUrls orDefault(ImdbUrls urls)
+	{
+		return (urls == null ? DEFAULT : urls);
+	}
+
+	public String getBaseUrl()
+	{
+		return baseUrl;
+	}
+
+	/**
+	 * Returns the URL of the page of the title with the given IMDb ID.
+	 */
+	public String getTitleUrl(String id)
+	{
+		return baseUrl + "/title/" + id;
+	}
+
+	/**
+	 * Returns the URL of the page of the person with the given IMDb ID.
+	 */
+	public String getNameUrl(String id)
+	{
+		return baseUrl + "/name/" + id;
+	}
+
+	/**
+	 * Returns the URL of the search results page for the given query.
+	 */
+	public String getSearchUrl(String query)
+	{
+		return baseUrl + "/find?s=all&q=" + HttpUtils.urlEncodeUtf8(query);
+	}
+
+	@Override
+	public boolean equals(Object obj)
+	{
+		if (obj == this)
+			return true;
+		if (!(obj instanceof ImdbUrls))
+			return false;
+
+		return baseUrl.equals(((ImdbUrls) obj).baseUrl);
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return baseUrl.hashCode();
+	}
+
+	@Override
+	public String toString()
+	{
+		return baseUrl;
+	}
+}
@@ -0,0 +1,193 @@
+package com.voetsjoeba.imdb.util;
+
+import net.jcip.annotations.NotThreadSafe;
+
+/**
+ * Map from primitive int keys to non-null values, without boxing the keys. Small non-negative keys -- such as season and
+ * episode numbers -- are stored in a directly indexed array; other keys (negative, or far larger than the amount of
+ * entries warrants, like seasons numbered by year) go into an open-addressing hash table.
+ *
+ * @author Jeroen De Ridder
+ */
+@NotThreadSafe
+public class IntMap<V>
+{
+	private static final int MIN_DENSE_SLACK = 16;
+
+	private Object[] dense = new Object[0];
+
+	private int[] sparseKeys;
+	private Object[] sparseValues; // null means the slot is empty
+	private int sparseSize;
+
+	private int size;
+
+	/**
+	 * Returns the value for the given key, or null if there is none.
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(int key)
+	{
+		if (key >= 0 && key < dense.length)
+			return (V) dense[key];
+
+		if (sparseSize == 0)
+			return null;
+
+		int mask = sparseKeys.length - 1;
+		for (int slot = hash(key) & mask; sparseValues[slot] != null; slot = (slot + 1) & mask)
+		{
+			if (sparseKeys[slot] == key)
+				return (V) sparseValues[slot];
+		}
+		return null;
+	}
+
+	public boolean containsKey(int key)
+	{
+		return (get(key) != null);
+	}
+
+	/**
+	 * Associates a value with the given key, replacing any previous value.
+	 *
+	 * @return the previous value for the key, or null if there was none.
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(int key, V value)
+	{
+		if (value == null)
+			throw new IllegalArgumentException("Values must not be null");
+
+		if (key >= 0 && key >= dense.length && key < 2 * (size + 1) + MIN_DENSE_SLACK)
+			growDense(key + 1 + MIN_DENSE_SLACK);
+
+		if (key >= 0 && key < dense.length)
+		{
+			V previous = (V) dense[key];
+			dense[key] = value;
+			if (previous == null)
+				size++;
+			return previous;
+		}
+
+		V previous = putSparse(key, value);
+		if (previous == null)
+			size++;
+		return previous;
+	}
+
+	/**
+	 * Associates a value with the given key only if it doesn't have one yet.
+	 *
+	 * @return true if the value was added, false if the key already had a value.
+	 */
+	public boolean putIfAbsent(int key, V value)
+	{
+		if (containsKey(key))
+			return false;
+
+		put(key, value);
+		return true;
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	public boolean isEmpty()
+	{
+		return (size == 0);
+	}
+
+	public void clear()
+	{
+		dense = new Object[0];
+		sparseKeys = null;
+		sparseValues = null;
+		sparseSize = 0;
+		size = 0;
+	}
+
+	private void growDense(int newLength)
+	{
+		Object[] newDense = new Object[newLength];
+		System.arraycopy(dense, 0, newDense, 0, dense.length);
+		dense = newDense;
+
+		// move over sparse entries that now fall within the dense range
+		if (sparseSize > 0)
+		{
+			int[] oldKeys = sparseKeys;
+			Object[] oldValues = sparseValues;
+			sparseKeys = new int[oldKeys.length];
+			sparseValues = new Object[oldValues.length];
+			sparseSize = 0;
+
+			for (int i = 0; i < oldKeys.length; i++)
+			{
+				if (oldValues[i] == null)
+					continue;
+
+				if (oldKeys[i] >= 0 && oldKeys[i] < dense.length)
+					dense[oldKeys[i]] = oldValues[i];
+				else
+					putSparse(oldKeys[i], oldValues[i]);
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private V putSparse(int key, Object value)
+	{
+		if (sparseKeys == null)
+		{
+			sparseKeys = new int[8];
+			sparseValues = new Object[8];
+		}
+		else if ((sparseSize + 1) * 2 > sparseKeys.length)
+		{
+			rehashSparse(sparseKeys.length * 2);
+		}
+
+		int mask = sparseKeys.length - 1;
+		int slot = hash(key) & mask;
+		while (sparseValues[slot] != null)
+		{
+			if (sparseKeys[slot] == key)
+			{
+				V previous = (V) sparseValues[slot];
+				sparseValues[slot] = value;
+				return previous;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		sparseKeys[slot] = key;
+		sparseValues[slot] = value;
+		sparseSize++;
+		return null;
+	}
+
+	private void rehashSparse(int capacity)
+	{
+		int[] oldKeys = sparseKeys;
+		Object[] oldValues = sparseValues;
+		sparseKeys = new int[capacity];
+		sparseValues = new Object[capacity];
+		sparseSize = 0;
+
+		for (int i = 0; i < oldKeys.length; i++)
+		{
+			if (oldValues[i] != null)
+				putSparse(oldKeys[i], oldValues[i]);
+		}
+	}
+
+	private static int hash(int key)
+	{
+		int h = key * 0x9E3779B9; // golden ratio multiplier spreads consecutive keys
+		return h ^ (h >>> 16);
+	}
+}
@@ -0,0 +1,63 @@
+package com.voetsjoeba.imdb.util;
+
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * Holds a value that is computed on first access and then remembered. The value is computed at most once, even when
+ * accessed concurrently.
+ * 
+ * @author Jeroen De Ridder
+ */
+@ThreadSafe
+public abstract class LazyValue<T>
+{
+	private volatile boolean computed;
+	private T value; // published by the write to computed
+	
+	/**
+	 * Returns a lazy value that already holds the given value.
+	 */
+	public static <T> LazyValue<T> of(final T value)
+	{
+		return new LazyValue<T>() {
+			@Override
+			protected T compute()
+			{
+				return value;
+			}
+		};
+	}
+	
+	/**
+	 * Returns the value, computing it first if this is the first access.
+	 */
+	public T get()
+	{
+		if (!computed)
+		{
+			synchronized (this)
+			{
+				if (!computed)
+				{
+					value = compute();
+					computed = true;
+				}
+			}
+		}
+		return value;
+	}
+	
+	/**
+	 * Returns true if the value has already been computed.
+	 */
+	public boolean isComputed()
+	{
+		return computed;
+	}
+	
+	/**
+	 * Computes the value. Called at most once, unless it throws an exception, in which case the next call to 
+	 * {@link #get()} tries again.
+	 */
+	protected abstract T compute();
+}
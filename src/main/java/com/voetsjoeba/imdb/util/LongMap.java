@@ -0,0 +1,140 @@
+package com.voetsjoeba.imdb.util;
+
+import net.jcip.annotations.NotThreadSafe;
+
+/**
+ * Open-addressing hash map from primitive long keys to non-null values, without boxing the keys.
+ *
+ * @author Jeroen De Ridder
+ * @see IntMap
+ */
+@NotThreadSafe
+public class LongMap<V>
+{
+	private long[] keys;
+	private Object[] values; // null means the slot is empty
+	private int size;
+
+	public LongMap()
+	{
+		this(8);
+	}
+
+	/**
+	 * Creates a map that can hold the given amount of entries without resizing.
+	 */
+	public LongMap(int expectedSize)
+	{
+		int capacity = 8;
+		while (capacity < expectedSize * 2)
+			capacity <<= 1;
+
+		keys = new long[capacity];
+		values = new Object[capacity];
+	}
+
+	/**
+	 * Returns the value for the given key, or null if there is none.
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(long key)
+	{
+		int mask = keys.length - 1;
+		for (int slot = hash(key) & mask; values[slot] != null; slot = (slot + 1) & mask)
+		{
+			if (keys[slot] == key)
+				return (V) values[slot];
+		}
+		return null;
+	}
+
+	public boolean containsKey(long key)
+	{
+		return (get(key) != null);
+	}
+
+	/**
+	 * Associates a value with the given key, replacing any previous value.
+	 *
+	 * @return the previous value for the key, or null if there was none.
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(long key, V value)
+	{
+		if (value == null)
+			throw new IllegalArgumentException("Values must not be null");
+
+		if ((size + 1) * 2 > keys.length)
+			rehash(keys.length * 2);
+
+		int mask = keys.length - 1;
+		int slot = hash(key) & mask;
+		while (values[slot] != null)
+		{
+			if (keys[slot] == key)
+			{
+				V previous = (V) values[slot];
+				values[slot] = value;
+				return previous;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		keys[slot] = key;
+		values[slot] = value;
+		size++;
+		return null;
+	}
+
+	/**
+	 * Associates a value with the given key only if it doesn't have one yet.
+	 *
+	 * @return true if the value was added, false if the key already had a value.
+	 */
+	public boolean putIfAbsent(long key, V value)
+	{
+		if (containsKey(key))
+			return false;
+
+		put(key, value);
+		return true;
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	public boolean isEmpty()
+	{
+		return (size == 0);
+	}
+
+	private void rehash(int capacity)
+	{
+		long[] oldKeys = keys;
+		Object[] oldValues = values;
+		keys = new long[capacity];
+		values = new Object[capacity];
+
+		int mask = capacity - 1;
+		for (int i = 0; i < oldKeys.length; i++)
+		{
+			if (oldValues[i] == null)
+				continue;
+
+			int slot = hash(oldKeys[i]) & mask;
+			while (values[slot] != null)
+				slot = (slot + 1) & mask;
+
+			keys[slot] = oldKeys[i];
+			values[slot] = oldValues[i];
+		}
+	}
+
+	private static int hash(long key)
+	{
+		long h = key * 0x9E3779B97F4A7C15L; // golden ratio multiplier spreads consecutive keys
+		return (int) (h ^ (h >>> 32));
+	}
+}
@@ -0,0 +1,57 @@
+package com.voetsjoeba.imdb.util;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * Coalesces concurrent executions of the same work. While a computation for a given key is in progress, other threads
+ * asking for the same key do not start their own but wait for the running one, and receive its result or its failure.
+ * Once the computation has finished, the next request for the key starts a new one; results are not retained.
+ *
+ * @author Jeroen De Ridder
+ */
+@ThreadSafe
+public class SingleFlight<K, V>
+{
+	private final ConcurrentMap<K, FutureTask<V>> inFlight = new ConcurrentHashMap<K, FutureTask<V>>();
+
+	/**
+	 * Runs the given callable on the calling thread, unless a computation for the same key is already in progress, in
+	 * which case that one's outcome is awaited and returned instead.
+	 *
+	 * @throws ExecutionException wrapping the exception thrown by the callable (whichever thread ran it).
+	 * @throws InterruptedException if the calling thread was interrupted while waiting for another thread's computation.
+	 */
+	public V execute(K key, Callable<V> callable) throws ExecutionException, InterruptedException
+	{
+		FutureTask<V> task = new FutureTask<V>(callable);
+		FutureTask<V> existingTask = inFlight.putIfAbsent(key, task);
+
+		if (existingTask != null)
+			return existingTask.get();
+
+		try
+		{
+			task.run();
+		}
+		finally
+		{
+			inFlight.remove(key, task);
+		}
+
+		return task.get();
+	}
+
+	/**
+	 * Returns the amount of computations currently in progress.
+	 */
+	public int getInFlightCount()
+	{
+		return inFlight.size();
+	}
+}
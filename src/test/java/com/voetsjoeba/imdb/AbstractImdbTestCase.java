@@ -1,9 +1,14 @@
 package com.voetsjoeba.imdb;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import junit.framework.TestCase;
 
 import com.voetsjoeba.imdb.domain.LimitedTitle;
+import com.voetsjoeba.imdb.domain.StringSearchable;
 import com.voetsjoeba.imdb.domain.api.BaseTitle;
+import com.voetsjoeba.imdb.domain.api.Searchable;
 
 /**
  * Helper class for some utility functions.
@@ -28,4 +33,12 @@ public abstract class AbstractImdbTestCase extends TestCase {
 		return searcher.search(query);
 	}
 	
+	protected BatchSearchResults searchBatch(int parallelism, String... queries) throws Exception {
+		List<Searchable> searchables = new ArrayList<Searchable>();
+		for(String query : queries){
+			searchables.add(new StringSearchable(query));
+		}
+		return searcher.searchBatch(searchables, parallelism);
+	}
+	
 }
@@ -0,0 +1,56 @@
+package com.voetsjoeba.imdb;
+
+import java.util.Calendar;
+
+import junit.framework.TestCase;
+
+import com.voetsjoeba.imdb.domain.AirDate;
+
+public class AirDateParserTest extends TestCase {
+	
+	public void testFullDate() throws Exception {
+		
+		AirDate airDate = AirDateParser.parse("24 September 2007");
+		assertEquals(new AirDate(2007, 9, 24), airDate);
+		assertTrue(airDate.isComplete());
+		assertEquals("2007-09-24", airDate.toString());
+		
+		Calendar calendar = airDate.toCalendar();
+		assertEquals(2007, calendar.get(Calendar.YEAR));
+		assertEquals(Calendar.SEPTEMBER, calendar.get(Calendar.MONTH));
+		assertEquals(24, calendar.get(Calendar.DAY_OF_MONTH));
+		
+	}
+	
+	public void testPartialDates() throws Exception {
+		
+		assertEquals(new AirDate(2007), AirDateParser.parse("2007"));
+		assertEquals(new AirDate(2007, 9, AirDate.UNKNOWN), AirDateParser.parse(" September  2007 "));
+		assertEquals(new AirDate(2005, 1, 3), AirDateParser.parse("3 Jan. 2005"));
+		
+	}
+	
+	public void testMonthLengths() throws Exception {
+		
+		assertEquals(new AirDate(2010, 1, 31), AirDateParser.parse("31 January 2010"));
+		assertEquals(new AirDate(2010, 4, 30), AirDateParser.parse("30 April 2010"));
+		assertNull(AirDateParser.parse("31 April 2010"));
+		assertNull(AirDateParser.parse("31 February 2010"));
+		assertNull(AirDateParser.parse("29 February 2010"));
+		assertEquals(new AirDate(2008, 2, 29), AirDateParser.parse("29 February 2008"));
+		assertEquals(new AirDate(2000, 2, 29), AirDateParser.parse("29 February 2000"));
+		assertNull(AirDateParser.parse("29 February 1900"));
+		
+	}
+	
+	public void testUnparseable() throws Exception {
+		
+		assertNull(AirDateParser.parse(null));
+		assertNull(AirDateParser.parse("????"));
+		assertNull(AirDateParser.parse("32 September 2007"));
+		assertNull(AirDateParser.parse("24 Smarch 2007"));
+		assertNull(AirDateParser.parse("sometime"));
+		
+	}
+	
+}
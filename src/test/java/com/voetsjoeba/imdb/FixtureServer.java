@@ -0,0 +1,152 @@
+package com.voetsjoeba.imdb;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import com.voetsjoeba.imdb.util.DaemonThreadFactory;
+import com.voetsjoeba.imdb.util.ImdbUrls;
+
+/**
+ * Serves pages and images from memory over HTTP on the loopback interface, so that the whole stack, HTTP transport
+ * included, can be run in tests and benchmarks without going out to IMDb. Point a searcher at it through
+ * {@link #getImdbUrls()}. Pages are gzipped for clients that accept it, and answered with a 304 response when the
+ * client already has the current version.
+ *
+ * @author Jeroen De Ridder
+ */
+public class FixtureServer {
+
+	private static class Fixture {
+
+		final byte[] content;
+		final String contentType;
+		final String etag;
+
+		Fixture(byte[] content, String contentType, String etag){
+			this.content = content;
+			this.contentType = contentType;
+			this.etag = etag;
+		}
+	}
+
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final Map<String, Fixture> fixtures = new ConcurrentHashMap<String, Fixture>();
+	final List<String> requests = Collections.synchronizedList(new ArrayList<String>());
+
+	/**
+	 * Creates and starts a server on a free port.
+	 */
+	public FixtureServer() throws IOException {
+		executor = Executors.newCachedThreadPool(new DaemonThreadFactory("fixture-server"));
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getByName("127.0.0.1"), 0), 0);
+		server.setExecutor(executor);
+		server.createContext("/", new HttpHandler(){
+			public void handle(HttpExchange exchange) throws IOException {
+				try {
+					serve(exchange);
+				}
+				finally {
+					exchange.close();
+				}
+			}
+		});
+		server.start();
+	}
+
+	/**
+	 * Returns the URL builder for the pages on this server.
+	 */
+	public ImdbUrls getImdbUrls(){
+		return new ImdbUrls("http://127.0.0.1:" + server.getAddress().getPort());
+	}
+
+	/**
+	 * Serves an HTML page at the given path, which includes the query string if any (e.g. <tt>/find?s=all&amp;q=x</tt>).
+	 */
+	public void putPage(String path, String html){
+		putPage(path, html, null);
+	}
+
+	/**
+	 * Serves an HTML page at the given path with the given entity tag, or none if null.
+	 */
+	public void putPage(String path, String html, String etag){
+		try {
+			fixtures.put(path, new Fixture(html.getBytes("UTF-8"), "text/html; charset=UTF-8", etag));
+		}
+		catch(IOException e) {
+			throw new Error(e); // won't happen, UTF-8 is supported
+		}
+	}
+
+	public void putImage(String path, byte[] image, String contentType){
+		fixtures.put(path, new Fixture(image, contentType, null));
+	}
+
+	/**
+	 * Returns the paths that were requested so far, in order.
+	 */
+	public List<String> getRequests(){
+		synchronized(requests){
+			return new ArrayList<String>(requests);
+		}
+	}
+
+	public void stop(){
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	private void serve(HttpExchange exchange) throws IOException {
+
+		String path = exchange.getRequestURI().getRawPath();
+		if(exchange.getRequestURI().getRawQuery() != null) path += "?" + exchange.getRequestURI().getRawQuery();
+		requests.add(path);
+
+		Fixture fixture = fixtures.get(path);
+		if(fixture == null){
+			exchange.sendResponseHeaders(404, -1);
+			return;
+		}
+
+		if(fixture.etag != null){
+			exchange.getResponseHeaders().set("ETag", fixture.etag);
+			if(fixture.etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))){
+				exchange.sendResponseHeaders(304, -1);
+				return;
+			}
+		}
+
+		byte[] content = fixture.content;
+		String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+		if(fixture.contentType.startsWith("text/") && acceptEncoding != null && acceptEncoding.contains("gzip")){
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			GZIPOutputStream gzip = new GZIPOutputStream(bytes);
+			gzip.write(content);
+			gzip.close();
+			content = bytes.toByteArray();
+			exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+		}
+
+		exchange.getResponseHeaders().set("Content-Type", fixture.contentType);
+		exchange.sendResponseHeaders(200, content.length);
+		OutputStream out = exchange.getResponseBody();
+		out.write(content);
+		out.close();
+	}
+}
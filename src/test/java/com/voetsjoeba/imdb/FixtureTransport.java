@@ -0,0 +1,67 @@
+package com.voetsjoeba.imdb;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.http.HttpException;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+import com.voetsjoeba.imdb.http.ConditionalPage;
+import com.voetsjoeba.imdb.http.PageValidators;
+import com.voetsjoeba.imdb.http.Transport;
+
+/**
+ * Serves pages from memory, and remembers which URLs were requested.
+ *
+ * @author Jeroen De Ridder
+ */
+class FixtureTransport implements Transport {
+
+	final Map<String, String> pages = new HashMap<String, String>();
+	final Map<String, byte[]> images = new HashMap<String, byte[]>();
+	final Map<String, String> etags = new HashMap<String, String>();
+	final List<String> requests = Collections.synchronizedList(new ArrayList<String>());
+
+	public String getPage(String url) throws IOException, HttpException {
+		requests.add(url);
+		String page = pages.get(url);
+		if(page == null) throw new HttpException("No fixture for " + url);
+		return page;
+	}
+
+	public Document getDocument(String url) throws IOException, HttpException {
+		return Jsoup.parse(getPage(url), url);
+	}
+
+	public ConditionalPage getDocument(String url, PageValidators validators) throws IOException, HttpException {
+		ConditionalPage page = getPage(url, validators);
+		return (page.isModified() ? ConditionalPage.modified(Jsoup.parse(page.getContent(), url), page.getValidators()) : page);
+	}
+
+	public ConditionalPage getPage(String url, PageValidators validators) throws IOException, HttpException {
+		String etag = etags.get(url);
+		if(etag != null && etag.equals(validators.getEtag())){
+			requests.add(url);
+			return ConditionalPage.notModified(validators);
+		}
+		return ConditionalPage.modified(getPage(url), new PageValidators(etag, null));
+	}
+
+	public BufferedImage fetchImage(String url) throws IOException, HttpException {
+		requests.add(url);
+		throw new HttpException("No images in fixtures");
+	}
+
+	public byte[] getImageBytes(String url) throws IOException, HttpException {
+		requests.add(url);
+		byte[] image = images.get(url);
+		if(image == null) throw new HttpException("No fixture for " + url);
+		return image;
+	}
+}
@@ -0,0 +1,206 @@
+package com.voetsjoeba.imdb;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import junit.framework.TestCase;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+import com.voetsjoeba.imdb.domain.StandardSeries;
+import com.voetsjoeba.imdb.domain.api.Episode;
+import com.voetsjoeba.imdb.domain.api.Movie;
+import com.voetsjoeba.imdb.domain.api.Season;
+import com.voetsjoeba.imdb.domain.api.Series;
+import com.voetsjoeba.imdb.domain.api.Title;
+
+/**
+ * Parser tests against generated pages, so they don't depend on IMDb being reachable.
+ *
+ * @author Jeroen De Ridder
+ */
+public class ImdbParserTest extends TestCase {
+
+	private static final String SERIES_URL = "http://www.imdb.com/title/tt0386676";
+
+	static String episodeListing(int seasons, int episodesPerSeason){
+		StringBuilder html = new StringBuilder("<html><body><div id=\"tn15content\">");
+		for(int season = 1; season <= seasons; season++){
+			for(int episode = 1; episode <= episodesPerSeason; episode++){
+				appendEpisode(html, season, episode);
+			}
+		}
+		return html.append("</div></body></html>").toString();
+	}
+
+	/**
+	 * Builds a listing of the given season/episode number pairs, in order.
+	 */
+	private static String episodeListing(int[][] seasonEpisodes){
+		StringBuilder html = new StringBuilder("<html><body><div id=\"tn15content\">");
+		for(int[] seasonEpisode : seasonEpisodes){
+			appendEpisode(html, seasonEpisode[0], seasonEpisode[1]);
+		}
+		return html.append("</div></body></html>").toString();
+	}
+
+	private static void appendEpisode(StringBuilder html, int season, int episode){
+		html.append("<h4>Season ").append(season).append(", Episode ").append(episode).append(": ");
+		html.append("<a href=\"/title/tt").append(season * 10000 + episode).append("/\">Episode ").append(season).append(".").append(episode).append("</a></h4>");
+		html.append("<b>").append(1 + episode % 28).append(" March ").append(2004 + season).append("</b><br/>");
+		html.append("Plot of ").append(season).append(".").append(episode).append("<hr/>");
+	}
+
+	/**
+	 * Builds a title page in the layout the parser expects.
+	 */
+	static String titlePage(String id, String title, boolean series){
+		StringBuilder html = new StringBuilder("<html><head><title>").append(title).append(" - IMDb</title>");
+		html.append("<link rel=\"canonical\" href=\"http://www.imdb.com/title/").append(id).append("/\" />");
+		html.append("<meta name=\"title\" content=\"").append(title).append("\"></head><body><table><tr>");
+		html.append("<td id=\"img_primary\"><div><a href=\"/media/\"><img src=\"http://ia.media-imdb.com/images/").append(id).append(".jpg\" /></a></div></td>");
+		html.append("<td id=\"overview-top\">");
+		if(series){
+			html.append("<div class=\"infobar\">TV Series - 30 min</div>");
+			html.append("<h1 class=\"header\"><span class=\"itemprop\">").append(title).append("</span> <span class=\"nobr\">(TV Series 2004 - 2012)</span></h1>");
+		}
+		else {
+			html.append("<div class=\"infobar\">PG-13 - 120 min</div>");
+			html.append("<h1 class=\"header\"><span class=\"itemprop\">").append(title).append("</span> <span class=\"nobr\">(<a href=\"/year/1999/\">1999</a>)</span></h1>");
+		}
+		html.append("<div class=\"star-box giga-star\"><div class=\"star-box-details\"><strong><span>8.4</span></strong>/<span>10</span></div></div>");
+		html.append("<div class=\"txt-block\"><h4>Stars:</h4> <a href=\"/name/nm0000001/\"><span>First Star</span></a>, <a href=\"/name/nm0000002/\"><span>Second Star</span></a></div>");
+		html.append("</td></tr></table>");
+		html.append("<div id=\"maindetails_center_bottom\"><div class=\"article\"><h2>Storyline</h2><div><p>What happens in ").append(title).append(".</p></div>");
+		html.append("<div class=\"txt-block\"><h4>Taglines:</h4> Some tagline <span>See more</span></div>");
+		html.append("<div class=\"see-more inline\"><h4>Genres:</h4> <a href=\"/genre/Drama\">Drama</a> | <a href=\"/genre/Comedy\">Comedy</a></div>");
+		html.append("</div></div></body></html>");
+		return html.toString();
+	}
+
+	private StandardSeries parseSeries(String episodeListing){
+		return parseSeries(episodeListing, null);
+	}
+
+	private StandardSeries parseSeries(String episodeListing, ExecutorService episodeParsingExecutor){
+		FixtureTransport transport = new FixtureTransport();
+		transport.pages.put(SERIES_URL + "/epcast", episodeListing);
+
+		StandardSeries series = new StandardSeries("tt0386676");
+		ImdbParser.parseSeriesInfo(ImdbParser.TitlePageNodes.scan(Jsoup.parse("<html><body></body></html>")), series, transport, episodeParsingExecutor);
+		series.getSeasons(); // loaded lazily, make sure that happens now
+		return series;
+	}
+
+	public void testEpisodeListing() throws Exception {
+
+		StandardSeries series = parseSeries(episodeListing(3, 5));
+
+		List<Season> seasons = series.getSeasons();
+		assertEquals(3, seasons.size());
+		assertEquals(5, series.getSeason(2).getEpisodes().size());
+
+		Episode episode = series.getSeason(2).getEpisode(3);
+		assertEquals("Episode 2.3", episode.getTitle());
+		assertEquals("Plot of 2.3", episode.getPlot());
+		assertEquals("2006-03-04", episode.getAirDateValue().toString());
+
+	}
+
+	public void testSparseSeasonNumbers() throws Exception {
+
+		StandardSeries series = parseSeries(episodeListing(new int[][]{{3, 1}, {0, 1}, {1, 1}, {1, 2}, {2015, 1}, {0, 2}}));
+
+		List<Season> seasons = series.getSeasons();
+		assertEquals(4, seasons.size());
+		assertEquals(Integer.valueOf(0), seasons.get(0).getNumber());
+		assertEquals(Integer.valueOf(1), seasons.get(1).getNumber());
+		assertEquals(Integer.valueOf(3), seasons.get(2).getNumber());
+		assertEquals(Integer.valueOf(2015), seasons.get(3).getNumber());
+
+		assertEquals(2, series.getSeason(0).getEpisodes().size());
+		assertEquals("Episode 2015.1", series.getSeason(2015).getEpisode(1).getTitle());
+		assertFalse(series.hasSeason(2));
+
+	}
+
+	public void testSinglePassFindsSameNodesAsSelectors() throws Exception {
+
+		for(boolean series : new boolean[]{true, false}){
+			Document document = Jsoup.parse(titlePage("tt0386676", "Some Title", series), SERIES_URL);
+			ImdbParser.TitlePageNodes nodes = ImdbParser.TitlePageNodes.scan(document);
+
+			assertSame(ImdbParser.SelectorPlan.CANONICAL_LINK.first(document), nodes.canonicalLink);
+			assertSame(ImdbParser.SelectorPlan.INFOBAR.first(document), nodes.infobar);
+			assertSame(ImdbParser.SelectorPlan.THUMBNAIL.first(document), nodes.thumbnail);
+			assertSame(ImdbParser.SelectorPlan.TITLE_NAME.first(document), nodes.titleName);
+			assertSame(ImdbParser.SelectorPlan.RATING.first(document), nodes.rating);
+			assertEquals(ImdbParser.SelectorPlan.GENRES.select(document), nodes.genres);
+			assertEquals(ImdbParser.SelectorPlan.STARS.select(document), nodes.stars);
+			assertSame(ImdbParser.SelectorPlan.TAGLINE.first(document), nodes.tagline);
+			assertSame(ImdbParser.SelectorPlan.PLOT.first(document), nodes.plot);
+			assertSame(ImdbParser.SelectorPlan.SERIES_YEAR.first(document), nodes.seriesYear);
+			assertSame(ImdbParser.SelectorPlan.MOVIE_YEAR.first(document), nodes.movieYear);
+		}
+
+	}
+
+	public void testTitlePage() throws Exception {
+
+		FixtureTransport transport = new FixtureTransport();
+		transport.pages.put(SERIES_URL + "/epcast", episodeListing(2, 3));
+
+		Title series = ImdbParser.parseTitlePage(Jsoup.parse(titlePage("tt0386676", "Some Series", true), SERIES_URL), false, transport);
+		assertTrue(series instanceof Series);
+		assertEquals("tt0386676", series.getId());
+		assertEquals("Some Series", series.getTitle());
+		assertEquals(Integer.valueOf(2004), series.getYear());
+		assertEquals(Integer.valueOf(84), series.getRating());
+		assertEquals(Arrays.asList("Drama", "Comedy"), series.getGenres());
+		assertEquals(2, series.getStars().size());
+		assertEquals("nm0000002", series.getStars().get(1).getId());
+		assertEquals("Some tagline", series.getTagline());
+		assertEquals("What happens in Some Series.", series.getPlot());
+		assertEquals("http://ia.media-imdb.com/images/tt0386676.jpg", series.getThumbnailUrl());
+		assertEquals(2, ((Series) series).getSeasons().size());
+
+		Title movie = ImdbParser.parseTitlePage(Jsoup.parse(titlePage("tt0133093", "Some Movie", false), "http://www.imdb.com/title/tt0133093"), false, transport);
+		assertTrue(movie instanceof Movie);
+		assertEquals("Some Movie", movie.getTitle());
+		assertEquals(Integer.valueOf(1999), movie.getYear());
+		assertEquals("First Star", movie.getStars().get(0).getName());
+
+	}
+
+	public void testParallelParsingMatchesSequential() throws Exception {
+
+		String listing = episodeListing(4, ImdbParser.PARALLEL_EPISODE_THRESHOLD / 2);
+		StandardSeries sequential = parseSeries(listing);
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		StandardSeries parallel;
+		try {
+			parallel = parseSeries(listing, executor);
+		}
+		finally {
+			executor.shutdown();
+		}
+
+		assertEquals(sequential.getSeasons().size(), parallel.getSeasons().size());
+		for(int s = 0; s < sequential.getSeasons().size(); s++){
+			List<Episode> expected = sequential.getSeasons().get(s).getEpisodes();
+			List<Episode> actual = parallel.getSeasons().get(s).getEpisodes();
+			assertEquals(expected.size(), actual.size());
+			for(int e = 0; e < expected.size(); e++){
+				assertEquals(expected.get(e).getNumber(), actual.get(e).getNumber());
+				assertEquals(expected.get(e).getTitle(), actual.get(e).getTitle());
+				assertEquals(expected.get(e).getAirDateValue(), actual.get(e).getAirDateValue());
+			}
+		}
+
+	}
+
+}
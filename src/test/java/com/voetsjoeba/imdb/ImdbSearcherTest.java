@@ -0,0 +1,501 @@
+package com.voetsjoeba.imdb;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+import junit.framework.TestCase;
+
+import org.apache.http.HttpException;
+
+import com.voetsjoeba.imdb.cache.LruSearchCache;
+import com.voetsjoeba.imdb.cache.ThumbnailCache;
+import com.voetsjoeba.imdb.domain.StandardSeries;
+import com.voetsjoeba.imdb.domain.StringSearchable;
+import com.voetsjoeba.imdb.domain.TitleField;
+import com.voetsjoeba.imdb.domain.api.Searchable;
+import com.voetsjoeba.imdb.domain.api.Season;
+import com.voetsjoeba.imdb.domain.api.Series;
+import com.voetsjoeba.imdb.domain.api.Title;
+import com.voetsjoeba.imdb.http.ArchivingTransport;
+import com.voetsjoeba.imdb.http.HttpTransport;
+import com.voetsjoeba.imdb.http.PageArchive;
+import com.voetsjoeba.imdb.http.PageValidators;
+import com.voetsjoeba.imdb.http.ReplayTransport;
+import com.voetsjoeba.imdb.http.TransferStatistics;
+import com.voetsjoeba.imdb.store.FileTitleStore;
+import com.voetsjoeba.imdb.util.DaemonThreadFactory;
+import com.voetsjoeba.imdb.util.ImdbUrls;
+
+/**
+ * Searcher tests against generated pages, so they don't depend on IMDb being reachable.
+ *
+ * @author Jeroen De Ridder
+ */
+public class ImdbSearcherTest extends TestCase {
+
+	private static final String ID = "tt0386676";
+	private static final String TITLE_URL = "http://www.imdb.com/title/" + ID;
+	private static final String THUMBNAIL_URL = "http://ia.media-imdb.com/images/" + ID + ".jpg";
+
+	private FixtureTransport transport;
+	private ImdbSearcher searcher;
+
+	/**
+	 * Holds up each page fetch until it is released, and keeps track of how many fetches were running at the same time.
+	 */
+	private static class SlowTransport extends FixtureTransport {
+
+		final AtomicInteger active = new AtomicInteger();
+		final AtomicInteger maxActive = new AtomicInteger();
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release;
+		final long delay;
+
+		SlowTransport(CountDownLatch release, long delay){
+			this.release = release;
+			this.delay = delay;
+		}
+
+		@Override
+		public String getPage(String url) throws IOException, HttpException {
+			int running = active.incrementAndGet();
+			try {
+				int max;
+				while(running > (max = maxActive.get()) && !maxActive.compareAndSet(max, running));
+				started.countDown();
+
+				release.await();
+				Thread.sleep(delay);
+				return super.getPage(url);
+			}
+			catch(InterruptedException e){
+				throw new InterruptedIOException("Interrupted while fetching " + url);
+			}
+			finally {
+				active.decrementAndGet();
+			}
+		}
+	}
+
+	private static class RecordingCallback implements SearchCallback {
+
+		final CountDownLatch called = new CountDownLatch(1);
+		volatile ImdbSearchResults results;
+		volatile Throwable failure;
+
+		public void searchCompleted(Searchable searchable, ImdbSearchResults results){
+			this.results = results;
+			called.countDown();
+		}
+
+		public void searchFailed(Searchable searchable, Throwable cause){
+			this.failure = cause;
+			called.countDown();
+		}
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		transport = new FixtureTransport();
+		transport.pages.put(TITLE_URL, ImdbParserTest.titlePage(ID, "Some Series", true));
+		transport.pages.put(TITLE_URL + "/epcast", ImdbParserTest.episodeListing(2, 3));
+		transport.images.put(THUMBNAIL_URL, image(3, 2));
+		searcher = new ImdbSearcher(transport);
+	}
+
+	public void testBasicFieldsSkipEpisodeListing() throws Exception {
+
+		Title title = searcher.search(new StringSearchable(ID), TitleField.of()).getExactMatch();
+
+		assertEquals("Some Series", title.getTitle());
+		assertEquals(Integer.valueOf(2004), title.getYear());
+		assertNull(title.getRating());
+		assertNull(title.getGenres());
+		assertNull(title.getStars());
+		assertNull(title.getPlot());
+		assertNull(((Series) title).getSeasons());
+		assertEquals(EnumSet.of(TitleField.BASIC), title.getFields());
+		assertEquals(1, transport.requests.size());
+
+	}
+
+	public void testCachedResultsMustHoldRequestedFields() throws Exception {
+
+		searcher.setCache(new LruSearchCache());
+
+		searcher.search(new StringSearchable(ID), TitleField.of(TitleField.RATING));
+		assertEquals(1, transport.requests.size());
+
+		// served from the cache, the rating was parsed already
+		assertEquals(Integer.valueOf(84), searcher.search(new StringSearchable(ID), TitleField.of(TitleField.RATING)).getExactMatch().getRating());
+		assertEquals(1, transport.requests.size());
+
+		// episodes weren't parsed, so the title page and episode listing must be fetched
+		Title title = searcher.search(new StringSearchable(ID), TitleField.all(false)).getExactMatch();
+		assertEquals(2, ((Series) title).getSeasons().size());
+		assertEquals(3, transport.requests.size());
+
+		// which now serves anything short of the thumbnail
+		searcher.search(new StringSearchable(ID), TitleField.of(TitleField.CAST));
+		assertEquals(3, transport.requests.size());
+
+	}
+
+	public void testSeasonsLoadOnFirstAccess() throws Exception {
+
+		Series series = (Series) searcher.search(new StringSearchable(ID), TitleField.all(false)).getExactMatch();
+		assertEquals(1, transport.requests.size());
+		assertFalse(series.hasLoadedSeasons());
+
+		assertTrue(series.hasSeasonEpisode(2, 3));
+		assertTrue(series.hasLoadedSeasons());
+		assertEquals(2, series.getSeasons().size());
+		assertNotNull(series.getSeason(1));
+		assertEquals(2, transport.requests.size());
+
+	}
+
+	public void testSeasonPrefetch() throws Exception {
+
+		searcher.setSeasonPrefetch(true);
+		StandardSeries series = (StandardSeries) searcher.search(new StringSearchable(ID), TitleField.all(false)).getExactMatch();
+
+		// either still loading in the background or done already; waiting on it must not load the seasons again
+		assertEquals(2, series.prefetchSeasons(Executors.newSingleThreadExecutor(new DaemonThreadFactory("test-prefetch"))).get().size());
+		assertEquals(2, transport.requests.size());
+
+	}
+
+	public void testStoredSeriesLoadSeasons() throws Exception {
+
+		File directory = File.createTempFile("titlestore", "");
+		directory.delete();
+		try {
+			FileTitleStore store = new FileTitleStore(directory);
+			searcher.setTitleStore(store);
+			searcher.search(new StringSearchable(ID), TitleField.all(false));
+			assertEquals(1, transport.requests.size()); // storing the series mustn't load its seasons
+			assertTrue(store.contains(ID));
+
+			ImdbSearcher otherSearcher = new ImdbSearcher(transport);
+			otherSearcher.setTitleStore(store);
+			Series stored = (Series) otherSearcher.search(new StringSearchable(ID), TitleField.all(false)).getExactMatch();
+			assertEquals(1, transport.requests.size());
+
+			assertEquals(2, stored.getSeasons().size());
+			assertEquals(2, transport.requests.size());
+		}
+		finally {
+			delete(directory);
+		}
+
+	}
+
+	public void testThumbnailLoadsOnFirstAccess() throws Exception {
+
+		Title title = searcher.search(new StringSearchable(ID), TitleField.of(TitleField.THUMBNAIL)).getExactMatch();
+		assertEquals(THUMBNAIL_URL, title.getThumbnailUrl());
+		assertFalse(title.hasLoadedThumbnail());
+		assertEquals(1, transport.requests.size());
+
+		BufferedImage thumbnail = title.getThumbnail();
+		assertEquals(3, thumbnail.getWidth());
+		assertEquals(2, thumbnail.getHeight());
+		assertNotNull(title.getThumbnail()); // decoded again, but not fetched again
+		assertEquals(2, transport.requests.size());
+
+	}
+
+	public void testThumbnailCache() throws Exception {
+
+		searcher.setThumbnailCache(new ThumbnailCache());
+		searcher.search(new StringSearchable(ID), TitleField.of(TitleField.THUMBNAIL)).getExactMatch().getThumbnail();
+		assertEquals(2, transport.requests.size());
+
+		// a new title for the same image is served from the thumbnail cache
+		ImdbSearcher otherSearcher = new ImdbSearcher(transport);
+		otherSearcher.setThumbnailCache(searcher.getThumbnailCache());
+		Title title = otherSearcher.search(new StringSearchable(ID), TitleField.of(TitleField.THUMBNAIL)).getExactMatch();
+		assertNotNull(title.getThumbnail());
+		assertEquals(3, transport.requests.size());
+
+	}
+
+	public void testFailedSubFetchesAreReported() throws Exception {
+
+		transport.pages.remove(TITLE_URL + "/epcast");
+		transport.images.clear();
+		searcher.setCache(new LruSearchCache());
+
+		Series series = (Series) searcher.search(new StringSearchable(ID), TitleField.all()).getExactMatch();
+		assertTrue(series.getFetchFailures().isEmpty());
+		assertNull(series.getSeasons());
+		assertNull(series.getThumbnail());
+		assertEquals(EnumSet.of(TitleField.EPISODES, TitleField.THUMBNAIL), series.getFetchFailures().keySet());
+		assertEquals(3, transport.requests.size());
+
+		// partial results aren't served from the cache
+		transport.pages.put(TITLE_URL + "/epcast", ImdbParserTest.episodeListing(2, 3));
+		series = (Series) searcher.search(new StringSearchable(ID), TitleField.all(false)).getExactMatch();
+		assertEquals(2, series.getSeasons().size());
+		assertTrue(series.getFetchFailures().isEmpty());
+
+	}
+
+	public void testRefreshRevalidatesPages() throws Exception {
+
+		transport.etags.put(TITLE_URL, "\"title-1\"");
+		transport.etags.put(TITLE_URL + "/epcast", "\"epcast-1\"");
+
+		Series series = (Series) searcher.search(new StringSearchable(ID), TitleField.all(false)).getExactMatch();
+		List<Season> seasons = series.getSeasons();
+		assertEquals("\"title-1\"", series.getPageValidators().getEtag());
+		assertEquals("\"epcast-1\"", series.getEpisodeListingValidators().getEtag());
+		assertEquals(2, transport.requests.size());
+
+		// nothing changed, nothing is parsed again
+		Series copy = (Series) searcher.refresh(series).getExactMatch();
+		assertNotSame(series, copy);
+		assertSame(series.getStars(), copy.getStars());
+		assertSame(seasons, copy.getSeasons());
+		assertEquals(4, transport.requests.size());
+
+		// only the title page changed
+		transport.pages.put(TITLE_URL, ImdbParserTest.titlePage(ID, "Renamed Series", true));
+		transport.etags.put(TITLE_URL, "\"title-2\"");
+		Series refreshed = (Series) searcher.refresh(series).getExactMatch();
+		assertEquals("Renamed Series", refreshed.getTitle());
+		assertEquals("\"title-2\"", refreshed.getPageValidators().getEtag());
+		assertSame(seasons, refreshed.getSeasons());
+		assertEquals(6, transport.requests.size());
+
+	}
+
+	public void testRefreshLeavesCachedTitleAlone() throws Exception {
+
+		transport.etags.put(TITLE_URL, "\"title-1\"");
+		transport.etags.put(TITLE_URL + "/epcast", "\"epcast-1\"");
+		searcher.setCache(new LruSearchCache());
+
+		Series cached = (Series) searcher.search(new StringSearchable(ID), TitleField.all(false)).getExactMatch();
+		List<Season> seasons = cached.getSeasons();
+
+		transport.pages.put(TITLE_URL + "/epcast", ImdbParserTest.episodeListing(3, 3));
+		transport.etags.put(TITLE_URL + "/epcast", "\"epcast-2\"");
+		Series refreshed = (Series) searcher.refresh(cached).getExactMatch();
+		assertEquals(3, refreshed.getSeasons().size());
+		assertEquals("\"epcast-2\"", refreshed.getEpisodeListingValidators().getEtag());
+
+		// whoever got the title from the cache before still sees it as it was
+		assertSame(seasons, cached.getSeasons());
+		assertEquals("\"epcast-1\"", cached.getEpisodeListingValidators().getEtag());
+		assertSame(refreshed, searcher.search(new StringSearchable(ID), TitleField.all(false)).getExactMatch());
+
+	}
+
+	public void testRefreshStoredTitle() throws Exception {
+
+		transport.etags.put(TITLE_URL, "\"title-1\"");
+		transport.etags.put(TITLE_URL + "/epcast", "\"epcast-1\"");
+
+		File directory = File.createTempFile("titlestore", "");
+		directory.delete();
+		try {
+			FileTitleStore store = new FileTitleStore(directory);
+			searcher.setTitleStore(store);
+			searcher.refresh(searcher.search(new StringSearchable(ID), TitleField.all(false)).getExactMatch());
+			assertEquals(3, transport.requests.size()); // the seasons were loaded by the refresh
+
+			Series stored = (Series) store.get(ID);
+			assertEquals("\"title-1\"", stored.getPageValidators().getEtag());
+			assertEquals("\"epcast-1\"", stored.getEpisodeListingValidators().getEtag());
+
+			transport.etags.put(TITLE_URL + "/epcast", "\"epcast-2\"");
+			Series refreshed = (Series) searcher.refresh(stored).getExactMatch();
+			assertEquals(2, refreshed.getSeasons().size());
+			assertEquals("\"epcast-1\"", stored.getEpisodeListingValidators().getEtag()); // left as it was
+			assertEquals("\"epcast-2\"", ((Series) store.get(ID)).getEpisodeListingValidators().getEtag());
+			assertEquals(5, transport.requests.size());
+		}
+		finally {
+			delete(directory);
+		}
+
+	}
+
+	public void testArchivedTitlePageReplaysAsServed() throws Exception {
+
+		File file = File.createTempFile("archive", ".txt");
+		PageArchive archive = new PageArchive(file);
+		try {
+			// looking up an id fetches the title page conditionally
+			new ImdbSearcher(new ArchivingTransport(transport, archive)).search(new StringSearchable(ID), TitleField.of());
+
+			String titlePage = transport.pages.get(TITLE_URL);
+			assertEquals(titlePage, archive.get(TITLE_URL).getContent());
+			assertEquals(titlePage, new ReplayTransport(archive).getPage(TITLE_URL));
+		}
+		finally {
+			archive.close();
+			file.delete();
+		}
+
+	}
+
+	public void testSearchThroughFixtureServer() throws Exception {
+
+		FixtureServer server = new FixtureServer();
+		HttpTransport http = new HttpTransport();
+		try {
+			server.putPage("/title/" + ID, ImdbParserTest.titlePage(ID, "Some Series", true), "\"title-1\"");
+			server.putPage("/title/" + ID + "/epcast", ImdbParserTest.episodeListing(2, 3));
+
+			ImdbUrls urls = server.getImdbUrls();
+			ImdbSearcher serverSearcher = new ImdbSearcher(http, urls);
+			Series series = (Series) serverSearcher.search(new StringSearchable(ID), TitleField.all(false)).getExactMatch();
+
+			// the title and its stars link back to the server, and its seasons are fetched from it
+			assertEquals(urls.getBaseUrl() + "/title/" + ID, series.getUrl());
+			assertEquals(urls.getBaseUrl() + "/name/nm0000001", series.getStars().get(0).getUrl());
+			assertEquals(2, series.getSeasons().size());
+			assertEquals(Arrays.asList("/title/" + ID, "/title/" + ID + "/epcast"), server.getRequests());
+
+			// revalidated rather than fetched again
+			assertEquals(series, serverSearcher.refresh(series, TitleField.of(TitleField.RATING)).getExactMatch());
+			assertEquals(3, server.getRequests().size());
+
+			// raw pages come back as they were served
+			assertFalse(http.getPage(series.getUrl(), series.getPageValidators()).isModified());
+			assertEquals(ImdbParserTest.titlePage(ID, "Some Series", true), http.getPage(series.getUrl(), PageValidators.NONE).getContent());
+
+			TransferStatistics statistics = http.getTransferStatistics();
+			assertTrue(statistics.getWireBytes() < statistics.getDecodedBytes()); // served gzipped
+		}
+		finally {
+			http.shutdown();
+			server.stop();
+		}
+
+	}
+
+	public void testSearchAsyncDeliversResults() throws Exception {
+
+		RecordingCallback callback = new RecordingCallback();
+		Future<ImdbSearchResults> search = searcher.searchAsync(new StringSearchable(ID), TitleField.of(), callback);
+
+		assertEquals("Some Series", search.get(5, TimeUnit.SECONDS).getExactMatch().getTitle());
+		assertTrue(callback.called.await(5, TimeUnit.SECONDS));
+		assertSame(search.get(), callback.results);
+		assertNull(callback.failure);
+
+	}
+
+	public void testSearchAsyncReportsFailure() throws Exception {
+
+		RecordingCallback callback = new RecordingCallback();
+		Future<ImdbSearchResults> search = searcher.searchAsync(new StringSearchable("tt0000404"), TitleField.of(), callback);
+
+		try {
+			search.get(5, TimeUnit.SECONDS);
+			fail("Expected the search to fail");
+		}
+		catch(ExecutionException e){
+			assertTrue(e.getCause() instanceof HttpException);
+		}
+		assertTrue(callback.called.await(5, TimeUnit.SECONDS));
+		assertTrue(callback.failure instanceof HttpException);
+		assertNull(callback.results);
+
+	}
+
+	public void testSearchAsyncCancellation() throws Exception {
+
+		SlowTransport slowTransport = new SlowTransport(new CountDownLatch(1), 0); // never released
+		slowTransport.pages.putAll(transport.pages);
+		ImdbSearcher slowSearcher = new ImdbSearcher(slowTransport);
+
+		RecordingCallback callback = new RecordingCallback();
+		Future<ImdbSearchResults> search = slowSearcher.searchAsync(new StringSearchable(ID), TitleField.of(), callback);
+		assertTrue(slowTransport.started.await(5, TimeUnit.SECONDS));
+
+		assertTrue(search.cancel(true));
+		assertTrue(search.isCancelled());
+
+		// the fetch is interrupted rather than left hanging, and the callback isn't told about cancelled searches
+		for(int i = 0; i < 100 && slowTransport.active.get() > 0; i++) Thread.sleep(10);
+		assertEquals(0, slowTransport.active.get());
+		assertFalse(callback.called.await(100, TimeUnit.MILLISECONDS));
+
+	}
+
+	public void testSearchBatch() throws Exception {
+
+		SlowTransport slowTransport = new SlowTransport(new CountDownLatch(0), 50);
+		List<String> ids = Arrays.asList("tt0000001", "tt0000002", "tt0000003", "tt0000004", "tt0000005");
+		for(String id : ids) slowTransport.pages.put("http://www.imdb.com/title/" + id, ImdbParserTest.titlePage(id, "Title " + id, false));
+		ImdbSearcher batchSearcher = new ImdbSearcher(slowTransport, Executors.newFixedThreadPool(4, new DaemonThreadFactory("test-batch")));
+
+		List<Searchable> searchables = Arrays.<Searchable>asList(
+			new StringSearchable("tt0000001"),
+			new StringSearchable("tt0000002"),
+			new StringSearchable("tt0000404"), // no such page
+			new StringSearchable("tt0000001"),
+			new StringSearchable("tt0000003"),
+			new StringSearchable("tt0000004"),
+			new StringSearchable("tt0000002"),
+			new StringSearchable("tt0000005")
+		);
+		BatchSearchResults batch = batchSearcher.searchBatch(searchables, 2, TitleField.of());
+
+		// one item per searchable, in order
+		assertEquals(searchables.size(), batch.size());
+		for(int i = 0; i < searchables.size(); i++) assertSame(searchables.get(i), batch.getItem(i).getSearchable());
+		assertEquals("Title tt0000001", batch.getItem(0).getResults().getExactMatch().getTitle());
+		assertEquals("Title tt0000005", batch.getItem(7).getResults().getExactMatch().getTitle());
+
+		// the failed lookup doesn't take the others down with it
+		assertTrue(batch.hasFailures());
+		assertEquals(1, batch.getFailedItems().size());
+		assertTrue(batch.getItem(2).getFailure() instanceof HttpException);
+		assertNull(batch.getItem(2).getResults());
+		assertNull(batch.getItem(3).getFailure());
+
+		// duplicates are looked up once and share their results
+		assertSame(batch.getItem(0).getResults(), batch.getItem(3).getResults());
+		assertSame(batch.getItem(1).getResults(), batch.getItem(6).getResults());
+		assertEquals(6, slowTransport.requests.size());
+
+		// never more than the parallelism limit at once, even though the executor has threads to spare
+		assertEquals(2, slowTransport.maxActive.get());
+
+	}
+
+	private static byte[] image(int width, int height) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", out);
+		return out.toByteArray();
+	}
+
+	private void delete(File file){
+		File[] children = file.listFiles();
+		if(children != null){
+			for(File child : children) delete(child);
+		}
+		file.delete();
+	}
+
+}
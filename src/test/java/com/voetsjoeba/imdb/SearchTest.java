@@ -114,6 +114,20 @@ public class SearchTest extends AbstractImdbTestCase {
 		assertTrue(results.getMatches().size() == 0);
 	}
 	
+	public void testBatchSearch() throws Exception {
+		
+		BatchSearchResults results = searchBatch(2, "tt1127180", "tt0151804", " tt1127180 ");
+		assertEquals(3, results.size());
+		assertFalse(results.hasFailures());
+		
+		assertEquals("tt1127180", results.getItem(0).getResults().getExactMatch().getId());
+		assertEquals("tt0151804", results.getItem(1).getResults().getExactMatch().getId());
+		
+		// identical search terms are only looked up once
+		assertSame(results.getItem(0).getResults(), results.getItem(2).getResults());
+		
+	}
+	
 	public void testSeriesAndEpisodes_TheOffice() throws Exception {
 		
 		ImdbSearchResults theOfficeResults = search("tt0386676");
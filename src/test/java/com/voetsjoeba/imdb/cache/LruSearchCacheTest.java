@@ -0,0 +1,145 @@
+package com.voetsjoeba.imdb.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import com.voetsjoeba.imdb.ImdbSearchResults;
+import com.voetsjoeba.imdb.domain.LimitedTitle;
+import com.voetsjoeba.imdb.domain.SeasonList;
+import com.voetsjoeba.imdb.domain.StandardEpisode;
+import com.voetsjoeba.imdb.domain.StandardMovie;
+import com.voetsjoeba.imdb.domain.StandardSeason;
+import com.voetsjoeba.imdb.domain.StandardSeries;
+import com.voetsjoeba.imdb.domain.api.BaseTitle;
+import com.voetsjoeba.imdb.domain.api.Episode;
+import com.voetsjoeba.imdb.domain.api.Season;
+import com.voetsjoeba.imdb.util.LazyValue;
+
+public class LruSearchCacheTest extends TestCase {
+
+	private long now;
+
+	private LruSearchCache createCache(int maxEntries, long maxWeight){
+		return new LruSearchCache(maxEntries, maxWeight, 1000, 100){
+			@Override
+			protected long currentTimeMillis(){
+				return now;
+			}
+		};
+	}
+
+	private ImdbSearchResults exactMatch(String id){
+		return new ImdbSearchResults(new StandardMovie(id));
+	}
+
+	private ImdbSearchResults resultList(int size){
+		List<BaseTitle> matches = new ArrayList<BaseTitle>();
+		for(int i = 0; i < size; i++){
+			matches.add(new LimitedTitle("tt" + i));
+		}
+		return new ImdbSearchResults(matches);
+	}
+
+	public void testHitAndMiss() throws Exception {
+
+		LruSearchCache cache = createCache(10, 100);
+		ImdbSearchResults results = exactMatch("tt1127180");
+
+		assertNull(cache.get("drag me to hell"));
+		cache.put("drag me to hell", results);
+		assertSame(results, cache.get("drag me to hell"));
+
+		CacheStatistics statistics = cache.getStatistics();
+		assertEquals(1, statistics.getHitCount());
+		assertEquals(1, statistics.getMissCount());
+		assertEquals(1, statistics.getSize());
+
+	}
+
+	public void testLeastRecentlyUsedIsEvicted() throws Exception {
+
+		LruSearchCache cache = createCache(2, 100);
+		cache.put("a", exactMatch("tt1"));
+		cache.put("b", exactMatch("tt2"));
+		cache.get("a");
+		cache.put("c", exactMatch("tt3"));
+
+		assertNotNull(cache.get("a"));
+		assertNull(cache.get("b"));
+		assertNotNull(cache.get("c"));
+		assertEquals(1, cache.getStatistics().getEvictionCount());
+
+	}
+
+	public void testWeightLimit() throws Exception {
+
+		LruSearchCache cache = createCache(10, 10);
+		cache.put("a", resultList(6));
+		cache.put("b", resultList(6));
+
+		assertNull(cache.get("a"));
+		assertNotNull(cache.get("b"));
+		assertEquals(6, cache.getStatistics().getWeight());
+
+		cache.put("c", resultList(11)); // too heavy to ever fit
+		assertNull(cache.get("c"));
+		assertNotNull(cache.get("b"));
+
+	}
+
+	public void testSeriesAreWeighedOnceSeasonsLoad() throws Exception {
+
+		final StandardSeason season = new StandardSeason(1);
+		List<Episode> episodes = new ArrayList<Episode>();
+		for(int i = 1; i <= 6; i++){
+			episodes.add(new StandardEpisode(season, i, "Episode " + i));
+		}
+		season.setEpisodes(episodes);
+
+		StandardSeries series = new StandardSeries("tt0386676");
+		series.setSeasonLoader(new LazyValue<List<Season>>(){
+			@Override
+			protected List<Season> compute(){
+				return new SeasonList(Arrays.<Season>asList(season));
+			}
+		});
+
+		LruSearchCache cache = createCache(10, 10);
+		cache.put("series", new ImdbSearchResults(series));
+		cache.put("a", exactMatch("tt1"));
+		assertEquals(2, cache.getStatistics().getWeight()); // not loading the seasons just to weigh them
+
+		series.getSeasons();
+		assertEquals(8, cache.getStatistics().getWeight());
+
+		// the series is now heavy enough to be evicted to make room
+		cache.get("a");
+		cache.put("b", resultList(4));
+		assertNull(cache.get("series"));
+		assertNotNull(cache.get("a"));
+		assertEquals(5, cache.getStatistics().getWeight());
+		assertEquals(1, cache.getStatistics().getEvictionCount());
+
+	}
+
+	public void testSeparateTimeToLive() throws Exception {
+
+		LruSearchCache cache = createCache(10, 100);
+		cache.put("exact", exactMatch("tt1"));
+		cache.put("list", resultList(3));
+
+		now += 500;
+		assertNotNull(cache.get("exact"));
+		assertNull(cache.get("list"));
+
+		now += 500;
+		assertNull(cache.get("exact"));
+		assertEquals(2, cache.getStatistics().getExpirationCount());
+		assertEquals(0, cache.getStatistics().getSize());
+
+	}
+
+}
@@ -0,0 +1,70 @@
+package com.voetsjoeba.imdb.cache;
+
+import java.io.File;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+public class ThumbnailCacheTest extends TestCase {
+
+	private File directory;
+
+	@Override
+	protected void setUp() throws Exception {
+		directory = File.createTempFile("thumbnails", "");
+		directory.delete();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		delete(directory);
+	}
+
+	public void testMemoryBound() throws Exception {
+
+		ThumbnailCache cache = new ThumbnailCache(10);
+		cache.put("a", new byte[4]);
+		cache.put("b", new byte[4]);
+		assertNotNull(cache.get("a")); // b is now least recently used
+
+		cache.put("c", new byte[4]);
+		assertNotNull(cache.get("a"));
+		assertNull(cache.get("b"));
+		assertNotNull(cache.get("c"));
+
+		cache.put("d", new byte[11]); // doesn't fit at all
+		assertNull(cache.get("d"));
+
+		CacheStatistics statistics = cache.getStatistics();
+		assertEquals(2, statistics.getSize());
+		assertEquals(8, statistics.getWeight());
+		assertEquals(1, statistics.getEvictionCount());
+
+	}
+
+	public void testDiskOutlivesMemory() throws Exception {
+
+		byte[] data = {1, 2, 3, 4, 5};
+		ThumbnailCache cache = new ThumbnailCache(8, directory);
+		cache.put("http://ia.media-imdb.com/images/a.jpg", data);
+		cache.put("http://ia.media-imdb.com/images/b.jpg", new byte[6]); // evicts a from memory
+
+		assertTrue(Arrays.equals(data, cache.get("http://ia.media-imdb.com/images/a.jpg")));
+		assertTrue(Arrays.equals(data, new ThumbnailCache(8, directory).get("http://ia.media-imdb.com/images/a.jpg")));
+		assertNull(cache.get("http://ia.media-imdb.com/images/c.jpg"));
+
+		cache.clear();
+		assertEquals(0, cache.getStatistics().getSize());
+		assertEquals(6, cache.get("http://ia.media-imdb.com/images/b.jpg").length);
+
+	}
+
+	private void delete(File file){
+		File[] children = file.listFiles();
+		if(children != null){
+			for(File child : children) delete(child);
+		}
+		file.delete();
+	}
+
+}
@@ -0,0 +1,77 @@
+package com.voetsjoeba.imdb.domain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import com.voetsjoeba.imdb.domain.api.Episode;
+import com.voetsjoeba.imdb.domain.api.Season;
+
+public class EpisodeIndexTest extends TestCase {
+
+	private static StandardSeason season(int number, int episodeCount){
+		StandardSeason season = new StandardSeason(number);
+		List<Episode> episodes = new ArrayList<Episode>();
+		for(int i = 1; i <= episodeCount; i++){
+			Episode episode = new StandardEpisode(season);
+			episode.setNumber(i);
+			episode.setTitle("Episode " + number + "." + i);
+			episodes.add(episode);
+		}
+		season.setEpisodes(episodes);
+		return season;
+	}
+
+	public void testPacking() throws Exception {
+
+		int[][] numbers = {{1, 1}, {0, 0}, {2015, 300}, {-1, 7}, {3, -2}, {Integer.MAX_VALUE, Integer.MIN_VALUE}};
+		for(int[] pair : numbers){
+			long packed = SeasonEpisodeNumber.pack(pair[0], pair[1]);
+			assertEquals(pair[0], SeasonEpisodeNumber.unpackSeasonNumber(packed));
+			assertEquals(pair[1], SeasonEpisodeNumber.unpackEpisodeNumber(packed));
+		}
+
+		assertTrue(SeasonEpisodeNumber.pack(1, 99) < SeasonEpisodeNumber.pack(2, 1));
+		assertEquals(new SeasonEpisodeNumber(4, 12), SeasonEpisodeNumber.unpack(new SeasonEpisodeNumber(4, 12).pack()));
+
+	}
+
+	public void testEqualsWithUnknownNumbers() throws Exception {
+
+		assertEquals(new SeasonEpisodeNumber(null, null), new SeasonEpisodeNumber(null, null));
+		assertFalse(new SeasonEpisodeNumber(1, null).equals(new SeasonEpisodeNumber(1, 2)));
+		assertFalse(new SeasonEpisodeNumber(1, 2).equals(new SeasonEpisodeNumber(null, 2)));
+
+	}
+
+	public void testIndex() throws Exception {
+
+		List<Season> seasons = Arrays.<Season>asList(season(0, 2), season(1, 10), season(2015, 3));
+		StandardSeries series = new StandardSeries("tt0000001");
+		series.setSeasons(new SeasonList(seasons));
+
+		EpisodeIndex index = new EpisodeIndex(series);
+		assertEquals(15, index.size());
+		assertEquals("Episode 1.10", index.get(1, 10).getTitle());
+		assertEquals("Episode 2015.3", index.get(SeasonEpisodeNumber.pack(2015, 3)).getTitle());
+		assertTrue(index.contains(0, 2));
+		assertFalse(index.contains(1, 11));
+		assertFalse(index.contains(2, 1));
+
+		assertEquals(0, new EpisodeIndex(new StandardSeries("tt0000002")).size());
+
+	}
+
+	public void testSeasonWithoutEpisodes() throws Exception {
+
+		StandardSeason season = season(1, 3);
+		season.setEpisodes(null);
+		assertTrue(season.getEpisodes().isEmpty());
+		assertFalse(season.hasEpisode(1));
+		assertNull(season.getEpisode(1));
+
+	}
+
+}
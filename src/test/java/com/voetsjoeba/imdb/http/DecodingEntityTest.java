@@ -0,0 +1,87 @@
+package com.voetsjoeba.imdb.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import junit.framework.TestCase;
+
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.util.EntityUtils;
+
+public class DecodingEntityTest extends TestCase {
+
+	private String page;
+	private AtomicLong wireBytes;
+	private AtomicLong decodedBytes;
+
+	@Override
+	public void setUp() throws Exception {
+		StringBuilder html = new StringBuilder("<html><body>");
+		for(int i = 0; i < 500; i++){
+			html.append("<h4><a href=\"/title/tt").append(i).append("/\">Episode ").append(i).append("</a></h4>");
+		}
+		page = html.append("</body></html>").toString();
+
+		wireBytes = new AtomicLong();
+		decodedBytes = new AtomicLong();
+	}
+
+	private DecodingEntity entity(byte[] content, String encoding){
+		BasicHttpEntity entity = new BasicHttpEntity();
+		entity.setContent(new ByteArrayInputStream(content));
+		entity.setContentLength(content.length);
+		entity.setContentType("text/html; charset=UTF-8");
+		if(encoding != null) entity.setContentEncoding(encoding);
+		return new DecodingEntity(entity, wireBytes, decodedBytes);
+	}
+
+	private byte[] compress(OutputStream out, ByteArrayOutputStream bytes) throws Exception {
+		out.write(page.getBytes("UTF-8"));
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	private void assertDecodes(byte[] content, String encoding) throws Exception {
+		DecodingEntity entity = entity(content, encoding);
+		assertTrue(entity.isDecoding());
+		assertNull(entity.getContentEncoding());
+		assertEquals(-1, entity.getContentLength());
+
+		assertEquals(page, EntityUtils.toString(entity));
+		assertEquals(content.length, wireBytes.get());
+		assertEquals(page.length(), decodedBytes.get());
+		assertTrue(wireBytes.get() * 5 < decodedBytes.get());
+	}
+
+	public void testGzip() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		assertDecodes(compress(new GZIPOutputStream(bytes), bytes), "gzip");
+	}
+
+	public void testDeflate() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		assertDecodes(compress(new DeflaterOutputStream(bytes), bytes), "deflate");
+	}
+
+	public void testRawDeflate() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		assertDecodes(compress(new DeflaterOutputStream(bytes, new Deflater(Deflater.DEFAULT_COMPRESSION, true)), bytes), "deflate");
+	}
+
+	public void testUncompressed() throws Exception {
+		byte[] content = page.getBytes("UTF-8");
+		DecodingEntity entity = entity(content, null);
+		assertFalse(entity.isDecoding());
+		assertEquals(content.length, entity.getContentLength());
+
+		assertEquals(page, EntityUtils.toString(entity));
+		assertEquals(content.length, wireBytes.get());
+		assertEquals(content.length, decodedBytes.get());
+	}
+
+}
@@ -0,0 +1,87 @@
+package com.voetsjoeba.imdb.http;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+
+import junit.framework.TestCase;
+
+import org.apache.http.HttpException;
+
+public class PageArchiveTest extends TestCase {
+	
+	private File file;
+	
+	@Override
+	public void setUp() throws Exception {
+		file = File.createTempFile("pagearchive", ".bin");
+		file.delete();
+	}
+	
+	@Override
+	public void tearDown() throws Exception {
+		file.delete();
+	}
+	
+	public void testAppendAndReopen() throws Exception {
+		
+		PageArchive archive = new PageArchive(file);
+		archive.append("http://www.imdb.com/title/tt1127180", "<html>old</html>", 1000);
+		archive.append("http://www.imdb.com/title/tt1127180", "<html>new \u00e9</html>", 2000);
+		archive.append("http://www.imdb.com/title/tt0151804", "<html>office space</html>", 3000);
+		archive.close();
+		
+		archive = new PageArchive(file);
+		assertEquals(2, archive.size());
+		
+		PageArchive.ArchivedPage page = archive.get("http://www.imdb.com/title/tt1127180");
+		assertEquals("<html>new \u00e9</html>", page.getContent());
+		assertEquals(2000, page.getFetchedAt());
+		assertNull(archive.get("http://www.imdb.com/title/tt0000000"));
+		archive.close();
+		
+	}
+	
+	public void testTruncatedRecordIsDiscarded() throws Exception {
+		
+		PageArchive archive = new PageArchive(file);
+		archive.append("http://www.imdb.com/title/tt1127180", "<html>complete</html>");
+		archive.append("http://www.imdb.com/title/tt0151804", "<html>will be cut off</html>");
+		archive.close();
+		
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		raf.setLength(raf.length() - 5);
+		raf.close();
+		
+		archive = new PageArchive(file);
+		assertTrue(archive.contains("http://www.imdb.com/title/tt1127180"));
+		assertFalse(archive.contains("http://www.imdb.com/title/tt0151804"));
+		
+		// appending after recovery must still produce a readable archive
+		archive.append("http://www.imdb.com/title/tt0151804", "<html>again</html>");
+		archive.close();
+		archive = new PageArchive(file);
+		assertEquals("<html>again</html>", archive.get("http://www.imdb.com/title/tt0151804").getContent());
+		archive.close();
+		
+	}
+	
+	public void testReplay() throws Exception {
+		
+		PageArchive archive = new PageArchive(file);
+		archive.append("http://www.imdb.com/title/tt1127180", "<html>drag me to hell</html>");
+		
+		ReplayTransport transport = new ReplayTransport(archive);
+		assertEquals("<html>drag me to hell</html>", transport.getPage("www.imdb.com/title/tt1127180"));
+		
+		try {
+			transport.getPage("http://www.imdb.com/title/tt0000000");
+			fail();
+		}
+		catch(HttpException hex){
+			// expected
+		}
+		archive.close();
+		
+	}
+	
+}
@@ -0,0 +1,159 @@
+package com.voetsjoeba.imdb.http;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+import junit.framework.TestCase;
+
+import org.apache.http.HttpException;
+import org.jsoup.nodes.Document;
+
+public class RateLimiterTest extends TestCase {
+
+	private static final String HOST = "www.imdb.com";
+	private static final long SECOND = 1000000000L;
+
+	private long now;
+	private RateLimiter limiter;
+
+	@Override
+	public void setUp() throws Exception {
+		now = 0;
+		limiter = new RateLimiter(2, 2){
+			@Override
+			protected long nanoTime(){
+				return now;
+			}
+		};
+	}
+
+	public void testBurstThenSteadyRate() throws Exception {
+
+		assertTrue(limiter.tryAcquire(HOST, RequestPriority.INTERACTIVE));
+		assertTrue(limiter.tryAcquire(HOST, RequestPriority.BACKGROUND));
+		assertFalse(limiter.tryAcquire(HOST, RequestPriority.INTERACTIVE));
+
+		// other hosts have their own budget
+		assertTrue(limiter.tryAcquire("ia.media-imdb.com", RequestPriority.INTERACTIVE));
+
+		now += SECOND / 2;
+		assertTrue(limiter.tryAcquire(HOST, RequestPriority.INTERACTIVE));
+		assertFalse(limiter.tryAcquire(HOST, RequestPriority.INTERACTIVE));
+
+		now += 10 * SECOND; // refills up to the burst only
+		assertTrue(limiter.tryAcquire(HOST, RequestPriority.INTERACTIVE));
+		assertTrue(limiter.tryAcquire(HOST, RequestPriority.INTERACTIVE));
+		assertFalse(limiter.tryAcquire(HOST, RequestPriority.INTERACTIVE));
+
+	}
+
+	public void testHostLimit() throws Exception {
+
+		limiter.setHostLimit(HOST, 10, 1);
+		assertTrue(limiter.tryAcquire(HOST, RequestPriority.INTERACTIVE));
+		assertFalse(limiter.tryAcquire(HOST, RequestPriority.INTERACTIVE));
+
+		now += SECOND / 10;
+		assertTrue(limiter.tryAcquire(HOST, RequestPriority.INTERACTIVE));
+
+	}
+
+	public void testBackOffAndRecovery() throws Exception {
+
+		limiter.reportThrottled(HOST);
+		assertEquals(1.0, limiter.getRate(HOST), 1e-9);
+		assertFalse(limiter.tryAcquire(HOST, RequestPriority.INTERACTIVE)); // bucket was emptied
+
+		now += SECOND / 2;
+		assertFalse(limiter.tryAcquire(HOST, RequestPriority.INTERACTIVE));
+		now += SECOND / 2;
+		assertTrue(limiter.tryAcquire(HOST, RequestPriority.INTERACTIVE));
+
+		for(int i = 0; i < 10; i++) limiter.reportThrottled(HOST);
+		assertEquals(2.0 / 16, limiter.getRate(HOST), 1e-9);
+
+		for(int i = 0; i < 100; i++) limiter.reportSuccess(HOST);
+		assertEquals(2.0, limiter.getRate(HOST), 1e-9);
+
+	}
+
+	public void testWaitingRequestsGetServed() throws Exception {
+
+		final RateLimiter limiter = new RateLimiter(1000, 1);
+		assertTrue(limiter.tryAcquire(HOST, RequestPriority.INTERACTIVE));
+
+		Thread[] interactive = new Thread[3];
+		for(int i = 0; i < interactive.length; i++){
+			interactive[i] = new Thread(){
+				@Override
+				public void run(){
+					try {
+						limiter.acquire(HOST, RequestPriority.INTERACTIVE);
+					}
+					catch(InterruptedException iex) { }
+				}
+			};
+			interactive[i].start();
+		}
+
+		limiter.acquire(HOST, RequestPriority.BACKGROUND);
+		for(Thread thread : interactive){
+			thread.join(5000);
+			assertFalse(thread.isAlive());
+		}
+
+	}
+
+	public void testThrottlingTransportReportsThrottledResponses() throws Exception {
+
+		Transport unavailable = new Transport(){
+			public String getPage(String url) throws IOException, HttpException {
+				throw new HttpStatusException(503, "Service Unavailable");
+			}
+			public Document getDocument(String url) throws IOException, HttpException {
+				throw new HttpStatusException(404, "Not Found");
+			}
+			public ConditionalPage getDocument(String url, PageValidators validators) throws IOException, HttpException {
+				return ConditionalPage.notModified(validators);
+			}
+			public ConditionalPage getPage(String url, PageValidators validators) throws IOException, HttpException {
+				return ConditionalPage.notModified(validators);
+			}
+			public BufferedImage fetchImage(String url) throws IOException, HttpException {
+				throw new IOException("Connection reset");
+			}
+			public byte[] getImageBytes(String url) throws IOException, HttpException {
+				return new byte[0];
+			}
+		};
+
+		RateLimiter limiter = new RateLimiter(1000, 100);
+		Transport transport = new ThrottlingTransport(unavailable, limiter, RequestPriority.INTERACTIVE);
+
+		try {
+			transport.getDocument("http://www.imdb.com/title/tt0000001");
+			fail("Expected HttpException");
+		}
+		catch(HttpException expected) { }
+		assertEquals(1000.0, limiter.getRate(HOST), 1e-9);
+
+		try {
+			transport.getPage("http://www.imdb.com/find?q=x");
+			fail("Expected HttpException");
+		}
+		catch(HttpException expected) { }
+		assertEquals(500.0, limiter.getRate(HOST), 1e-9);
+
+		try {
+			transport.fetchImage("www.imdb.com/images/x.jpg");
+			fail("Expected IOException");
+		}
+		catch(IOException expected) { }
+		assertEquals(250.0, limiter.getRate(HOST), 1e-9);
+
+		transport.getImageBytes("http://www.imdb.com/images/x.jpg");
+		assertEquals(300.0, limiter.getRate(HOST), 1e-9);
+
+	}
+
+}
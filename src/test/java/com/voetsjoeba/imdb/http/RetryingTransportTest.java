@@ -0,0 +1,204 @@
+package com.voetsjoeba.imdb.http;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.apache.http.HttpException;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+public class RetryingTransportTest extends TestCase {
+
+	private static final String URL = "http://www.imdb.com/title/tt0000001";
+
+	/**
+	 * Fails with the queued failures, in order, and serves a page once they've run out.
+	 */
+	private static class FlakyTransport implements Transport {
+
+		final LinkedList<Throwable> failures = new LinkedList<Throwable>();
+		int attempts;
+
+		public String getPage(String url) throws IOException, HttpException {
+			attempts++;
+			Throwable failure = failures.poll();
+			if(failure instanceof Error) throw (Error) failure;
+			if(failure instanceof IOException) throw (IOException) failure;
+			if(failure instanceof HttpException) throw (HttpException) failure;
+			return "<html>" + url + "</html>";
+		}
+
+		public Document getDocument(String url) throws IOException, HttpException {
+			return Jsoup.parse(getPage(url));
+		}
+
+		public ConditionalPage getDocument(String url, PageValidators validators) throws IOException, HttpException {
+			return ConditionalPage.modified(getDocument(url), PageValidators.NONE);
+		}
+
+		public ConditionalPage getPage(String url, PageValidators validators) throws IOException, HttpException {
+			return ConditionalPage.modified(getPage(url), PageValidators.NONE);
+		}
+
+		public BufferedImage fetchImage(String url) throws IOException, HttpException {
+			getPage(url);
+			return null;
+		}
+
+		public byte[] getImageBytes(String url) throws IOException, HttpException {
+			return getPage(url).getBytes("UTF-8");
+		}
+	}
+
+	private long now;
+	private FlakyTransport flaky;
+	private CircuitBreaker breaker;
+	private List<Long> delays;
+	private RetryingTransport transport;
+
+	@Override
+	public void setUp() throws Exception {
+		now = 0;
+		flaky = new FlakyTransport();
+		delays = new ArrayList<Long>();
+		breaker = new CircuitBreaker(3, 1000){
+			@Override
+			protected long currentTimeMillis(){
+				return now;
+			}
+		};
+		transport = new RetryingTransport(flaky, new RetryPolicy(3, 100, 1000), breaker){
+			@Override
+			protected void sleep(long millis){
+				delays.add(millis);
+			}
+		};
+	}
+
+	public void testRetriesTransientFailures() throws Exception {
+
+		flaky.failures.add(new IOException("Connection reset"));
+		flaky.failures.add(new HttpStatusException(503, "Service Unavailable"));
+
+		assertEquals("<html>" + URL + "</html>", transport.getPage(URL));
+		assertEquals(3, flaky.attempts);
+		assertEquals(2, delays.size());
+		assertTrue(delays.get(0) >= 50 && delays.get(0) <= 100);
+		assertTrue(delays.get(1) >= 100 && delays.get(1) <= 200);
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+	}
+
+	public void testDoesNotRetryPermanentFailures() throws Exception {
+
+		flaky.failures.add(new HttpStatusException(404, "Not Found"));
+		try {
+			transport.getPage(URL);
+			fail("Expected HttpStatusException");
+		}
+		catch(HttpStatusException expected) {
+			assertEquals(404, expected.getStatusCode());
+		}
+		assertEquals(1, flaky.attempts);
+		assertTrue(delays.isEmpty());
+
+	}
+
+	public void testGivesUpAfterMaxAttempts() throws Exception {
+
+		for(int i = 0; i < 3; i++) flaky.failures.add(new IOException("Connection reset " + i));
+		try {
+			transport.getImageBytes(URL);
+			fail("Expected IOException");
+		}
+		catch(IOException expected) {
+			assertEquals("Connection reset 2", expected.getMessage());
+		}
+		assertEquals(3, flaky.attempts);
+
+	}
+
+	public void testHonorsRetryAfter() throws Exception {
+
+		flaky.failures.add(new HttpStatusException(429, "Too Many Requests", 700));
+		transport.getPage(URL);
+		assertEquals(Long.valueOf(700), delays.get(0));
+
+		// waiting longer than the maximum delay isn't worth it
+		flaky.failures.add(new HttpStatusException(503, "Service Unavailable", 5000));
+		try {
+			transport.getPage(URL);
+			fail("Expected HttpStatusException");
+		}
+		catch(HttpStatusException expected) { }
+		assertEquals(1, delays.size());
+
+	}
+
+	public void testCircuitBreaker() throws Exception {
+
+		for(int i = 0; i < 3; i++) flaky.failures.add(new HttpStatusException(500, "Internal Server Error"));
+		try {
+			transport.getPage(URL);
+			fail("Expected HttpStatusException");
+		}
+		catch(HttpStatusException expected) { }
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+		// fails fast without going out to the server
+		try {
+			transport.getDocument(URL);
+			fail("Expected CircuitOpenException");
+		}
+		catch(CircuitOpenException expected) { }
+		assertEquals(3, flaky.attempts);
+
+		// a single trial goes through once the breaker has been open long enough; it fails, so it opens again
+		now += 1000;
+		flaky.failures.add(new IOException("Connection refused"));
+		try {
+			transport.getPage(URL);
+			fail("Expected CircuitOpenException");
+		}
+		catch(CircuitOpenException expected) { }
+		assertEquals(4, flaky.attempts);
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+		now += 1000;
+		transport.getPage(URL);
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+	}
+
+	public void testErrorDuringTrialReopensBreaker() throws Exception {
+
+		for(int i = 0; i < 3; i++) flaky.failures.add(new IOException("Connection reset"));
+		try {
+			transport.getPage(URL);
+			fail("Expected IOException");
+		}
+		catch(IOException expected) { }
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+		// the trial dies with an error rather than an exception; the breaker mustn't be left waiting for its outcome
+		now += 1000;
+		flaky.failures.add(new StackOverflowError());
+		try {
+			transport.getDocument(URL);
+			fail("Expected StackOverflowError");
+		}
+		catch(StackOverflowError expected) { }
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+		now += 1000;
+		transport.getPage(URL);
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+	}
+
+}
@@ -0,0 +1,131 @@
+package com.voetsjoeba.imdb.store;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import com.voetsjoeba.imdb.domain.StandardEpisode;
+import com.voetsjoeba.imdb.domain.StandardMovie;
+import com.voetsjoeba.imdb.domain.StandardName;
+import com.voetsjoeba.imdb.domain.StandardSeason;
+import com.voetsjoeba.imdb.domain.StandardSeries;
+import com.voetsjoeba.imdb.domain.api.Episode;
+import com.voetsjoeba.imdb.domain.api.Name;
+import com.voetsjoeba.imdb.domain.api.Season;
+import com.voetsjoeba.imdb.domain.api.Series;
+import com.voetsjoeba.imdb.domain.api.Title;
+
+public class FileTitleStoreTest extends TestCase {
+
+	private File directory;
+	private FileTitleStore store;
+
+	@Override
+	public void setUp() throws Exception {
+		directory = File.createTempFile("titlestore", "");
+		directory.delete();
+		store = new FileTitleStore(directory);
+	}
+
+	@Override
+	public void tearDown() throws Exception {
+		delete(directory);
+	}
+
+	private void delete(File file){
+		File[] children = file.listFiles();
+		if(children != null){
+			for(File child : children) delete(child);
+		}
+		file.delete();
+	}
+
+	public void testMovieRoundTrip() throws Exception {
+
+		StandardMovie movie = new StandardMovie("tt1127180");
+		movie.setTitle("Drag Me to Hell");
+		movie.setYear(2009);
+		movie.setStars(Arrays.<Name>asList(new StandardName("nm0000001", "Alison Lohman")));
+		store.put(movie);
+
+		assertTrue(store.contains("tt1127180"));
+		Title stored = store.get("tt1127180");
+		assertTrue(stored instanceof StandardMovie);
+		assertEquals("Drag Me to Hell", stored.getTitle());
+		assertEquals(Integer.valueOf(2009), stored.getYear());
+		assertEquals("Alison Lohman", stored.getStars().get(0).getName());
+
+		assertNull(store.get("tt0000000"));
+
+	}
+
+	public void testSeriesKeepsSeasons() throws Exception {
+
+		StandardSeries series = new StandardSeries("tt0386676", "The Office");
+		StandardSeason season = new StandardSeason(1);
+		List<Episode> episodes = new ArrayList<Episode>();
+		episodes.add(new StandardEpisode(season, 1, "Pilot"));
+		season.setEpisodes(episodes);
+		series.setSeasons(Arrays.<Season>asList(season));
+		store.put(series);
+
+		Series stored = (Series) store.get("tt0386676");
+		assertNotNull(stored.getSeasons());
+		assertEquals("Pilot", stored.getSeason(1).getEpisode(1).getTitle());
+
+	}
+
+	public void testReplaceRemoveAndScan() throws Exception {
+
+		StandardMovie movie = new StandardMovie("tt0151804");
+		movie.setTitle("Office Spce");
+		store.put(movie);
+		movie.setTitle("Office Space");
+		store.put(movie);
+		store.put(new StandardMovie("tt1127180"));
+
+		assertEquals("Office Space", store.get("tt0151804").getTitle());
+		assertEquals(2, store.getIds().size());
+
+		int count = 0;
+		for(@SuppressWarnings("unused") Title title : store){
+			count++;
+		}
+		assertEquals(2, count);
+
+		store.remove("tt0151804");
+		assertFalse(store.contains("tt0151804"));
+		assertEquals(1, store.getIds().size());
+
+	}
+
+	public void testCorruptFile() throws Exception {
+
+		store.put(new StandardMovie("tt0151804"));
+		store.put(new StandardMovie("tt1127180"));
+
+		// truncated in the middle of the stream header
+		FileOutputStream out = new FileOutputStream(store.getFile("tt0151804"));
+		out.write(0xAC);
+		out.close();
+
+		try {
+			store.get("tt0151804");
+			fail("Expected IOException");
+		}
+		catch(IOException expected) { }
+
+		List<String> ids = new ArrayList<String>();
+		for(Title title : store){
+			ids.add(title.getId());
+		}
+		assertEquals(Arrays.asList("tt1127180"), ids);
+
+	}
+
+}
@@ -0,0 +1,79 @@
+package com.voetsjoeba.imdb.util;
+
+import junit.framework.TestCase;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+
+public class CompiledSelectorTest extends TestCase {
+
+	private static final String[] QUERIES = {
+		"td#overview-top > h1.header > span:first-of-type",
+		"div[class*=see-more]:has(h4:contains(Genres:)) > a",
+		"tr > td:nth-child(2)",
+		"head > meta[name='title'][content]",
+		"a:first-of-type[href]",
+		"span",
+		"div.nonexistent",
+	};
+
+	private Document document;
+
+	@Override
+	protected void setUp() throws Exception {
+		document = Jsoup.parse(
+			"<html><head><title>Some Title</title><meta name=\"title\" content=\"Meta\"></head><body>" +
+			"<table><tr><td id=\"overview-top\"><h1 class=\"header\"><span>Name</span><span>(2004)</span></h1></td><td>second</td></tr>" +
+			"<tr><td>a</td><td><a href=\"/title/tt1/\">link</a><a href=\"/title/tt2/\">other</a></td></tr></table>" +
+			"<div class=\"see-more inline\"><h4>Genres:</h4><a>Drama</a> | <a>Comedy</a></div>" +
+			"<div class=\"see-more\"><h4>Keywords:</h4><a>keyword</a></div>" +
+			"</body></html>");
+	}
+
+	public void testMatchesStringSelection() throws Exception {
+
+		for(String query : QUERIES){
+			CompiledSelector selector = CompiledSelector.compile(query);
+			assertEquals(query, document.select(query), selector.select(document));
+			assertSame(query, document.select(query).first(), selector.first(document));
+		}
+
+	}
+
+	public void testSeveralInOneTraversal() throws Exception {
+
+		CompiledSelector[] selectors = new CompiledSelector[QUERIES.length];
+		for(int i = 0; i < QUERIES.length; i++){
+			selectors[i] = CompiledSelector.compile(QUERIES[i]);
+		}
+
+		Element[] matches = CompiledSelector.first(document, selectors);
+		Elements[] allMatches = CompiledSelector.selectAll(document, selectors);
+		for(int i = 0; i < QUERIES.length; i++){
+			assertSame(QUERIES[i], document.select(QUERIES[i]).first(), matches[i]);
+			assertEquals(QUERIES[i], document.select(QUERIES[i]), allMatches[i]);
+		}
+
+	}
+
+	public void testRelativeToElement() throws Exception {
+
+		Element row = document.select("tr").get(1);
+		assertEquals("link", CompiledSelector.compile("a:first-of-type[href]").first(row).text());
+		assertNull(CompiledSelector.compile("h1").first(row));
+
+	}
+
+	public void testInvalidQuery() throws Exception {
+
+		try {
+			CompiledSelector.compile("div[");
+			fail("Expected invalid selector to be rejected");
+		}
+		catch(RuntimeException expected) { }
+
+	}
+
+}
@@ -0,0 +1,29 @@
+package com.voetsjoeba.imdb.util;
+
+import junit.framework.TestCase;
+
+import com.voetsjoeba.imdb.domain.LimitedTitle;
+import com.voetsjoeba.imdb.domain.StandardName;
+
+public class ImdbUrlsTest extends TestCase {
+
+	public void testBuildsUrlsUnderBaseUrl() {
+		ImdbUrls urls = new ImdbUrls("localhost:8080/imdb/");
+		assertEquals("http://localhost:8080/imdb", urls.getBaseUrl());
+		assertEquals("http://localhost:8080/imdb/title/tt0386676", urls.getTitleUrl("tt0386676"));
+		assertEquals("http://localhost:8080/imdb/name/nm0000001", urls.getNameUrl("nm0000001"));
+		assertEquals("http://localhost:8080/imdb/find?s=all&q=some+title", urls.getSearchUrl("some title"));
+		assertEquals(urls, new ImdbUrls("http://localhost:8080/imdb"));
+	}
+
+	public void testDomainUrlsDefaultToImdb() {
+		LimitedTitle title = new LimitedTitle("tt0386676");
+		assertEquals("http://www.imdb.com/title/tt0386676", title.getUrl());
+		assertEquals("http://www.imdb.com/find?s=all&q=First+Star", new StandardName(null, "First Star").getUrl());
+
+		title.setImdbUrls(new ImdbUrls("http://mirror.example.com"));
+		assertEquals("http://mirror.example.com/title/tt0386676", title.getUrl());
+		assertEquals("http://mirror.example.com/name/nm0000001", new StandardName("nm0000001", "First Star", title.getImdbUrls()).getUrl());
+	}
+
+}
@@ -0,0 +1,62 @@
+package com.voetsjoeba.imdb.util;
+
+import junit.framework.TestCase;
+
+public class IntMapTest extends TestCase {
+
+	public void testDenseKeys() throws Exception {
+
+		IntMap<String> map = new IntMap<String>();
+		for(int i = 1; i <= 100; i++){
+			assertNull(map.put(i, "v" + i));
+		}
+
+		assertEquals(100, map.size());
+		assertEquals("v1", map.get(1));
+		assertEquals("v100", map.get(100));
+		assertNull(map.get(0));
+		assertNull(map.get(101));
+		assertEquals("v50", map.put(50, "replaced"));
+		assertEquals("replaced", map.get(50));
+		assertEquals(100, map.size());
+
+	}
+
+	public void testSparseAndNegativeKeys() throws Exception {
+
+		IntMap<String> map = new IntMap<String>();
+		map.put(2015, "2015");
+		map.put(-1, "minus one");
+		map.put(Integer.MAX_VALUE, "max");
+		map.put(0, "zero");
+
+		for(int i = 0; i < 50; i++){
+			map.put(100000 + i * 7919, "sparse" + i);
+		}
+
+		assertEquals(54, map.size());
+		assertEquals("2015", map.get(2015));
+		assertEquals("minus one", map.get(-1));
+		assertEquals("max", map.get(Integer.MAX_VALUE));
+		assertEquals("zero", map.get(0));
+		assertEquals("sparse49", map.get(100000 + 49 * 7919));
+		assertFalse(map.containsKey(2014));
+
+	}
+
+	public void testSparseKeysMigrateWhenDenseRangeGrows() throws Exception {
+
+		IntMap<String> map = new IntMap<String>();
+		map.put(40, "forty");
+		for(int i = 1; i <= 30; i++){
+			map.put(i, "v" + i);
+		}
+
+		assertEquals("forty", map.get(40));
+		assertFalse(map.putIfAbsent(40, "other"));
+		assertEquals("forty", map.get(40));
+		assertEquals(31, map.size());
+
+	}
+
+}
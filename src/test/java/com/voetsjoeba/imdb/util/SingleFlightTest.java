@@ -0,0 +1,80 @@
+package com.voetsjoeba.imdb.util;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+public class SingleFlightTest extends TestCase {
+
+	public void testConcurrentCallsShareOneExecution() throws Exception {
+
+		final SingleFlight<String, String> singleFlight = new SingleFlight<String, String>();
+		final AtomicInteger executions = new AtomicInteger();
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+
+		final Callable<String> slowCallable = new Callable<String>() {
+			public String call() throws Exception {
+				executions.incrementAndGet();
+				started.countDown();
+				release.await();
+				return "result";
+			}
+		};
+
+		final String[] results = new String[2];
+		Thread leader = new Thread(){
+			@Override
+			public void run(){
+				try { results[0] = singleFlight.execute("key", slowCallable); } catch(Exception e) { }
+			}
+		};
+		Thread follower = new Thread(){
+			@Override
+			public void run(){
+				try { results[1] = singleFlight.execute("key", slowCallable); } catch(Exception e) { }
+			}
+		};
+
+		leader.start();
+		started.await();
+		follower.start();
+
+		// wait for the follower to block on the leader's computation
+		while(follower.getState() != Thread.State.WAITING){
+			Thread.sleep(10);
+		}
+
+		release.countDown();
+		leader.join(5000);
+		follower.join(5000);
+
+		assertEquals("result", results[0]);
+		assertEquals("result", results[1]);
+		assertEquals(1, executions.get());
+		assertEquals(0, singleFlight.getInFlightCount());
+
+	}
+
+	public void testFailureIsPropagated() throws Exception {
+
+		SingleFlight<String, String> singleFlight = new SingleFlight<String, String>();
+		try {
+			singleFlight.execute("key", new Callable<String>() {
+				public String call() throws Exception {
+					throw new IllegalStateException("boom");
+				}
+			});
+			fail();
+		}
+		catch(ExecutionException eex){
+			assertTrue(eex.getCause() instanceof IllegalStateException);
+		}
+		assertEquals(0, singleFlight.getInFlightCount());
+
+	}
+
+}